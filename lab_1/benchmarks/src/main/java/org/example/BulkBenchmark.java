@@ -0,0 +1,181 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетные операции контейнера в сравнении с поэлементными:
+ * загрузка массива, вставка блока в середину, удаление диапазона и фильтрация.
+ * <p>
+ * Поэлементные варианты вставки и удаления сдвигают хвост на каждом элементе,
+ * поэтому для них размер блока ограничен {@link #block}.
+ * </p>
+ * <p>
+ * Изменяющие операции должны начинать с одинаково заполненного контейнера.
+ * Заполнение перед каждым вызовом ({@code Level.Invocation}) добавляет к замеру
+ * накладные расходы JMH на отметки времени, сравнимые с самими операциями, поэтому
+ * такие бенчмарки выполняются пакетами по {@value #BATCH} вызовов: перед итерацией
+ * заполняется {@value #BATCH} контейнеров, и каждый вызов берет следующий. Время пакета
+ * делится на {@value #BATCH} ({@link OperationsPerInvocation}), так что результат
+ * по-прежнему приходится на одну операцию.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkBenchmark {
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"1000"})
+    public int block;
+
+    /**
+     * Число вызовов изменяющего бенчмарка за итерацию.
+     */
+    static final int BATCH = 100;
+
+    private int[] values;
+    private int[] blockValues;
+
+    @Setup
+    public void setUp() {
+        values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i * 31;
+        }
+        blockValues = new int[block];
+    }
+
+    /**
+     * Заполненные контейнеры для одной итерации изменяющего бенчмарка.
+     */
+    @State(Scope.Thread)
+    public static class Filled {
+        private Container[] containers;
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void fill(BulkBenchmark benchmark) {
+            containers = new Container[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                containers[i] = new Container();
+                containers[i].addAll(benchmark.values);
+            }
+            next = 0;
+        }
+
+        Container next() {
+            return containers[next++];
+        }
+    }
+
+    @Benchmark
+    public Container addElementwise() {
+        Container container = new Container();
+        for (int value : values) {
+            container.add(value);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public Container addAll() {
+        Container container = new Container();
+        container.addAll(values, 0, values.length);
+        return container;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    @OperationsPerInvocation(BATCH)
+    public Container insertElementwise(Filled state) {
+        Container filled = state.next();
+        int index = filled.size() / 2;
+        for (int i = 0; i < blockValues.length; i++) {
+            filled.insert(index + i, new int[]{blockValues[i]});
+        }
+        return filled;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    @OperationsPerInvocation(BATCH)
+    public Container insertBlock(Filled state) {
+        Container filled = state.next();
+        filled.insert(filled.size() / 2, blockValues);
+        return filled;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    @OperationsPerInvocation(BATCH)
+    public Container removeElementwise(Filled state) {
+        Container filled = state.next();
+        int from = filled.size() / 2;
+        for (int i = 0; i < block; i++) {
+            filled.remove(from);
+        }
+        return filled;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    @OperationsPerInvocation(BATCH)
+    public Container removeRange(Filled state) {
+        Container filled = state.next();
+        int from = filled.size() / 2;
+        filled.removeRange(from, from + block);
+        return filled;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    @OperationsPerInvocation(BATCH)
+    public Container removeEvenElementwise(Filled state) {
+        Container filled = state.next();
+        for (int i = filled.size() - 1; i >= 0; i--) {
+            if ((filled.get(i) & 1) == 0) {
+                filled.remove(i);
+            }
+        }
+        return filled;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    @OperationsPerInvocation(BATCH)
+    public Container removeEvenIf(Filled state) {
+        Container filled = state.next();
+        filled.removeIf(x -> (x & 1) == 0);
+        return filled;
+    }
+}
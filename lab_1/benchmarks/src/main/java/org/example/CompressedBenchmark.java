@@ -0,0 +1,92 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CompressedContainer} против {@link Container} на возрастающей последовательности
+ * идентификаторов с малым шагом: случайный доступ по индексу и последовательный обход.
+ * Выигрыш по памяти проверяет {@code CompressedContainerTests.testSortedIdsCompress}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressedBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000000"})
+    public int size;
+
+    /** Наибольший шаг между соседними идентификаторами. */
+    @Param({"16"})
+    public int maxStep;
+
+    private Container plain;
+    private CompressedContainer compressed;
+    private int[] indexes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        plain = new Container(size);
+        compressed = new CompressedContainer();
+        int id = 0;
+        for (int i = 0; i < size; i++) {
+            id += 1 + random.nextInt(maxStep);
+            plain.add(id);
+            compressed.add(id);
+        }
+        compressed.trimToSize();
+        indexes = random.ints(LOOKUPS, 0, size).toArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getPlain() {
+        long sum = 0;
+        for (int index : indexes) {
+            sum += plain.get(index);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getCompressed() {
+        long sum = 0;
+        for (int index : indexes) {
+            sum += compressed.get(index);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long scanPlain() {
+        long[] sum = new long[1];
+        plain.forEach(x -> sum[0] += x);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long scanCompressed() {
+        long[] sum = new long[1];
+        compressed.forEach(x -> sum[0] += x);
+        return sum[0];
+    }
+}
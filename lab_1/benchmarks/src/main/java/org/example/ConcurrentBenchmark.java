@@ -0,0 +1,77 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность трех писателей и одного читателя: {@link ConcurrentContainer}
+ * против {@link Container}, обернутого в {@code synchronized}.
+ * <p>
+ * Контейнеры пересоздаются на каждой итерации, а итерации короткие,
+ * чтобы объем добавленных элементов не упирался в размер кучи.
+ * Читатель обращается к последнему опубликованному элементу.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Group)
+public class ConcurrentBenchmark {
+    private ConcurrentContainer concurrent;
+    private Container synchronizedContainer;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        concurrent = new ConcurrentContainer();
+        concurrent.add(0);
+        synchronizedContainer = new Container();
+        synchronizedContainer.add(0);
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(3)
+    public void lockFreeAdd() {
+        concurrent.add(1);
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(1)
+    public int lockFreeGet() {
+        return concurrent.get(concurrent.size() - 1);
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(3)
+    public void synchronizedAdd() {
+        synchronized (synchronizedContainer) {
+            synchronizedContainer.add(1);
+        }
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public int synchronizedGet() {
+        synchronized (synchronizedContainer) {
+            return synchronizedContainer.get(synchronizedContainer.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Суммирование всех элементов контейнера: через {@link Container#get(int)},
+ * итератор, {@link Container#forEach} и последовательный и параллельный потоки.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScanBenchmark {
+    @Param({"10000", "10000000"})
+    public int size;
+
+    private Container container;
+
+    @Setup
+    public void setUp() {
+        container = new Container(size);
+        for (int i = 0; i < size; i++) {
+            container.add(i * 31);
+        }
+    }
+
+    @Benchmark
+    public long getLoop() {
+        long sum = 0;
+        for (int i = 0; i < container.size(); i++) {
+            sum += container.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long iterator() {
+        long sum = 0;
+        IntIterator iterator = container.iterator();
+        while (iterator.hasNext()) {
+            sum += iterator.nextInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long forEach() {
+        long[] sum = new long[1];
+        container.forEach(x -> sum[0] += x);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long stream() {
+        return container.stream().asLongStream().sum();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return container.stream().parallel().asLongStream().sum();
+    }
+}
@@ -0,0 +1,485 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Контейнер целых чисел со сжатием блоками.
+ * <p>
+ * Элементы делятся на блоки по {@value #BLOCK_SIZE}. Заполненный блок запечатывается:
+ * из него вычитается опорное значение (frame of reference), и остатки упаковываются
+ * в минимальное число бит. Для каждого блока выбирается меньшая из двух схем:
+ * <ul>
+ *   <li>значения — опора равна минимуму блока, остатки {@code v[i] - min};</li>
+ *   <li>разности — опора равна первому значению, упаковываются разности соседних
+ *       значений за вычетом наименьшей разности. Для почти отсортированных
+ *       последовательностей с малым шагом это дает несколько бит на элемент.</li>
+ * </ul>
+ * Блок шириной {@code w} бит занимает ровно {@code 2w} слов {@code long}.
+ * </p>
+ * <p>
+ * Индекс блоков (опора, наименьшая разность, смещение и ширина) позволяет
+ * {@link #get(int)} сразу перейти к нужному блоку: в схеме значений элемент
+ * извлекается за постоянное время, в схеме разностей — от ближайшей контрольной
+ * точки (каждые 8 позиций) суммированием не более 7 разностей. Последний,
+ * незаполненный блок хранится без сжатия.
+ * </p>
+ * <p>
+ * Поддерживаются добавление в конец, чтение и очистка; удаление из середины
+ * потребовало бы перепаковки блоков и не поддерживается.
+ * </p>
+ */
+public final class CompressedContainer {
+    /**
+     * Число элементов в блоке.
+     */
+    static final int BLOCK_SIZE = 128;
+
+    private static final int BLOCK_SHIFT = 7;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    /**
+     * Признак схемы разностей в байте ширины блока.
+     */
+    private static final int DELTA_FLAG = 0x80;
+
+    /**
+     * Маска ширины в байте ширины блока.
+     */
+    private static final int WIDTH_MASK = 0x7F;
+
+    /**
+     * Двоичный логарифм расстояния между контрольными точками блока в схеме разностей.
+     */
+    private static final int CHECKPOINT_SHIFT = 3;
+
+    /**
+     * Число контрольных точек на блок, не считая опорного значения.
+     */
+    private static final int CHECKPOINTS = (BLOCK_SIZE >>> CHECKPOINT_SHIFT) - 1;
+
+    /**
+     * Начальное число блоков в индексе.
+     */
+    private static final int INIT_BLOCKS = 8;
+
+    /**
+     * Упакованные запечатанные блоки.
+     */
+    private long[] data = new long[16];
+
+    /**
+     * Число занятых слов в {@link #data}.
+     */
+    private int dataSize;
+
+    /**
+     * Опорное значение каждого блока: минимум или первое значение.
+     */
+    private int[] bases = new int[INIT_BLOCKS];
+
+    /**
+     * Наименьшая разность соседних значений блока в схеме разностей.
+     */
+    private int[] minDeltas = new int[INIT_BLOCKS];
+
+    /**
+     * Значения блока в позициях, кратных 8, в схеме разностей, чтобы чтение
+     * суммировало не больше 7 разностей.
+     */
+    private int[] checkpoints = new int[INIT_BLOCKS * CHECKPOINTS];
+
+    /**
+     * Смещение блока в {@link #data}.
+     */
+    private int[] offsets = new int[INIT_BLOCKS];
+
+    /**
+     * Ширина остатков блока в битах и признак {@link #DELTA_FLAG}.
+     */
+    private byte[] widths = new byte[INIT_BLOCKS];
+
+    /**
+     * Число запечатанных блоков.
+     */
+    private int blocks;
+
+    /**
+     * Открытый блок без сжатия.
+     */
+    private final int[] tail = new int[BLOCK_SIZE];
+
+    /**
+     * Количество элементов в открытом блоке.
+     */
+    private int tailSize;
+
+    /**
+     * Остатки запечатываемого блока; используется повторно.
+     */
+    private final long[] residuals = new long[BLOCK_SIZE];
+
+    /**
+     * Добавляет указанный элемент в конец контейнера.
+     *
+     * @param element элемент для добавления
+     * @throws IllegalStateException если число элементов превышает {@link Integer#MAX_VALUE}
+     */
+    public void add(int element) {
+        tail[tailSize++] = element;
+        if (tailSize == BLOCK_SIZE) {
+            seal();
+        }
+    }
+
+    /**
+     * Добавляет все элементы массива в конец контейнера.
+     *
+     * @param values добавляемые элементы
+     */
+    public void addAll(int[] values) {
+        for (int value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Возвращает количество элементов в контейнере.
+     *
+     * @return количество элементов в контейнере
+     */
+    public int size() {
+        return (blocks << BLOCK_SHIFT) + tailSize;
+    }
+
+    /**
+     * Проверяет, пуст ли контейнер.
+     *
+     * @return true если контейнер не содержит элементов, иначе false
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Возвращает элемент по указанному индексу.
+     *
+     * @param index индекс запрашиваемого элемента
+     * @return элемент по указанному индексу
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + " outside the container range.");
+        }
+        int block = index >>> BLOCK_SHIFT;
+        int position = index & BLOCK_MASK;
+        if (block == blocks) {
+            return tail[position];
+        }
+        int width = widths[block] & WIDTH_MASK;
+        long bitBase = (long) offsets[block] << 6;
+        if ((widths[block] & DELTA_FLAG) == 0) {
+            return bases[block] + (int) unpack(bitBase, position, width);
+        }
+        int checkpoint = position >>> CHECKPOINT_SHIFT;
+        int value = checkpoint == 0 ? bases[block] : checkpoints[block * CHECKPOINTS + checkpoint - 1];
+        int minDelta = minDeltas[block];
+        for (int i = (checkpoint << CHECKPOINT_SHIFT) + 1; i <= position; i++) {
+            value += minDelta + (int) unpack(bitBase, i, width);
+        }
+        return value;
+    }
+
+    /**
+     * Выполняет действие для каждого элемента по порядку, распаковывая каждый блок один раз.
+     *
+     * @param action действие
+     */
+    public void forEach(IntConsumer action) {
+        int[] buffer = new int[BLOCK_SIZE];
+        for (int block = 0; block < blocks; block++) {
+            decode(block, buffer);
+            for (int value : buffer) {
+                action.accept(value);
+            }
+        }
+        for (int i = 0; i < tailSize; i++) {
+            action.accept(tail[i]);
+        }
+    }
+
+    /**
+     * Возвращает итератор по элементам контейнера.
+     *
+     * @return итератор без упаковки значений
+     */
+    public IntIterator iterator() {
+        return new BlockIterator();
+    }
+
+    /**
+     * Очищает контейнер, освобождая упакованные блоки.
+     */
+    public void clear() {
+        data = new long[16];
+        dataSize = 0;
+        bases = new int[INIT_BLOCKS];
+        minDeltas = new int[INIT_BLOCKS];
+        checkpoints = new int[INIT_BLOCKS * CHECKPOINTS];
+        offsets = new int[INIT_BLOCKS];
+        widths = new byte[INIT_BLOCKS];
+        blocks = 0;
+        tailSize = 0;
+    }
+
+    /**
+     * Сокращает внутренние массивы до занятого размера.
+     */
+    public void trimToSize() {
+        data = Arrays.copyOf(data, dataSize);
+        bases = Arrays.copyOf(bases, blocks);
+        minDeltas = Arrays.copyOf(minDeltas, blocks);
+        checkpoints = Arrays.copyOf(checkpoints, blocks * CHECKPOINTS);
+        offsets = Arrays.copyOf(offsets, blocks);
+        widths = Arrays.copyOf(widths, blocks);
+    }
+
+    /**
+     * Оценивает объем памяти, занимаемый контейнером вместе с массивами.
+     * Оценка соответствует 64-разрядной виртуальной машине со сжатыми ссылками.
+     *
+     * @return примерный размер в байтах
+     */
+    public long memoryFootprint() {
+        long arrays = arrayBytes(8L * data.length) + arrayBytes(4L * bases.length)
+                + arrayBytes(4L * minDeltas.length) + arrayBytes(4L * checkpoints.length)
+                + arrayBytes(4L * offsets.length)
+                + arrayBytes(widths.length) + arrayBytes(4L * BLOCK_SIZE) + arrayBytes(8L * BLOCK_SIZE);
+        return 48 + arrays;
+    }
+
+    /**
+     * Возвращает строковое представление контейнера.
+     *
+     * @return строковое представление элементов контейнера
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        forEach(value -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(value);
+        });
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private static long arrayBytes(long payload) {
+        return 16 + payload + 7 & ~7L;
+    }
+
+    /**
+     * Запечатывает открытый блок: выбирает схему с меньшей шириной и упаковывает остатки.
+     */
+    private void seal() {
+        if (blocks == Integer.MAX_VALUE >>> BLOCK_SHIFT) {
+            tailSize--;
+            throw new IllegalStateException("Container is full.");
+        }
+        int min = tail[0];
+        int max = tail[0];
+        int minDelta = Integer.MAX_VALUE;
+        int maxDelta = Integer.MIN_VALUE;
+        for (int i = 1; i < BLOCK_SIZE; i++) {
+            int value = tail[i];
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            int delta = value - tail[i - 1];
+            minDelta = Math.min(minDelta, delta);
+            maxDelta = Math.max(maxDelta, delta);
+        }
+        int valueWidth = bitWidth((long) max - min);
+        int deltaWidth = bitWidth((long) maxDelta - minDelta);
+
+        ensureBlockCapacity();
+        int block = blocks;
+        int width;
+        if (deltaWidth < valueWidth) {
+            width = deltaWidth;
+            bases[block] = tail[0];
+            minDeltas[block] = minDelta;
+            widths[block] = (byte) (width | DELTA_FLAG);
+            residuals[0] = 0;
+            for (int i = 1; i < BLOCK_SIZE; i++) {
+                residuals[i] = (long) (tail[i] - tail[i - 1]) - minDelta;
+            }
+            for (int k = 1; k <= CHECKPOINTS; k++) {
+                checkpoints[block * CHECKPOINTS + k - 1] = tail[k << CHECKPOINT_SHIFT];
+            }
+        } else {
+            width = valueWidth;
+            bases[block] = min;
+            widths[block] = (byte) width;
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                residuals[i] = (long) tail[i] - min;
+            }
+        }
+        int words = 2 * width;
+        if (dataSize + words > data.length) {
+            data = Arrays.copyOf(data, Math.max(dataSize + words, data.length * 2));
+        }
+        offsets[block] = dataSize;
+        pack(residuals, width, dataSize);
+        dataSize += words;
+        blocks++;
+        tailSize = 0;
+    }
+
+    private void ensureBlockCapacity() {
+        if (blocks == bases.length) {
+            int capacity = Math.max(INIT_BLOCKS, blocks * 2);
+            bases = Arrays.copyOf(bases, capacity);
+            minDeltas = Arrays.copyOf(minDeltas, capacity);
+            checkpoints = Arrays.copyOf(checkpoints, capacity * CHECKPOINTS);
+            offsets = Arrays.copyOf(offsets, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+        }
+    }
+
+    /**
+     * Упаковывает остатки блока по {@code width} бит подряд.
+     *
+     * @param values остатки, каждый меньше {@code 2^width}
+     * @param width ширина в битах
+     * @param offset первое слово блока
+     */
+    private void pack(long[] values, int width, int offset) {
+        Arrays.fill(data, offset, offset + 2 * width, 0L);
+        if (width == 0) {
+            return;
+        }
+        long bit = (long) offset << 6;
+        for (int i = 0; i < BLOCK_SIZE; i++, bit += width) {
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            data[word] |= values[i] << shift;
+            if (shift + width > 64) {
+                data[word + 1] |= values[i] >>> 64 - shift;
+            }
+        }
+    }
+
+    /**
+     * Извлекает остаток с указанной позиции блока.
+     *
+     * @param bitBase номер первого бита блока
+     * @param position позиция в блоке
+     * @param width ширина в битах
+     * @return остаток
+     */
+    private long unpack(long bitBase, int position, int width) {
+        if (width == 0) {
+            return 0;
+        }
+        long bit = bitBase + (long) position * width;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long value = data[word] >>> shift;
+        if (shift + width > 64) {
+            value |= data[word + 1] << 64 - shift;
+        }
+        return value & (1L << width) - 1;
+    }
+
+    /**
+     * Распаковывает запечатанный блок целиком.
+     *
+     * @param block номер блока
+     * @param out массив длиной {@value #BLOCK_SIZE}
+     */
+    private void decode(int block, int[] out) {
+        int width = widths[block] & WIDTH_MASK;
+        boolean delta = (widths[block] & DELTA_FLAG) != 0;
+        int base = bases[block];
+        if (width == 0) {
+            int step = delta ? minDeltas[block] : 0;
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                out[i] = base + (delta ? i * step : 0);
+            }
+            return;
+        }
+        long mask = (1L << width) - 1;
+        int word = offsets[block];
+        int shift = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            long residual = data[word] >>> shift;
+            int next = shift + width;
+            if (next > 64) {
+                residual |= data[word + 1] << 64 - shift;
+            }
+            out[i] = (int) (residual & mask);
+            if (next >= 64) {
+                word++;
+                next -= 64;
+            }
+            shift = next;
+        }
+        if (!delta) {
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                out[i] += base;
+            }
+            return;
+        }
+        int minDelta = minDeltas[block];
+        out[0] = base;
+        for (int i = 1; i < BLOCK_SIZE; i++) {
+            out[i] += out[i - 1] + minDelta;
+        }
+    }
+
+    private static int bitWidth(long range) {
+        return 64 - Long.numberOfLeadingZeros(range);
+    }
+
+    /**
+     * Итератор, распаковывающий по одному блоку.
+     */
+    private final class BlockIterator implements IntIterator {
+        private final int[] buffer = new int[BLOCK_SIZE];
+        private final int end = size();
+        private int cursor;
+
+        /**
+         * Номер блока, распакованного в {@link #buffer}, или -1. Блок распаковывается
+         * заново при смене номера, в том числе если открытый блок запечатали во время обхода.
+         */
+        private int decoded = -1;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (cursor >= end) {
+                throw new NoSuchElementException();
+            }
+            int block = cursor >>> BLOCK_SHIFT;
+            int position = cursor++ & BLOCK_MASK;
+            if (block == blocks) {
+                return tail[position];
+            }
+            if (block != decoded) {
+                decode(block, buffer);
+                decoded = block;
+            }
+            return buffer[position];
+        }
+    }
+}
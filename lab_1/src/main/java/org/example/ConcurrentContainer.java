@@ -0,0 +1,274 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Потокобезопасный контейнер целых чисел с добавлением без блокировок.
+ * <p>
+ * Элементы хранятся в сегментах, размер каждого следующего сегмента вдвое больше
+ * предыдущего. Сегменты никогда не перемещаются, поэтому рост контейнера
+ * не копирует данные и не мешает читателям.
+ * </p>
+ * <p>
+ * Добавление резервирует индекс атомарным увеличением хвоста, записывает элемент
+ * и отмечает его в битовой карте записанных ячеек. Число опубликованных элементов
+ * ({@link #size()}) продвигается по непрерывному префиксу отмеченных ячеек; каждый
+ * писатель после записи помогает продвинуть его, поэтому медленный писатель задерживает
+ * только видимость последующих элементов, но не блокирует других писателей.
+ * </p>
+ * <p>
+ * Чтение {@link #get(int)} выполняется за конечное число шагов без повторов.
+ * Опубликованные элементы больше не изменяются, поэтому итератор
+ * ({@link #iterator()}) обходит снимок, зафиксированный при его создании.
+ * Удаление элементов не поддерживается.
+ * </p>
+ */
+public final class ConcurrentContainer {
+    /**
+     * Двоичный логарифм размера первого сегмента.
+     */
+    private static final int FIRST_SHIFT = 5;
+
+    /**
+     * Размер первого сегмента.
+     */
+    private static final int FIRST_SIZE = 1 << FIRST_SHIFT;
+
+    /**
+     * Число сегментов; последний сегмент содержит 2^30 элементов.
+     */
+    private static final int SEGMENTS = 26;
+
+    /**
+     * Наибольшее число элементов контейнера.
+     */
+    static final int MAX_SIZE = FIRST_SIZE * ((1 << SEGMENTS) - 1);
+
+    /**
+     * Сегменты с элементами; создаются по мере надобности.
+     */
+    private final AtomicReferenceArray<int[]> segments = new AtomicReferenceArray<>(SEGMENTS);
+
+    /**
+     * Битовые карты записанных ячеек, по одной на сегмент.
+     */
+    private final AtomicReferenceArray<AtomicIntegerArray> written = new AtomicReferenceArray<>(SEGMENTS);
+
+    /**
+     * Следующий свободный индекс.
+     */
+    private final AtomicInteger tail = new AtomicInteger();
+
+    /**
+     * Число опубликованных элементов: все ячейки до него записаны.
+     */
+    private final AtomicInteger published = new AtomicInteger();
+
+    /**
+     * Добавляет указанный элемент в конец контейнера. Может вызываться
+     * из нескольких потоков одновременно.
+     *
+     * @param element элемент для добавления
+     * @throws IllegalStateException если контейнер переполнен
+     */
+    public void add(int element) {
+        int index = tail.getAndIncrement();
+        if (index < 0 || index >= MAX_SIZE) {
+            throw new IllegalStateException("Container is full: " + MAX_SIZE + " elements.");
+        }
+        int segment = segmentOf(index);
+        int offset = offsetOf(index, segment);
+        segment(segment)[offset] = element;
+        markWritten(segment, offset);
+        publish();
+    }
+
+    /**
+     * Возвращает число опубликованных элементов.
+     *
+     * @return количество элементов, доступных для чтения
+     */
+    public int size() {
+        return published.get();
+    }
+
+    /**
+     * Проверяет, пуст ли контейнер.
+     *
+     * @return true если опубликованных элементов нет, иначе false
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Возвращает элемент по указанному индексу.
+     *
+     * @param index индекс запрашиваемого элемента
+     * @return элемент по указанному индексу
+     * @throws IndexOutOfBoundsException если элемент с таким индексом еще не опубликован
+     */
+    public int get(int index) {
+        if (index < 0 || index >= published.get()) {
+            throw new IndexOutOfBoundsException("Index: " + index + " outside the container range.");
+        }
+        int segment = segmentOf(index);
+        return segments.get(segment)[offsetOf(index, segment)];
+    }
+
+    /**
+     * Возвращает итератор по снимку контейнера: элементам, опубликованным
+     * к моменту вызова. Последующие добавления на итератор не влияют.
+     *
+     * @return итератор снимка
+     */
+    public IntIterator iterator() {
+        return new SnapshotIterator(size());
+    }
+
+    /**
+     * Копирует снимок контейнера в массив.
+     *
+     * @return массив опубликованных элементов
+     */
+    public int[] toArray() {
+        int count = size();
+        int[] result = new int[count];
+        int copied = 0;
+        for (int segment = 0; copied < count; segment++) {
+            int length = Math.min(FIRST_SIZE << segment, count - copied);
+            System.arraycopy(segments.get(segment), 0, result, copied, length);
+            copied += length;
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает строковое представление снимка контейнера.
+     *
+     * @return строковое представление элементов контейнера
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * Возвращает номер сегмента, содержащего индекс.
+     *
+     * @param index индекс элемента
+     * @return номер сегмента
+     */
+    private static int segmentOf(int index) {
+        return 31 - Integer.numberOfLeadingZeros(index + FIRST_SIZE) - FIRST_SHIFT;
+    }
+
+    /**
+     * Возвращает смещение индекса внутри сегмента.
+     *
+     * @param index индекс элемента
+     * @param segment номер сегмента
+     * @return смещение в сегменте
+     */
+    private static int offsetOf(int index, int segment) {
+        return index + FIRST_SIZE - (FIRST_SIZE << segment);
+    }
+
+    /**
+     * Возвращает сегмент, создавая его при первом обращении. Если несколько потоков
+     * создают сегмент одновременно, сохраняется только один из них.
+     *
+     * @param segment номер сегмента
+     * @return массив сегмента
+     */
+    private int[] segment(int segment) {
+        int[] array = segments.get(segment);
+        if (array != null) {
+            return array;
+        }
+        int length = FIRST_SIZE << segment;
+        written.compareAndSet(segment, null, new AtomicIntegerArray(length >>> 5));
+        segments.compareAndSet(segment, null, new int[length]);
+        return segments.get(segment);
+    }
+
+    /**
+     * Отмечает ячейку записанной. Атомарная запись бита упорядочивает ее после записи элемента.
+     *
+     * @param segment номер сегмента
+     * @param offset смещение в сегменте
+     */
+    private void markWritten(int segment, int offset) {
+        AtomicIntegerArray bits = written.get(segment);
+        int word = offset >>> 5;
+        int mask = 1 << offset;
+        int current;
+        do {
+            current = bits.get(word);
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean isWritten(int index) {
+        int segment = segmentOf(index);
+        AtomicIntegerArray bits = written.get(segment);
+        if (bits == null) {
+            return false;
+        }
+        int offset = offsetOf(index, segment);
+        return (bits.get(offset >>> 5) & 1 << offset) != 0;
+    }
+
+    /**
+     * Продвигает число опубликованных элементов по записанным ячейкам.
+     * Писатель отмечает ячейку до вызова, поэтому если другой поток остановился
+     * перед ней, этот поток ее увидит и продвинет счетчик сам.
+     */
+    private void publish() {
+        int count = published.get();
+        while (count < MAX_SIZE && isWritten(count)) {
+            if (published.compareAndSet(count, count + 1)) {
+                count++;
+            } else {
+                count = published.get();
+            }
+        }
+    }
+
+    /**
+     * Итератор по элементам, опубликованным к моменту его создания.
+     */
+    private final class SnapshotIterator implements IntIterator {
+        private final int end;
+        private int cursor;
+        private int segment;
+        private int offset;
+        private int[] array;
+
+        SnapshotIterator(int end) {
+            this.end = end;
+            this.array = end > 0 ? segments.get(0) : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (cursor >= end) {
+                throw new NoSuchElementException();
+            }
+            if (offset == array.length) {
+                array = segments.get(++segment);
+                offset = 0;
+            }
+            cursor++;
+            return array[offset++];
+        }
+    }
+}
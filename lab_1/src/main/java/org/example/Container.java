@@ -1,7 +1,20 @@
 package org.example;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 /**
  * Контейнер для хранения целых чисел на основе массива
+ * <p>
+ * Емкость массива меняется по стратегии {@link GrowthPolicy}: при переполнении
+ * массив увеличивается, а при малом заполнении (если стратегия это разрешает)
+ * сокращается, но не ниже начальной емкости.
+ * </p>
  */
 public class Container {
     /**
@@ -14,11 +27,42 @@ public class Container {
      */
     private int size;
 
+    /**
+     * Число структурных изменений контейнера. Итераторы, потоки и представления
+     * сравнивают его с запомненным значением, чтобы обнаружить изменение контейнера.
+     */
+    private int modCount;
+
     /**
      * Начальная емкость контейнера по умолчанию.
      */
     private static final int INIT_CAPACITY = 5;
 
+    /**
+     * Число элементов, начиная с которого сортировка выполняется параллельно.
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 18;
+
+    /**
+     * Оценка размера самого объекта контейнера в байтах.
+     */
+    private static final long CONTAINER_BYTES = 32;
+
+    /**
+     * Размер заголовка массива в байтах.
+     */
+    private static final long ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Стратегия изменения емкости.
+     */
+    private final GrowthPolicy policy;
+
+    /**
+     * Емкость, меньше которой массив не сокращается автоматически.
+     */
+    private final int minCapacity;
+
     /**
      * Создает новый пустой контейнер с емкостью по умолчанию.
      */
@@ -33,11 +77,24 @@ public class Container {
      * @throws IllegalArgumentException если указана отрицательная емкость
      */
     public Container(int initCapacity) {
-        if (initCapacity < 0) {
+        this(initCapacity, GrowthPolicy.doubling());
+    }
+
+    /**
+     * Создает новый пустой контейнер с указанной начальной емкостью и стратегией роста.
+     *
+     * @param initCapacity начальная емкость контейнера
+     * @param policy стратегия изменения емкости
+     * @throws IllegalArgumentException если емкость отрицательна или больше ограничения стратегии
+     */
+    public Container(int initCapacity, GrowthPolicy policy) {
+        if (initCapacity < 0 || initCapacity > policy.getMaxCapacity()) {
             throw new IllegalArgumentException("Invalid capacity: " + initCapacity);
         }
         this.nums = new int[initCapacity];
         this.size = 0;
+        this.policy = policy;
+        this.minCapacity = initCapacity;
     }
 
     /**
@@ -47,22 +104,230 @@ public class Container {
      */
     public void add(int element) {
         if (size == nums.length) {
-            resize();
+            growIfNeeded(size + 1);
         }
         nums[size++] = element;
+        modCount++;
+    }
+
+    /**
+     * Добавляет все элементы массива в конец контейнера.
+     *
+     * @param values добавляемые элементы
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void addAll(int[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Добавляет часть массива в конец контейнера.
+     * Выполняет не больше одного перевыделения памяти и одного копирования.
+     *
+     * @param values массив с добавляемыми элементами
+     * @param off индекс первого добавляемого элемента массива
+     * @param len число добавляемых элементов
+     * @throws IndexOutOfBoundsException если диапазон выходит за границы массива
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void addAll(int[] values, int off, int len) {
+        if (off < 0 || len < 0 || off > values.length - len) {
+            throw new IndexOutOfBoundsException("Range: [" + off + ", " + off + " + " + len
+                    + ") outside the array of length " + values.length + ".");
+        }
+        growIfNeeded(size + len);
+        System.arraycopy(values, off, nums, size, len);
+        size += len;
+        modCount++;
+    }
+
+    /**
+     * Добавляет все элементы другого контейнера в конец этого контейнера.
+     * Контейнер можно добавить сам к себе.
+     *
+     * @param other контейнер с добавляемыми элементами
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void addAll(Container other) {
+        int count = other.size;
+        growIfNeeded(size + count);
+        System.arraycopy(other.nums, 0, nums, size, count);
+        size += count;
+        modCount++;
+    }
+
+    /**
+     * Вставляет элементы массива перед элементом с указанным индексом.
+     * Хвост контейнера сдвигается один раз; если массив нужно увеличить,
+     * части копируются сразу на свои места в новом массиве.
+     *
+     * @param index позиция вставки, от 0 до {@link #size()} включительно
+     * @param values вставляемые элементы
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void insert(int index, int[] values) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " outside the container range.");
+        }
+        int count = values.length;
+        int required = size + count;
+        if (required < 0 || required > nums.length) {
+            int[] newArray = new int[policy.grow(nums.length, required)];
+            System.arraycopy(nums, 0, newArray, 0, index);
+            System.arraycopy(nums, index, newArray, index + count, size - index);
+            nums = newArray;
+        } else {
+            System.arraycopy(nums, index, nums, index + count, size - index);
+        }
+        System.arraycopy(values, 0, nums, index, count);
+        size = required;
+        modCount++;
+    }
+
+    /**
+     * Удаляет элементы с индексами от {@code from} включительно до {@code to} не включительно.
+     * Хвост контейнера сдвигается одним копированием.
+     *
+     * @param from индекс первого удаляемого элемента
+     * @param to индекс, следующий за последним удаляемым элементом
+     * @throws IndexOutOfBoundsException если диапазон выходит за границы
+     */
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + ") outside the container range.");
+        }
+        System.arraycopy(nums, to, nums, from, size - to);
+        size -= to - from;
+        modCount++;
+        shrinkIfNeeded();
     }
 
     /**
-     * Увеличивает емкость контейнера.
-     * Новая емкость равна текущей емкости, умноженной на 2.
+     * Удаляет все элементы, удовлетворяющие условию, за один проход.
+     * Порядок оставшихся элементов сохраняется. Если условие выбросит исключение,
+     * контейнер останется согласованным: удаленными окажутся только уже проверенные элементы.
+     *
+     * @param filter условие удаления
+     * @return true если был удален хотя бы один элемент
      */
-    private void resize() {
-        int newCapacity = nums.length * 2;
+    public boolean removeIf(IntPredicate filter) {
+        int read = 0;
+        int write = 0;
+        try {
+            for (; read < size; read++) {
+                int element = nums[read];
+                if (!filter.test(element)) {
+                    nums[write++] = element;
+                }
+            }
+        } finally {
+            if (write != read) {
+                modCount++;
+            }
+            if (read < size) {
+                System.arraycopy(nums, read, nums, write, size - read);
+                write += size - read;
+            }
+            size = write;
+        }
+        if (write == read) {
+            return false;
+        }
+        shrinkIfNeeded();
+        return true;
+    }
+
+    /**
+     * Заменяет массив массивом указанной емкости, сохраняя элементы.
+     *
+     * @param newCapacity новая емкость, не меньше числа элементов
+     */
+    private void resize(int newCapacity) {
         int[] newArray = new int[newCapacity];
         System.arraycopy(nums, 0, newArray, 0, size);
         nums = newArray;
     }
 
+    /**
+     * Сокращает массив, если стратегия считает заполнение слишком малым.
+     */
+    private void shrinkIfNeeded() {
+        int newCapacity = nums.length;
+        for (;;) {
+            int next = policy.shrink(size, newCapacity, minCapacity);
+            if (next == newCapacity) {
+                break;
+            }
+            newCapacity = next;
+        }
+        if (newCapacity < nums.length) {
+            resize(newCapacity);
+        }
+    }
+
+    /**
+     * Увеличивает массив, если в нем не помещается указанное число элементов.
+     *
+     * @param required требуемая емкость
+     */
+    private void growIfNeeded(int required) {
+        if (required < 0 || required > nums.length) {
+            resize(policy.grow(nums.length, required));
+        }
+    }
+
+    /**
+     * Увеличивает емкость так, чтобы в контейнер поместилось указанное число
+     * элементов без перевыделения памяти.
+     *
+     * @param capacity требуемая емкость
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > nums.length) {
+            growIfNeeded(capacity);
+        }
+    }
+
+    /**
+     * Сокращает емкость до текущего числа элементов.
+     */
+    public void trimToSize() {
+        if (size < nums.length) {
+            resize(size);
+        }
+    }
+
+    /**
+     * Возвращает текущую емкость контейнера.
+     *
+     * @return длина массива для хранения чисел
+     */
+    public int capacity() {
+        return nums.length;
+    }
+
+    /**
+     * Возвращает стратегию изменения емкости.
+     *
+     * @return стратегия роста
+     */
+    public GrowthPolicy getGrowthPolicy() {
+        return policy;
+    }
+
+    /**
+     * Оценивает объем памяти, занимаемый контейнером вместе с массивом.
+     * Оценка соответствует 64-разрядной виртуальной машине со сжатыми ссылками.
+     *
+     * @return примерный размер в байтах
+     */
+    public long memoryFootprint() {
+        long arrayBytes = ARRAY_HEADER_BYTES + 4L * nums.length;
+        return CONTAINER_BYTES + (arrayBytes + 7 & ~7L);
+    }
+
     /**
      * Возвращает количество элементов в контейнере.
      *
@@ -97,6 +362,8 @@ public class Container {
             System.arraycopy(nums, index + 1, nums, index, elementsToShift);
         }
         size--;
+        modCount++;
+        shrinkIfNeeded();
     }
 
     /**
@@ -122,10 +389,158 @@ public class Container {
 
     /**
      * Очищает контейнер, удаляя все элементы.
-     * Емкость массива при этом не изменяется.
+     * Если стратегия разрешает уменьшение, емкость возвращается к начальной,
+     * иначе не изменяется.
      */
     public void clear() {
         size = 0;
+        modCount++;
+        if (policy.isShrinking() && nums.length > minCapacity) {
+            nums = new int[minCapacity];
+        }
+    }
+
+    /**
+     * Сортирует элементы по возрастанию. Небольшие контейнеры сортируются
+     * быстрой сортировкой с двумя опорными элементами, большие — параллельно
+     * в общем пуле {@link java.util.concurrent.ForkJoinPool}.
+     */
+    public void sort() {
+        if (size >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(nums, 0, size);
+        } else {
+            Arrays.sort(nums, 0, size);
+        }
+        modCount++;
+    }
+
+    /**
+     * Ищет элемент двоичным поиском. Контейнер должен быть отсортирован
+     * по возрастанию, иначе результат не определен.
+     *
+     * @param key искомое значение
+     * @return индекс элемента, если он найден, иначе {@code -(точка вставки) - 1}
+     */
+    public int binarySearch(int key) {
+        return Arrays.binarySearch(nums, 0, size, key);
+    }
+
+    /**
+     * Возвращает индекс первого вхождения значения.
+     * Цикл читает массив напрямую, без проверки индекса на каждом элементе.
+     *
+     * @param value искомое значение
+     * @return индекс первого вхождения или -1, если значения нет
+     */
+    public int indexOf(int value) {
+        int[] array = nums;
+        for (int i = 0, end = size; i < end; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Проверяет, содержит ли контейнер значение.
+     *
+     * @param value искомое значение
+     * @return true если значение найдено, иначе false
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Возвращает итератор по элементам контейнера.
+     *
+     * @return итератор без упаковки значений
+     */
+    public IntIterator iterator() {
+        return iterator(0, size);
+    }
+
+    /**
+     * Возвращает итератор по диапазону элементов.
+     *
+     * @param from индекс первого элемента (включительно)
+     * @param to индекс конца диапазона (не включительно)
+     * @return итератор диапазона
+     */
+    IntIterator iterator(int from, int to) {
+        return new RangeIterator(from, to);
+    }
+
+    /**
+     * Выполняет действие для каждого элемента контейнера по порядку,
+     * читая массив без проверки индекса на каждом элементе.
+     *
+     * @param action действие
+     * @throws ConcurrentModificationException если действие изменило контейнер
+     */
+    public void forEach(IntConsumer action) {
+        int expectedModCount = modCount;
+        int[] array = nums;
+        for (int i = 0, end = size; i < end; i++) {
+            action.accept(array[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Возвращает последовательный поток элементов контейнера. Поток читает массив
+     * без копирования, а вызов {@link IntStream#parallel()} делит его между потоками.
+     * Контейнер нельзя изменять, пока поток не завершен.
+     *
+     * @return поток элементов
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(new ContainerSpliterator(this, 0, size), false);
+    }
+
+    /**
+     * Возвращает представление всех элементов только для чтения без копирования.
+     *
+     * @return представление контейнера
+     */
+    public ContainerView view() {
+        return new ContainerView(this, 0, size);
+    }
+
+    /**
+     * Возвращает представление диапазона элементов только для чтения без копирования.
+     *
+     * @param from индекс первого элемента (включительно)
+     * @param to индекс конца диапазона (не включительно)
+     * @return представление диапазона
+     * @throws IndexOutOfBoundsException если диапазон выходит за границы
+     */
+    public ContainerView slice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + ") outside the container range.");
+        }
+        return new ContainerView(this, from, to);
+    }
+
+    /**
+     * Возвращает массив элементов без копирования.
+     *
+     * @return текущий массив контейнера
+     */
+    int[] array() {
+        return nums;
+    }
+
+    /**
+     * Возвращает число структурных изменений контейнера.
+     *
+     * @return счетчик изменений
+     */
+    int modCount() {
+        return modCount;
     }
 
     /**
@@ -146,4 +561,34 @@ public class Container {
         sb.append("]");
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Итератор диапазона элементов контейнера.
+     */
+    private final class RangeIterator implements IntIterator {
+        private final int expectedModCount = modCount;
+        private final int end;
+        private int cursor;
+
+        RangeIterator(int from, int to) {
+            this.cursor = from;
+            this.end = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor >= end) {
+                throw new NoSuchElementException();
+            }
+            return nums[cursor++];
+        }
+    }
+}
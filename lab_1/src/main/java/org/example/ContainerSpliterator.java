@@ -0,0 +1,90 @@
+package org.example;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Разделитель диапазона элементов контейнера для потоков {@link java.util.stream.IntStream}.
+ * <p>
+ * Читает массив контейнера напрямую, без копирования и проверок границ на каждом элементе.
+ * Диапазон делится пополам, что позволяет параллельным потокам обрабатывать
+ * части массива независимо. Если контейнер изменился после создания разделителя,
+ * обход завершается исключением {@link ConcurrentModificationException}.
+ * </p>
+ */
+final class ContainerSpliterator implements Spliterator.OfInt {
+    private final Container container;
+    private final int[] array;
+    private final int expectedModCount;
+    private int index;
+    private final int fence;
+
+    /**
+     * Создает разделитель диапазона элементов.
+     *
+     * @param container контейнер, изменения которого отслеживаются
+     * @param origin индекс первого элемента (включительно)
+     * @param fence индекс конца диапазона (не включительно)
+     */
+    ContainerSpliterator(Container container, int origin, int fence) {
+        this(container, container.array(), container.modCount(), origin, fence);
+    }
+
+    private ContainerSpliterator(Container container, int[] array, int expectedModCount, int origin, int fence) {
+        this.container = container;
+        this.array = array;
+        this.expectedModCount = expectedModCount;
+        this.index = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public OfInt trySplit() {
+        int low = index;
+        int mid = (low + fence) >>> 1;
+        if (low >= mid) {
+            return null;
+        }
+        index = mid;
+        return new ContainerSpliterator(container, array, expectedModCount, low, mid);
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (index >= fence) {
+            return false;
+        }
+        action.accept(array[index++]);
+        checkForComodification();
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        int[] a = array;
+        int hi = fence;
+        int i = index;
+        index = hi;
+        for (; i < hi; i++) {
+            action.accept(a[i]);
+        }
+        checkForComodification();
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+
+    private void checkForComodification() {
+        if (container.modCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Представление непрерывного диапазона элементов контейнера только для чтения.
+ * <p>
+ * Представление не копирует элементы, а читает массив контейнера. Оно остается
+ * действительным, пока контейнер не изменяется структурно (добавление, вставка,
+ * удаление, очистка); после такого изменения любая операция представления
+ * выбрасывает {@link ConcurrentModificationException}.
+ * </p>
+ */
+public final class ContainerView {
+    private final Container container;
+    private final int offset;
+    private final int size;
+    private final int expectedModCount;
+
+    /**
+     * Создает представление диапазона.
+     *
+     * @param container контейнер
+     * @param from индекс первого элемента диапазона в контейнере
+     * @param to индекс конца диапазона в контейнере (не включительно)
+     */
+    ContainerView(Container container, int from, int to) {
+        this.container = container;
+        this.offset = from;
+        this.size = to - from;
+        this.expectedModCount = container.modCount();
+    }
+
+    /**
+     * Возвращает количество элементов в представлении.
+     *
+     * @return количество элементов
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверяет, пусто ли представление.
+     *
+     * @return true если представление не содержит элементов, иначе false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает элемент по индексу внутри представления.
+     *
+     * @param index индекс элемента от 0 до {@link #size()} - 1
+     * @return элемент по указанному индексу
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     * @throws ConcurrentModificationException если контейнер изменился
+     */
+    public int get(int index) {
+        checkForComodification();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " outside the view range.");
+        }
+        return container.array()[offset + index];
+    }
+
+    /**
+     * Возвращает представление части этого представления без копирования.
+     *
+     * @param from индекс первого элемента (включительно)
+     * @param to индекс конца диапазона (не включительно)
+     * @return представление диапазона
+     * @throws IndexOutOfBoundsException если диапазон выходит за границы
+     * @throws ConcurrentModificationException если контейнер изменился
+     */
+    public ContainerView slice(int from, int to) {
+        checkForComodification();
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + ") outside the view range.");
+        }
+        return new ContainerView(container, offset + from, offset + to);
+    }
+
+    /**
+     * Возвращает итератор по элементам представления.
+     *
+     * @return итератор без упаковки значений
+     * @throws ConcurrentModificationException если контейнер изменился
+     */
+    public IntIterator iterator() {
+        checkForComodification();
+        return container.iterator(offset, offset + size);
+    }
+
+    /**
+     * Выполняет действие для каждого элемента представления по порядку.
+     *
+     * @param action действие
+     * @throws ConcurrentModificationException если контейнер изменился
+     */
+    public void forEach(IntConsumer action) {
+        checkForComodification();
+        int[] array = container.array();
+        for (int i = offset, end = offset + size; i < end; i++) {
+            action.accept(array[i]);
+        }
+        checkForComodification();
+    }
+
+    /**
+     * Возвращает последовательный поток элементов представления; вызов
+     * {@link IntStream#parallel()} делит диапазон между потоками без копирования.
+     *
+     * @return поток элементов
+     * @throws ConcurrentModificationException если контейнер изменился
+     */
+    public IntStream stream() {
+        checkForComodification();
+        return StreamSupport.intStream(new ContainerSpliterator(container, offset, offset + size), false);
+    }
+
+    /**
+     * Копирует элементы представления в новый массив.
+     *
+     * @return массив элементов
+     * @throws ConcurrentModificationException если контейнер изменился
+     */
+    public int[] toArray() {
+        checkForComodification();
+        return Arrays.copyOfRange(container.array(), offset, offset + size);
+    }
+
+    /**
+     * Возвращает строковое представление элементов.
+     *
+     * @return строковое представление элементов представления
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private void checkForComodification() {
+        if (container.modCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example;
+
+/**
+ * Стратегия изменения емкости контейнера.
+ * <p>
+ * Определяет, во сколько раз (или на сколько элементов) увеличивается массив
+ * при переполнении, какую емкость нельзя превышать и нужно ли освобождать память,
+ * когда элементов становится мало.
+ * </p>
+ * <p>
+ * Уменьшение емкости происходит с гистерезисом: массив сокращается вдвое, только
+ * когда занято не больше четверти емкости. После сокращения заполнена не более
+ * чем половина массива, поэтому чередование добавлений и удалений на границе
+ * не приводит к постоянному перевыделению памяти.
+ * </p>
+ * <p>
+ * Объекты неизменяемы; методы {@code with...} возвращают новую стратегию.
+ * </p>
+ */
+public final class GrowthPolicy {
+    /**
+     * Наибольший размер массива, который гарантированно может выделить виртуальная машина.
+     */
+    static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * Доля заполнения, при которой емкость уменьшается.
+     */
+    private static final int SHRINK_DIVISOR = 4;
+
+    private static final GrowthPolicy DOUBLING = new GrowthPolicy(2.0, 0, MAX_ARRAY_LENGTH, true);
+
+    /**
+     * Множитель емкости, или 0 если емкость растет на фиксированный шаг.
+     */
+    private final double factor;
+
+    /**
+     * Шаг увеличения емкости, если множитель не задан.
+     */
+    private final int increment;
+
+    /**
+     * Наибольшая допустимая емкость.
+     */
+    private final int maxCapacity;
+
+    /**
+     * Разрешено ли автоматическое уменьшение емкости.
+     */
+    private final boolean shrinking;
+
+    private GrowthPolicy(double factor, int increment, int maxCapacity, boolean shrinking) {
+        this.factor = factor;
+        this.increment = increment;
+        this.maxCapacity = maxCapacity;
+        this.shrinking = shrinking;
+    }
+
+    /**
+     * Возвращает стратегию по умолчанию: удвоение емкости и автоматическое уменьшение.
+     *
+     * @return стратегия удвоения
+     */
+    public static GrowthPolicy doubling() {
+        return DOUBLING;
+    }
+
+    /**
+     * Создает стратегию, умножающую емкость на указанный множитель.
+     *
+     * @param factor множитель емкости
+     * @return стратегия роста в указанное число раз
+     * @throws IllegalArgumentException если множитель не больше 1
+     */
+    public static GrowthPolicy factor(double factor) {
+        if (!(factor > 1.0) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("Invalid growth factor: " + factor);
+        }
+        return new GrowthPolicy(factor, 0, MAX_ARRAY_LENGTH, true);
+    }
+
+    /**
+     * Создает стратегию, увеличивающую емкость на фиксированное число элементов.
+     *
+     * @param increment шаг увеличения емкости
+     * @return стратегия роста с фиксированным шагом
+     * @throws IllegalArgumentException если шаг не положителен
+     */
+    public static GrowthPolicy increment(int increment) {
+        if (increment <= 0) {
+            throw new IllegalArgumentException("Invalid growth increment: " + increment);
+        }
+        return new GrowthPolicy(0, increment, MAX_ARRAY_LENGTH, true);
+    }
+
+    /**
+     * Возвращает стратегию с ограничением емкости.
+     *
+     * @param maxCapacity наибольшая допустимая емкость
+     * @return новая стратегия с ограничением
+     * @throws IllegalArgumentException если ограничение отрицательно или слишком велико
+     */
+    public GrowthPolicy withMaxCapacity(int maxCapacity) {
+        if (maxCapacity < 0 || maxCapacity > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("Invalid capacity: " + maxCapacity);
+        }
+        return new GrowthPolicy(factor, increment, maxCapacity, shrinking);
+    }
+
+    /**
+     * Возвращает стратегию без автоматического уменьшения емкости.
+     * Память по-прежнему можно освободить вызовом {@link Container#trimToSize()}.
+     *
+     * @return новая стратегия без уменьшения
+     */
+    public GrowthPolicy withoutShrinking() {
+        return new GrowthPolicy(factor, increment, maxCapacity, false);
+    }
+
+    /**
+     * Возвращает наибольшую допустимую емкость.
+     *
+     * @return наибольшая емкость
+     */
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * Проверяет, разрешено ли автоматическое уменьшение емкости.
+     *
+     * @return true если емкость уменьшается при малом заполнении
+     */
+    public boolean isShrinking() {
+        return shrinking;
+    }
+
+    /**
+     * Вычисляет новую емкость массива при переполнении.
+     *
+     * @param capacity текущая емкость
+     * @param required наименьшая емкость, которая нужна
+     * @return новая емкость, не меньше требуемой и не больше ограничения
+     * @throws IllegalStateException если требуемая емкость превышает ограничение
+     */
+    int grow(int capacity, int required) {
+        if (required < 0 || required > maxCapacity) {
+            throw new IllegalStateException("Capacity limit exceeded: " + Integer.toUnsignedString(required)
+                    + " > " + maxCapacity);
+        }
+        long grown = factor > 0 ? (long) (capacity * factor) : (long) capacity + increment;
+        return (int) Math.min(Math.max(grown, required), maxCapacity);
+    }
+
+    /**
+     * Вычисляет емкость массива после удаления элементов.
+     *
+     * @param size число элементов
+     * @param capacity текущая емкость
+     * @param minCapacity емкость, меньше которой массив не сокращается
+     * @return новая емкость; равна текущей, если сокращать массив не нужно
+     */
+    int shrink(int size, int capacity, int minCapacity) {
+        if (!shrinking || capacity <= minCapacity || size > capacity / SHRINK_DIVISOR) {
+            return capacity;
+        }
+        return Math.max(minCapacity, capacity / 2);
+    }
+
+    /**
+     * Возвращает строковое представление стратегии.
+     *
+     * @return описание стратегии
+     */
+    @Override
+    public String toString() {
+        String growth = factor > 0 ? "x" + factor : "+" + increment;
+        return "GrowthPolicy[" + growth + ", max=" + maxCapacity + (shrinking ? ", shrinking" : "") + "]";
+    }
+}
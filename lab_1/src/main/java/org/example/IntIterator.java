@@ -0,0 +1,14 @@
+package org.example;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Итератор по целым числам без упаковки в {@link Integer}.
+ * <p>
+ * Основной метод — {@link #nextInt()}; унаследованный {@link #next()} упаковывает
+ * значение и нужен только для совместимости с {@link java.util.Iterator}.
+ * Удаление элементов через итератор не поддерживается.
+ * </p>
+ */
+public interface IntIterator extends PrimitiveIterator.OfInt {
+}
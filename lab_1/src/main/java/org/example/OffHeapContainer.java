@@ -0,0 +1,458 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Контейнер для хранения целых чисел вне кучи Java.
+ * <p>
+ * Элементы хранятся в буферах {@link ByteBuffer} фиксированного размера (блоках),
+ * выделенных напрямую ({@link #allocateDirect()}) или отображенных на файл
+ * ({@link #open(Path)}). Сборщик мусора не сканирует такую память, а число элементов
+ * ограничено не размером одного буфера, а только объемом памяти или диска,
+ * поэтому индексы и размер имеют тип {@code long}.
+ * </p>
+ * <p>
+ * Первый блок растет удвоением до полного размера, следующие блоки выделяются
+ * сразу целиком, поэтому маленький контейнер не занимает лишней памяти.
+ * </p>
+ * <p>
+ * Файл начинается с заголовка (сигнатура, версия формата, число элементов),
+ * за которым следуют элементы в порядке little-endian. Число элементов в заголовке
+ * обновляется при каждом изменении, поэтому файл можно открыть повторно сразу
+ * после закрытия без чтения и разбора данных.
+ * </p>
+ * <p>
+ * Контейнер не потокобезопасен. После {@link #close()} любые операции выбрасывают
+ * {@link IllegalStateException}.
+ * </p>
+ */
+public final class OffHeapContainer implements AutoCloseable {
+    /**
+     * Сигнатура файла: байты {@code CINT}.
+     */
+    private static final int MAGIC = 0x43494E54;
+
+    /**
+     * Версия формата файла.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Размер заголовка файла в байтах.
+     */
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * Смещение числа элементов в заголовке файла.
+     */
+    private static final int SIZE_OFFSET = 8;
+
+    /**
+     * Двоичный логарифм числа элементов в полном блоке (16M элементов, 64 МБ).
+     */
+    private static final int CHUNK_SHIFT = 24;
+
+    /**
+     * Начальная емкость контейнера по умолчанию.
+     */
+    private static final int INIT_CAPACITY = 1024;
+
+    private final int chunkShift;
+    private final int chunkInts;
+    private final int chunkMask;
+
+    /**
+     * Канал отображенного файла или null для прямой памяти.
+     */
+    private FileChannel channel;
+
+    /**
+     * Отображенный заголовок файла или null для прямой памяти.
+     */
+    private ByteBuffer header;
+
+    /**
+     * Блоки с элементами; все блоки, кроме единственного первого, полного размера.
+     */
+    private ByteBuffer[] chunks;
+
+    /**
+     * Число элементов в первом блоке, пока он единственный.
+     */
+    private int firstChunkInts;
+
+    /**
+     * Количество элементов, содержащихся в контейнере.
+     */
+    private long size;
+
+    private boolean closed;
+
+    private OffHeapContainer(FileChannel channel, int chunkShift) {
+        this.channel = channel;
+        this.chunkShift = chunkShift;
+        this.chunkInts = 1 << chunkShift;
+        this.chunkMask = chunkInts - 1;
+        this.chunks = new ByteBuffer[0];
+    }
+
+    /**
+     * Создает пустой контейнер в прямой памяти с емкостью по умолчанию.
+     *
+     * @return новый контейнер
+     */
+    public static OffHeapContainer allocateDirect() {
+        return allocateDirect(INIT_CAPACITY);
+    }
+
+    /**
+     * Создает пустой контейнер в прямой памяти с указанной начальной емкостью.
+     *
+     * @param initCapacity начальная емкость контейнера
+     * @return новый контейнер
+     * @throws IllegalArgumentException если указана отрицательная емкость
+     */
+    public static OffHeapContainer allocateDirect(long initCapacity) {
+        return allocateDirect(initCapacity, CHUNK_SHIFT);
+    }
+
+    /**
+     * Создает контейнер в прямой памяти с указанным размером блока.
+     *
+     * @param initCapacity начальная емкость контейнера
+     * @param chunkShift двоичный логарифм числа элементов в блоке
+     * @return новый контейнер
+     */
+    static OffHeapContainer allocateDirect(long initCapacity, int chunkShift) {
+        checkCapacity(initCapacity);
+        OffHeapContainer container = new OffHeapContainer(null, chunkShift);
+        container.reserve(initCapacity);
+        return container;
+    }
+
+    /**
+     * Открывает контейнер, отображенный на файл. Если файла нет или он пуст,
+     * создается пустой контейнер; иначе элементы файла становятся доступны сразу,
+     * без чтения в память.
+     *
+     * @param file путь к файлу
+     * @return контейнер с содержимым файла
+     * @throws IOException если файл не удалось открыть или отобразить
+     * @throws IllegalArgumentException если файл не является контейнером
+     */
+    public static OffHeapContainer open(Path file) throws IOException {
+        return open(file, CHUNK_SHIFT);
+    }
+
+    /**
+     * Открывает контейнер, отображенный на файл, с указанным размером блока.
+     *
+     * @param file путь к файлу
+     * @param chunkShift двоичный логарифм числа элементов в блоке
+     * @return контейнер с содержимым файла
+     * @throws IOException если файл не удалось открыть или отобразить
+     */
+    static OffHeapContainer open(Path file, int chunkShift) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            OffHeapContainer container = new OffHeapContainer(channel, chunkShift);
+            long length = channel.size();
+            boolean created = length == 0;
+            if (!created && length < HEADER_BYTES) {
+                throw new IllegalArgumentException("Not a container file: " + file);
+            }
+            container.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                container.header.putInt(0, MAGIC).putInt(4, VERSION).putLong(SIZE_OFFSET, 0);
+                container.reserve(INIT_CAPACITY);
+                return container;
+            }
+            if (container.header.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a container file: " + file);
+            }
+            if (container.header.getInt(4) != VERSION) {
+                throw new IllegalArgumentException("Unsupported container file version: "
+                        + container.header.getInt(4));
+            }
+            long size = container.header.getLong(SIZE_OFFSET);
+            long capacity = (length - HEADER_BYTES) / Integer.BYTES;
+            if (size < 0 || size > capacity) {
+                throw new IllegalArgumentException("Corrupted container file: size " + size
+                        + ", capacity " + capacity);
+            }
+            container.reserve(Math.max(capacity, INIT_CAPACITY));
+            container.size = size;
+            return container;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Добавляет указанный элемент в конец контейнера.
+     *
+     * @param element элемент для добавления
+     * @throws IllegalStateException если контейнер закрыт
+     * @throws UncheckedIOException если не удалось расширить файл
+     */
+    public void add(int element) {
+        checkOpen();
+        if (size == capacity()) {
+            reserve(size + 1);
+        }
+        put(size, element);
+        setSize(size + 1);
+    }
+
+    /**
+     * Возвращает количество элементов в контейнере.
+     *
+     * @return количество элементов в контейнере
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Возвращает емкость контейнера.
+     *
+     * @return число элементов, которое помещается без выделения памяти
+     */
+    public long capacity() {
+        int count = chunks.length;
+        return count <= 1 ? firstChunkInts : (long) count << chunkShift;
+    }
+
+    /**
+     * Возвращает элемент по указанному индексу.
+     *
+     * @param index индекс запрашиваемого элемента
+     * @return элемент по указанному индексу
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     * @throws IllegalStateException если контейнер закрыт
+     */
+    public int get(long index) {
+        checkOpen();
+        checkIsCorrectIndex(index);
+        return chunks[(int) (index >>> chunkShift)].getInt((int) (index & chunkMask) << 2);
+    }
+
+    /**
+     * Удаляет элемент по указанному индексу, сдвигая последующие элементы
+     * в том числе через границы блоков.
+     *
+     * @param index индекс удаляемого элемента
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     * @throws IllegalStateException если контейнер закрыт
+     */
+    public void remove(long index) {
+        checkOpen();
+        checkIsCorrectIndex(index);
+        long last = size - 1;
+        long position = index;
+        while (position < last) {
+            ByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+            int offset = (int) (position & chunkMask);
+            long chunkEnd = Math.min(last, (position | chunkMask) + 1);
+            int count = (int) (chunkEnd - position);
+            for (int i = 0; i < count - 1; i++) {
+                int byteOffset = offset + i << 2;
+                chunk.putInt(byteOffset, chunk.getInt(byteOffset + 4));
+            }
+            long lastInChunk = position + count - 1;
+            chunk.putInt(offset + count - 1 << 2, get(lastInChunk + 1));
+            position = chunkEnd;
+        }
+        setSize(last);
+    }
+
+    /**
+     * Проверяет корректность индекса.
+     *
+     * @param index проверяемый индекс
+     * @throws IndexOutOfBoundsException если индекс недопустим
+     */
+    private void checkIsCorrectIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " outside the container range.");
+        }
+    }
+
+    /**
+     * Проверяет, пуст ли контейнер.
+     *
+     * @return true если контейнер не содержит элементов, иначе false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Очищает контейнер, удаляя все элементы. Блоки прямой памяти, кроме первого,
+     * освобождаются; размер файла не изменяется.
+     *
+     * @throws IllegalStateException если контейнер закрыт
+     */
+    public void clear() {
+        checkOpen();
+        setSize(0);
+        if (channel == null && chunks.length > 1) {
+            chunks = Arrays.copyOf(chunks, 1);
+            firstChunkInts = chunkInts;
+        }
+    }
+
+    /**
+     * Записывает изменения отображенного файла на диск. Для прямой памяти ничего не делает.
+     *
+     * @throws IllegalStateException если контейнер закрыт
+     */
+    public void force() {
+        checkOpen();
+        if (channel == null) {
+            return;
+        }
+        ((MappedByteBuffer) header).force();
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+    }
+
+    /**
+     * Закрывает контейнер: записывает изменения файла на диск и освобождает ссылки на буферы.
+     * Память буферов возвращается системе при сборке мусора. Повторный вызов ничего не делает.
+     *
+     * @throws IOException если не удалось закрыть файл
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+        chunks = new ByteBuffer[0];
+        header = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Возвращает строковое представление контейнера.
+     *
+     * @return строковое представление элементов контейнера
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (long i = 0; i < size; i++) {
+            sb.append(get(i));
+            if (i < size - 1) {
+                sb.append(", ");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private void put(long index, int element) {
+        chunks[(int) (index >>> chunkShift)].putInt((int) (index & chunkMask) << 2, element);
+    }
+
+    private void setSize(long newSize) {
+        size = newSize;
+        if (header != null) {
+            header.putLong(SIZE_OFFSET, newSize);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Container is closed.");
+        }
+    }
+
+    private static void checkCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+    }
+
+    /**
+     * Увеличивает емкость не меньше чем до указанной. Первый блок удваивается,
+     * пока не достигнет полного размера, затем добавляются полные блоки.
+     *
+     * @param required требуемая емкость
+     */
+    private void reserve(long required) {
+        if (chunks.length <= 1 && required <= chunkInts) {
+            int current = chunks.length == 0 ? 0 : firstChunkInts;
+            if (chunks.length == 1 && required <= current) {
+                return;
+            }
+            int grown = (int) Math.min(chunkInts, Math.max(required, 2L * current));
+            growFirstChunk(grown);
+            return;
+        }
+        if (chunks.length <= 1 && firstChunkInts < chunkInts) {
+            growFirstChunk(chunkInts);
+        }
+        int count = (int) ((required + chunkMask) >>> chunkShift);
+        if (count > chunks.length) {
+            int old = chunks.length;
+            chunks = Arrays.copyOf(chunks, count);
+            for (int i = old; i < count; i++) {
+                chunks[i] = allocate(i, chunkInts);
+            }
+        }
+    }
+
+    private void growFirstChunk(int ints) {
+        ByteBuffer chunk = allocate(0, ints);
+        if (chunks.length == 1 && channel == null) {
+            ByteBuffer old = chunks[0].duplicate();
+            old.clear().limit((int) size << 2);
+            chunk.put(old).clear();
+        }
+        if (chunks.length == 0) {
+            chunks = new ByteBuffer[1];
+        }
+        chunks[0] = chunk;
+        firstChunkInts = ints;
+    }
+
+    /**
+     * Выделяет или отображает блок. Отображение файла на ту же область сохраняет
+     * прежнее содержимое, поэтому при увеличении первого блока файла копирование не нужно.
+     *
+     * @param index номер блока
+     * @param ints число элементов блока
+     * @return буфер блока
+     */
+    private ByteBuffer allocate(int index, int ints) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(ints << 2).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            long position = HEADER_BYTES + ((long) index << chunkShift) * Integer.BYTES;
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, (long) ints * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Контейнер целых чисел, упорядоченных по возрастанию.
+ * <p>
+ * Отсортированные элементы хранятся в массиве {@link Container}. Новые элементы
+ * сначала попадают в буфер вставки и сливаются с основным массивом пакетом:
+ * буфер сортируется и вливается одним проходом с конца, без сдвига хвоста
+ * на каждый элемент. Размер пакета растет вместе с контейнером (не меньше
+ * восьмой части его размера), поэтому последовательная вставка {@code n}
+ * элементов выполняет лишь логарифмическое число слияний.
+ * </p>
+ * <p>
+ * Буфер сливается перед любым чтением, так что наблюдаемое содержимое всегда
+ * отсортировано. Повторяющиеся значения допускаются.
+ * </p>
+ */
+public class SortedContainer {
+    /**
+     * Наименьший размер пакета вставки.
+     */
+    private static final int MIN_BATCH = 64;
+
+    /**
+     * Отсортированные элементы.
+     */
+    private final Container elements;
+
+    /**
+     * Буфер еще не слитых элементов.
+     */
+    private int[] pending = new int[MIN_BATCH];
+
+    /**
+     * Количество элементов в буфере.
+     */
+    private int pendingSize;
+
+    /**
+     * Создает пустой контейнер со стратегией роста по умолчанию.
+     */
+    public SortedContainer() {
+        this.elements = new Container();
+    }
+
+    /**
+     * Создает пустой контейнер с указанной начальной емкостью и стратегией роста.
+     *
+     * @param initCapacity начальная емкость контейнера
+     * @param policy стратегия изменения емкости
+     * @throws IllegalArgumentException если емкость отрицательна или больше ограничения стратегии
+     */
+    public SortedContainer(int initCapacity, GrowthPolicy policy) {
+        this.elements = new Container(initCapacity, policy);
+    }
+
+    /**
+     * Добавляет элемент с сохранением порядка.
+     *
+     * @param element элемент для добавления
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void add(int element) {
+        if (pendingSize == pending.length) {
+            if (pendingSize >= batchLimit()) {
+                flush();
+            } else {
+                pending = Arrays.copyOf(pending, pendingSize * 2);
+            }
+        }
+        pending[pendingSize++] = element;
+    }
+
+    /**
+     * Добавляет все элементы массива с сохранением порядка одним слиянием.
+     *
+     * @param values добавляемые элементы
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void addAll(int[] values) {
+        flush();
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        merge(sorted, sorted.length);
+    }
+
+    /**
+     * Возвращает количество элементов в контейнере.
+     *
+     * @return количество элементов в контейнере
+     */
+    public int size() {
+        return elements.size() + pendingSize;
+    }
+
+    /**
+     * Проверяет, пуст ли контейнер.
+     *
+     * @return true если контейнер не содержит элементов, иначе false
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Возвращает элемент с указанным номером в порядке возрастания.
+     *
+     * @param index индекс запрашиваемого элемента
+     * @return элемент по указанному индексу
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     */
+    public int get(int index) {
+        flush();
+        return elements.get(index);
+    }
+
+    /**
+     * Возвращает индекс первого вхождения значения, найденный двоичным поиском.
+     *
+     * @param value искомое значение
+     * @return индекс первого вхождения или -1, если значения нет
+     */
+    public int indexOf(int value) {
+        flush();
+        int index = lowerBound(value);
+        return index < elements.size() && elements.array()[index] == value ? index : -1;
+    }
+
+    /**
+     * Проверяет, содержит ли контейнер значение.
+     *
+     * @param value искомое значение
+     * @return true если значение найдено, иначе false
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Удаляет элемент по указанному индексу.
+     *
+     * @param index индекс удаляемого элемента
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     */
+    public void remove(int index) {
+        flush();
+        elements.remove(index);
+    }
+
+    /**
+     * Удаляет одно вхождение значения.
+     *
+     * @param value удаляемое значение
+     * @return true если значение было найдено и удалено
+     */
+    public boolean removeValue(int value) {
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        elements.remove(index);
+        return true;
+    }
+
+    /**
+     * Очищает контейнер, удаляя все элементы.
+     */
+    public void clear() {
+        elements.clear();
+        pendingSize = 0;
+    }
+
+    /**
+     * Возвращает поток элементов в порядке возрастания.
+     *
+     * @return поток элементов
+     */
+    public IntStream stream() {
+        flush();
+        return elements.stream();
+    }
+
+    /**
+     * Возвращает представление элементов только для чтения без копирования.
+     *
+     * @return представление контейнера
+     */
+    public ContainerView view() {
+        flush();
+        return elements.view();
+    }
+
+    /**
+     * Возвращает строковое представление контейнера.
+     *
+     * @return строковое представление элементов в порядке возрастания
+     */
+    @Override
+    public String toString() {
+        flush();
+        return elements.toString();
+    }
+
+    /**
+     * Возвращает размер буфера, при котором он сливается с основным массивом.
+     *
+     * @return наибольший размер пакета
+     */
+    private int batchLimit() {
+        return Math.max(MIN_BATCH, elements.size() >>> 3);
+    }
+
+    /**
+     * Сливает буфер вставки с отсортированными элементами.
+     */
+    private void flush() {
+        if (pendingSize == 0) {
+            return;
+        }
+        Arrays.sort(pending, 0, pendingSize);
+        merge(pending, pendingSize);
+        pendingSize = 0;
+    }
+
+    /**
+     * Вливает отсортированный массив в основной. Массив дописывается в конец
+     * контейнера одним копированием, чтобы выделить место, а затем слияние идет
+     * с конца, читая добавленные значения из исходного массива.
+     *
+     * @param sorted отсортированные значения
+     * @param count число значений
+     */
+    private void merge(int[] sorted, int count) {
+        int i = elements.size() - 1;
+        elements.addAll(sorted, 0, count);
+        int[] array = elements.array();
+        int j = count - 1;
+        int k = i + count;
+        while (j >= 0) {
+            if (i >= 0 && array[i] > sorted[j]) {
+                array[k--] = array[i--];
+            } else {
+                array[k--] = sorted[j--];
+            }
+        }
+    }
+
+    /**
+     * Возвращает индекс первого элемента, не меньшего значения.
+     *
+     * @param value значение
+     * @return точка вставки значения
+     */
+    private int lowerBound(int value) {
+        int[] array = elements.array();
+        int low = 0;
+        int high = elements.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
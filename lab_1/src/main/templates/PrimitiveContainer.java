@@ -0,0 +1,467 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.function.@Consumer@;
+import java.util.function.@Predicate@;
+
+/**
+ * Контейнер для хранения @description@ на основе массива
+ * <p>
+ * Класс сгенерирован из шаблона {@code src/main/templates/PrimitiveContainer.java}
+ * при сборке; изменения нужно вносить в шаблон. Поведение роста, проверки границ
+ * и пакетные операции совпадают с {@link Container}.
+ * </p>
+ * <p>
+ * Емкость массива меняется по стратегии {@link GrowthPolicy}: при переполнении
+ * массив увеличивается, а при малом заполнении (если стратегия это разрешает)
+ * сокращается, но не ниже начальной емкости.
+ * </p>
+ */
+public class @Type@Container {
+    /**
+     * Массив для хранения чисел.
+     */
+    private @type@[] nums;
+
+    /**
+     * Количество элементов, содержащихся в контейнере.
+     */
+    private int size;
+
+    /**
+     * Число структурных изменений контейнера; по нему {@link #forEach} обнаруживает
+     * изменение контейнера во время обхода.
+     */
+    private int modCount;
+
+    /**
+     * Начальная емкость контейнера по умолчанию.
+     */
+    private static final int INIT_CAPACITY = 5;
+
+    /**
+     * Число элементов, начиная с которого сортировка выполняется параллельно.
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 18;
+
+    /**
+     * Оценка размера самого объекта контейнера в байтах.
+     */
+    private static final long CONTAINER_BYTES = 32;
+
+    /**
+     * Размер заголовка массива в байтах.
+     */
+    private static final long ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Стратегия изменения емкости.
+     */
+    private final GrowthPolicy policy;
+
+    /**
+     * Емкость, меньше которой массив не сокращается автоматически.
+     */
+    private final int minCapacity;
+
+    /**
+     * Создает новый пустой контейнер с емкостью по умолчанию.
+     */
+    public @Type@Container() {
+        this(INIT_CAPACITY);
+    }
+
+    /**
+     * Создает новый пустой контейнер с указанной начальной емкостью.
+     *
+     * @param initCapacity начальная емкость контейнера
+     * @throws IllegalArgumentException если указана отрицательная емкость
+     */
+    public @Type@Container(int initCapacity) {
+        this(initCapacity, GrowthPolicy.doubling());
+    }
+
+    /**
+     * Создает новый пустой контейнер с указанной начальной емкостью и стратегией роста.
+     *
+     * @param initCapacity начальная емкость контейнера
+     * @param policy стратегия изменения емкости
+     * @throws IllegalArgumentException если емкость отрицательна или больше ограничения стратегии
+     */
+    public @Type@Container(int initCapacity, GrowthPolicy policy) {
+        if (initCapacity < 0 || initCapacity > policy.getMaxCapacity()) {
+            throw new IllegalArgumentException("Invalid capacity: " + initCapacity);
+        }
+        this.nums = new @type@[initCapacity];
+        this.size = 0;
+        this.policy = policy;
+        this.minCapacity = initCapacity;
+    }
+
+    /**
+     * Добавляет указанный элемент в конец контейнера.
+     *
+     * @param element элемент для добавления
+     */
+    public void add(@type@ element) {
+        if (size == nums.length) {
+            growIfNeeded(size + 1);
+        }
+        nums[size++] = element;
+        modCount++;
+    }
+
+    /**
+     * Добавляет все элементы массива в конец контейнера.
+     *
+     * @param values добавляемые элементы
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void addAll(@type@[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Добавляет часть массива в конец контейнера.
+     * Выполняет не больше одного перевыделения памяти и одного копирования.
+     *
+     * @param values массив с добавляемыми элементами
+     * @param off индекс первого добавляемого элемента массива
+     * @param len число добавляемых элементов
+     * @throws IndexOutOfBoundsException если диапазон выходит за границы массива
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void addAll(@type@[] values, int off, int len) {
+        if (off < 0 || len < 0 || off > values.length - len) {
+            throw new IndexOutOfBoundsException("Range: [" + off + ", " + off + " + " + len
+                    + ") outside the array of length " + values.length + ".");
+        }
+        growIfNeeded(size + len);
+        System.arraycopy(values, off, nums, size, len);
+        size += len;
+        modCount++;
+    }
+
+    /**
+     * Добавляет все элементы другого контейнера в конец этого контейнера.
+     * Контейнер можно добавить сам к себе.
+     *
+     * @param other контейнер с добавляемыми элементами
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void addAll(@Type@Container other) {
+        int count = other.size;
+        growIfNeeded(size + count);
+        System.arraycopy(other.nums, 0, nums, size, count);
+        size += count;
+        modCount++;
+    }
+
+    /**
+     * Вставляет элементы массива перед элементом с указанным индексом.
+     * Хвост контейнера сдвигается один раз; если массив нужно увеличить,
+     * части копируются сразу на свои места в новом массиве.
+     *
+     * @param index позиция вставки, от 0 до {@link #size()} включительно
+     * @param values вставляемые элементы
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void insert(int index, @type@[] values) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " outside the container range.");
+        }
+        int count = values.length;
+        int required = size + count;
+        if (required < 0 || required > nums.length) {
+            @type@[] newArray = new @type@[policy.grow(nums.length, required)];
+            System.arraycopy(nums, 0, newArray, 0, index);
+            System.arraycopy(nums, index, newArray, index + count, size - index);
+            nums = newArray;
+        } else {
+            System.arraycopy(nums, index, nums, index + count, size - index);
+        }
+        System.arraycopy(values, 0, nums, index, count);
+        size = required;
+        modCount++;
+    }
+
+    /**
+     * Удаляет элементы с индексами от {@code from} включительно до {@code to} не включительно.
+     * Хвост контейнера сдвигается одним копированием.
+     *
+     * @param from индекс первого удаляемого элемента
+     * @param to индекс, следующий за последним удаляемым элементом
+     * @throws IndexOutOfBoundsException если диапазон выходит за границы
+     */
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + ") outside the container range.");
+        }
+        System.arraycopy(nums, to, nums, from, size - to);
+        size -= to - from;
+        modCount++;
+        shrinkIfNeeded();
+    }
+
+    /**
+     * Удаляет все элементы, удовлетворяющие условию, за один проход.
+     * Порядок оставшихся элементов сохраняется. Если условие выбросит исключение,
+     * контейнер останется согласованным: удаленными окажутся только уже проверенные элементы.
+     *
+     * @param filter условие удаления
+     * @return true если был удален хотя бы один элемент
+     */
+    public boolean removeIf(@Predicate@ filter) {
+        int read = 0;
+        int write = 0;
+        try {
+            for (; read < size; read++) {
+                @type@ element = nums[read];
+                if (!filter.test(element)) {
+                    nums[write++] = element;
+                }
+            }
+        } finally {
+            if (write != read) {
+                modCount++;
+            }
+            if (read < size) {
+                System.arraycopy(nums, read, nums, write, size - read);
+                write += size - read;
+            }
+            size = write;
+        }
+        if (write == read) {
+            return false;
+        }
+        shrinkIfNeeded();
+        return true;
+    }
+
+    /**
+     * Заменяет массив массивом указанной емкости, сохраняя элементы.
+     *
+     * @param newCapacity новая емкость, не меньше числа элементов
+     */
+    private void resize(int newCapacity) {
+        @type@[] newArray = new @type@[newCapacity];
+        System.arraycopy(nums, 0, newArray, 0, size);
+        nums = newArray;
+    }
+
+    /**
+     * Сокращает массив, если стратегия считает заполнение слишком малым.
+     */
+    private void shrinkIfNeeded() {
+        int newCapacity = nums.length;
+        for (;;) {
+            int next = policy.shrink(size, newCapacity, minCapacity);
+            if (next == newCapacity) {
+                break;
+            }
+            newCapacity = next;
+        }
+        if (newCapacity < nums.length) {
+            resize(newCapacity);
+        }
+    }
+
+    /**
+     * Увеличивает массив, если в нем не помещается указанное число элементов.
+     *
+     * @param required требуемая емкость
+     */
+    private void growIfNeeded(int required) {
+        if (required < 0 || required > nums.length) {
+            resize(policy.grow(nums.length, required));
+        }
+    }
+
+    /**
+     * Увеличивает емкость так, чтобы в контейнер поместилось указанное число
+     * элементов без перевыделения памяти.
+     *
+     * @param capacity требуемая емкость
+     * @throws IllegalStateException если емкость превышает ограничение стратегии
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > nums.length) {
+            growIfNeeded(capacity);
+        }
+    }
+
+    /**
+     * Сокращает емкость до текущего числа элементов.
+     */
+    public void trimToSize() {
+        if (size < nums.length) {
+            resize(size);
+        }
+    }
+
+    /**
+     * Возвращает текущую емкость контейнера.
+     *
+     * @return длина массива для хранения чисел
+     */
+    public int capacity() {
+        return nums.length;
+    }
+
+    /**
+     * Возвращает стратегию изменения емкости.
+     *
+     * @return стратегия роста
+     */
+    public GrowthPolicy getGrowthPolicy() {
+        return policy;
+    }
+
+    /**
+     * Оценивает объем памяти, занимаемый контейнером вместе с массивом.
+     * Оценка соответствует 64-разрядной виртуальной машине со сжатыми ссылками.
+     *
+     * @return примерный размер в байтах
+     */
+    public long memoryFootprint() {
+        long arrayBytes = ARRAY_HEADER_BYTES + @BYTES@L * nums.length;
+        return CONTAINER_BYTES + (arrayBytes + 7 & ~7L);
+    }
+
+    /**
+     * Возвращает количество элементов в контейнере.
+     *
+     * @return количество элементов в контейнере
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает элемент по указанному индексу.
+     *
+     * @param index индекс запрашиваемого элемента
+     * @return элемент по указанному индексу
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     */
+    public @type@ get(int index) {
+        checkIsCorrectIndex(index);
+        return nums[index];
+    }
+
+    /**
+     * Удаляет элемент по указанному индексу.
+     *
+     * @param index индекс удаляемого элемента
+     * @throws IndexOutOfBoundsException если индекс выходит за границы
+     */
+    public void remove(int index) {
+        checkIsCorrectIndex(index);
+        int elementsToShift = size - index - 1;
+        if (elementsToShift > 0) {
+            System.arraycopy(nums, index + 1, nums, index, elementsToShift);
+        }
+        size--;
+        modCount++;
+        shrinkIfNeeded();
+    }
+
+    /**
+     * Проверяет корректность индекса.
+     *
+     * @param index проверяемый индекс
+     * @throws IndexOutOfBoundsException если индекс недопустим
+     */
+    private void checkIsCorrectIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " outside the container range.");
+        }
+    }
+
+    /**
+     * Проверяет, пуст ли контейнер.
+     *
+     * @return true если контейнер не содержит элементов, иначе false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Очищает контейнер, удаляя все элементы.
+     * Если стратегия разрешает уменьшение, емкость возвращается к начальной,
+     * иначе не изменяется.
+     */
+    public void clear() {
+        size = 0;
+        modCount++;
+        if (policy.isShrinking() && nums.length > minCapacity) {
+            nums = new @type@[minCapacity];
+        }
+    }
+
+    /**
+     * Сортирует элементы по возрастанию. Небольшие контейнеры сортируются
+     * быстрой сортировкой с двумя опорными элементами, большие — параллельно
+     * в общем пуле {@link java.util.concurrent.ForkJoinPool}.
+     */
+    public void sort() {
+        if (size >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(nums, 0, size);
+        } else {
+            Arrays.sort(nums, 0, size);
+        }
+        modCount++;
+    }
+
+    /**
+     * Ищет элемент двоичным поиском. Контейнер должен быть отсортирован
+     * по возрастанию, иначе результат не определен.
+     *
+     * @param key искомое значение
+     * @return индекс элемента, если он найден, иначе {@code -(точка вставки) - 1}
+     */
+    public int binarySearch(@type@ key) {
+        return Arrays.binarySearch(nums, 0, size, key);
+    }
+
+    /**
+     * Выполняет действие для каждого элемента контейнера по порядку,
+     * читая массив без проверки индекса на каждом элементе.
+     *
+     * @param action действие
+     * @throws ConcurrentModificationException если действие изменило контейнер
+     */
+    public void forEach(@Consumer@ action) {
+        int expectedModCount = modCount;
+        @type@[] array = nums;
+        for (int i = 0, end = size; i < end; i++) {
+            action.accept(array[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Возвращает строковое представление контейнера.
+     *
+     * @return строковое представление элементов контейнера
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < size; i++) {
+            sb.append(nums[i]);
+            if (i < size - 1) {
+                sb.append(", ");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedContainerTests {
+    @Test
+    void testAddAndGetAcrossBlocks() {
+        CompressedContainer container = new CompressedContainer();
+        for (int i = 0; i < 1000; i++) {
+            container.add(i * 3);
+        }
+        assertEquals(1000, container.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 3, container.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> container.get(1000));
+        assertThrows(IndexOutOfBoundsException.class, () -> container.get(-1));
+    }
+
+    @Test
+    void testExtremeAndRandomValues() {
+        Random random = new Random(3);
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 7 == 0 ? (i % 2 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE) : random.nextInt();
+        }
+        CompressedContainer container = new CompressedContainer();
+        container.addAll(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], container.get(i));
+        }
+        IntIterator iterator = container.iterator();
+        for (int value : values) {
+            assertEquals(value, iterator.nextInt());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testConstantAndDescendingBlocks() {
+        CompressedContainer container = new CompressedContainer();
+        for (int i = 0; i < 256; i++) {
+            container.add(42);
+        }
+        for (int i = 0; i < 300; i++) {
+            container.add(1_000_000 - i * 5);
+        }
+        assertEquals(42, container.get(200));
+        assertEquals(1_000_000 - 299 * 5, container.get(555));
+        assertEquals(1_000_000 - 150 * 5, container.get(406));
+        IntIterator iterator = container.iterator();
+        for (int i = 0; i < container.size(); i++) {
+            assertEquals(container.get(i), iterator.nextInt());
+        }
+    }
+
+    @Test
+    void testSortedIdsCompress() {
+        Random random = new Random(5);
+        CompressedContainer compressed = new CompressedContainer();
+        Container plain = new Container();
+        int id = 1_000_000;
+        for (int i = 0; i < 100_000; i++) {
+            id += 1 + random.nextInt(16);
+            compressed.add(id);
+            plain.add(id);
+        }
+        compressed.trimToSize();
+        plain.trimToSize();
+        assertTrue(compressed.memoryFootprint() * 3 < plain.memoryFootprint(),
+                compressed.memoryFootprint() + " vs " + plain.memoryFootprint());
+        long[] sum = new long[1];
+        compressed.forEach(x -> sum[0] += x);
+        assertEquals(plain.stream().asLongStream().sum(), sum[0]);
+        assertEquals(plain.get(54_321), compressed.get(54_321));
+    }
+
+    @Test
+    void testIteratorAfterTailIsSealed() {
+        CompressedContainer container = new CompressedContainer();
+        for (int i = 0; i < 5; i++) {
+            container.add(100 + i);
+        }
+        IntIterator iterator = container.iterator();
+        assertEquals(100, iterator.nextInt());
+        assertEquals(101, iterator.nextInt());
+        for (int i = 0; i < 200; i++) {
+            container.add(-i);
+        }
+        assertEquals(102, iterator.nextInt());
+        assertEquals(103, iterator.nextInt());
+        assertEquals(104, iterator.nextInt());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testClearAndToString() {
+        CompressedContainer container = new CompressedContainer();
+        assertEquals("[]", container.toString());
+        for (int i = 0; i < 130; i++) {
+            container.add(i);
+        }
+        assertTrue(container.toString().startsWith("[0, 1, 2"));
+        container.clear();
+        assertTrue(container.isEmpty());
+        container.add(-5);
+        assertEquals("[-5]", container.toString());
+    }
+}
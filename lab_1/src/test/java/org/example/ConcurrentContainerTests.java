@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentContainerTests {
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 200_000;
+
+    @Test
+    void testAddAndGet() {
+        ConcurrentContainer container = new ConcurrentContainer();
+        assertTrue(container.isEmpty());
+        for (int i = 0; i < 1000; i++) {
+            container.add(i * 7);
+        }
+        assertEquals(1000, container.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 7, container.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> container.get(1000));
+        assertThrows(IndexOutOfBoundsException.class, () -> container.get(-1));
+    }
+
+    @Test
+    void testSnapshotIterator() {
+        ConcurrentContainer container = new ConcurrentContainer();
+        for (int i = 0; i < 100; i++) {
+            container.add(i);
+        }
+        IntIterator iterator = container.iterator();
+        container.add(100);
+        int expected = 0;
+        while (iterator.hasNext()) {
+            assertEquals(expected++, iterator.nextInt());
+        }
+        assertEquals(100, expected);
+        assertThrows(NoSuchElementException.class, iterator::nextInt);
+        assertEquals(101, container.toArray().length);
+        assertEquals("[]", new ConcurrentContainer().toString());
+    }
+
+    /**
+     * Несколько писателей добавляют свои последовательности, а читатель одновременно
+     * проверяет, что каждый опубликованный элемент записан и что элементы одного
+     * писателя идут по возрастанию.
+     */
+    @Test
+    void testConcurrentProducersAndReader() throws Exception {
+        ConcurrentContainer container = new ConcurrentContainer();
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 1; i <= PER_PRODUCER; i++) {
+                        container.add(producer << 24 | i);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                int[] last = new int[PRODUCERS];
+                int checked = 0;
+                while (!done.get() || checked < container.size()) {
+                    int size = container.size();
+                    for (; checked < size; checked++) {
+                        int value = container.get(checked);
+                        int producer = value >>> 24;
+                        int sequence = value & 0xFFFFFF;
+                        assertTrue(sequence > last[producer], "Unwritten or reordered element at " + checked);
+                        last[producer] = sequence;
+                    }
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> producer : producers) {
+                producer.get(60, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(PRODUCERS * PER_PRODUCER, container.size());
+        int[] counts = new int[PRODUCERS];
+        IntIterator iterator = container.iterator();
+        while (iterator.hasNext()) {
+            counts[iterator.nextInt() >>> 24]++;
+        }
+        for (int count : counts) {
+            assertEquals(PER_PRODUCER, count);
+        }
+    }
+}
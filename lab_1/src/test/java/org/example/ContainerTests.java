@@ -2,6 +2,12 @@ package org.example;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.IntStream;
 import static org.junit.jupiter.api.Assertions.*;
 
 class ContainerTests {
@@ -130,4 +136,345 @@ class ContainerTests {
         assertEquals(2, container.get(1));
         assertEquals(3, container.get(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testZeroCapacityGrows() {
+        Container container = new Container(0);
+        container.add(4);
+        container.add(8);
+        assertEquals(2, container.size());
+        assertEquals(8, container.get(1));
+    }
+
+    @Test
+    void testIncrementPolicy() {
+        Container container = new Container(2, GrowthPolicy.increment(3));
+        for (int i = 0; i < 3; i++) {
+            container.add(i);
+        }
+        assertEquals(5, container.capacity());
+    }
+
+    @Test
+    void testFactorPolicy() {
+        Container container = new Container(4, GrowthPolicy.factor(1.5));
+        for (int i = 0; i < 5; i++) {
+            container.add(i);
+        }
+        assertEquals(6, container.capacity());
+        assertThrows(IllegalArgumentException.class, () -> GrowthPolicy.factor(1.0));
+        assertThrows(IllegalArgumentException.class, () -> GrowthPolicy.increment(0));
+    }
+
+    @Test
+    void testMaxCapacity() {
+        Container container = new Container(2, GrowthPolicy.doubling().withMaxCapacity(3));
+        container.add(1);
+        container.add(2);
+        container.add(3);
+        assertEquals(3, container.capacity());
+        assertThrows(IllegalStateException.class, () -> container.add(4));
+        assertEquals(3, container.size());
+        assertThrows(IllegalArgumentException.class,
+                () -> new Container(4, GrowthPolicy.doubling().withMaxCapacity(3)));
+    }
+
+    @Test
+    void testEnsureCapacityAndTrimToSize() {
+        container.ensureCapacity(100);
+        assertEquals(100, container.capacity());
+        container.add(1);
+        container.add(2);
+        container.trimToSize();
+        assertEquals(2, container.capacity());
+        assertEquals("[1, 2]", container.toString());
+        container.add(3);
+        assertEquals(3, container.size());
+    }
+
+    @Test
+    void testShrinkWithHysteresis() {
+        Container container = new Container(4);
+        for (int i = 0; i < 64; i++) {
+            container.add(i);
+        }
+        assertEquals(64, container.capacity());
+        while (container.size() > 17) {
+            container.remove(container.size() - 1);
+        }
+        assertEquals(64, container.capacity());
+        container.remove(16);
+        assertEquals(32, container.capacity());
+        container.add(16);
+        container.remove(16);
+        assertEquals(32, container.capacity());
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, container.get(i));
+        }
+    }
+
+    @Test
+    void testShrinkStopsAtInitialCapacity() {
+        Container container = new Container(8);
+        for (int i = 0; i < 100; i++) {
+            container.add(i);
+        }
+        while (!container.isEmpty()) {
+            container.remove(0);
+        }
+        assertEquals(8, container.capacity());
+    }
+
+    @Test
+    void testClearReleasesMemory() {
+        Container container = new Container(4);
+        for (int i = 0; i < 1000; i++) {
+            container.add(i);
+        }
+        long peak = container.memoryFootprint();
+        container.clear();
+        assertEquals(4, container.capacity());
+        assertTrue(container.memoryFootprint() < peak);
+    }
+
+    @Test
+    void testWithoutShrinking() {
+        Container container = new Container(4, GrowthPolicy.doubling().withoutShrinking());
+        for (int i = 0; i < 64; i++) {
+            container.add(i);
+        }
+        while (!container.isEmpty()) {
+            container.remove(0);
+        }
+        assertEquals(64, container.capacity());
+        container.clear();
+        assertEquals(64, container.capacity());
+        container.trimToSize();
+        assertEquals(0, container.capacity());
+    }
+
+    @Test
+    void testMemoryFootprint() {
+        Container container = new Container(10);
+        long empty = container.memoryFootprint();
+        container.ensureCapacity(1010);
+        assertEquals(empty + 4000, container.memoryFootprint());
+    }
+
+    @Test
+    void testAddAllRange() {
+        container.add(1);
+        container.addAll(new int[]{5, 6, 7, 8, 9}, 1, 3);
+        assertEquals("[1, 6, 7, 8]", container.toString());
+        container.addAll(new int[0]);
+        assertEquals(4, container.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> container.addAll(new int[3], 2, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> container.addAll(new int[3], -1, 1));
+        assertEquals(4, container.size());
+    }
+
+    @Test
+    void testAddAllGrowsOnce() {
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        container.addAll(values);
+        assertEquals(1000, container.size());
+        assertEquals(1000, container.capacity());
+        assertEquals(999, container.get(999));
+    }
+
+    @Test
+    void testAddAllContainer() {
+        Container other = new Container();
+        other.addAll(new int[]{3, 4});
+        container.add(1);
+        container.addAll(other);
+        assertEquals("[1, 3, 4]", container.toString());
+        container.addAll(container);
+        assertEquals("[1, 3, 4, 1, 3, 4]", container.toString());
+    }
+
+    @Test
+    void testInsert() {
+        container.addAll(new int[]{1, 2, 3});
+        container.insert(1, new int[]{7, 8});
+        assertEquals("[1, 7, 8, 2, 3]", container.toString());
+        container.insert(0, new int[]{0});
+        container.insert(container.size(), new int[]{9});
+        assertEquals("[0, 1, 7, 8, 2, 3, 9]", container.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> container.insert(8, new int[]{1}));
+        assertThrows(IndexOutOfBoundsException.class, () -> container.insert(-1, new int[]{1}));
+    }
+
+    @Test
+    void testInsertWithoutResize() {
+        Container container = new Container(10);
+        container.addAll(new int[]{1, 2, 3});
+        container.insert(2, new int[]{5, 6});
+        assertEquals(10, container.capacity());
+        assertEquals("[1, 2, 5, 6, 3]", container.toString());
+    }
+
+    @Test
+    void testRemoveRange() {
+        container.addAll(new int[]{0, 1, 2, 3, 4, 5});
+        container.removeRange(1, 4);
+        assertEquals("[0, 4, 5]", container.toString());
+        container.removeRange(1, 1);
+        assertEquals(3, container.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> container.removeRange(2, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> container.removeRange(2, 1));
+        container.removeRange(0, 3);
+        assertTrue(container.isEmpty());
+    }
+
+    @Test
+    void testRemoveRangeShrinksToFit() {
+        Container container = new Container(4);
+        container.addAll(new int[1024]);
+        container.removeRange(0, 1020);
+        assertEquals(4, container.size());
+        assertEquals(8, container.capacity());
+    }
+
+    @Test
+    void testRemoveIf() {
+        for (int i = 0; i < 10; i++) {
+            container.add(i);
+        }
+        assertTrue(container.removeIf(x -> x % 3 == 0));
+        assertEquals("[1, 2, 4, 5, 7, 8]", container.toString());
+        assertFalse(container.removeIf(x -> x > 100));
+        assertEquals(6, container.size());
+    }
+
+    @Test
+    void testRemoveIfKeepsConsistentOnException() {
+        container.addAll(new int[]{1, 2, 3, 4, 5});
+        assertThrows(IllegalStateException.class, () -> container.removeIf(x -> {
+            if (x == 4) {
+                throw new IllegalStateException();
+            }
+            return x == 2;
+        }));
+        assertEquals("[1, 3, 4, 5]", container.toString());
+    }
+
+    @Test
+    void testRemoveIfInvalidatesViewOnException() {
+        container.addAll(new int[]{1, 2, 3, 4, 5});
+        ContainerView view = container.view();
+        assertThrows(IllegalStateException.class, () -> container.removeIf(x -> {
+            if (x == 4) {
+                throw new IllegalStateException();
+            }
+            return x == 2;
+        }));
+        assertThrows(ConcurrentModificationException.class, () -> view.get(0));
+    }
+
+    @Test
+    void testIterator() {
+        container.addAll(new int[]{4, 5, 6});
+        IntIterator iterator = container.iterator();
+        int sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.nextInt();
+        }
+        assertEquals(15, sum);
+        assertThrows(NoSuchElementException.class, iterator::nextInt);
+    }
+
+    @Test
+    void testIteratorFailsAfterModification() {
+        container.addAll(new int[]{1, 2});
+        IntIterator iterator = container.iterator();
+        iterator.nextInt();
+        container.add(3);
+        assertThrows(ConcurrentModificationException.class, iterator::nextInt);
+    }
+
+    @Test
+    void testForEach() {
+        container.addAll(new int[]{1, 2, 3});
+        StringBuilder sb = new StringBuilder();
+        container.forEach(sb::append);
+        assertEquals("123", sb.toString());
+        assertThrows(ConcurrentModificationException.class, () -> container.forEach(x -> container.add(x)));
+    }
+
+    @Test
+    void testStream() {
+        container.addAll(new int[]{3, 1, 2});
+        assertEquals(6, container.stream().sum());
+        assertArrayEquals(new int[]{1, 2, 3}, container.stream().sorted().toArray());
+    }
+
+    @Test
+    void testParallelStreamSplits() {
+        int[] values = IntStream.range(0, 100_000).toArray();
+        container.addAll(values);
+        assertEquals(IntStream.of(values).asLongStream().sum(),
+                container.stream().parallel().asLongStream().sum());
+        assertArrayEquals(values, container.stream().parallel().toArray());
+        assertNotNull(container.stream().spliterator().trySplit());
+    }
+
+    @Test
+    void testSliceView() {
+        container.addAll(new int[]{0, 1, 2, 3, 4, 5});
+        ContainerView view = container.slice(1, 5);
+        assertEquals(4, view.size());
+        assertEquals(1, view.get(0));
+        assertEquals("[1, 2, 3, 4]", view.toString());
+        ContainerView inner = view.slice(1, 3);
+        assertEquals("[2, 3]", inner.toString());
+        assertEquals(5, inner.stream().sum());
+        assertEquals(3, inner.iterator().nextInt() + 1);
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.slice(2, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> container.slice(3, 7));
+        assertEquals(6, container.view().size());
+    }
+
+    @Test
+    void testViewInvalidatedByModification() {
+        container.addAll(new int[]{1, 2, 3});
+        ContainerView view = container.view();
+        container.remove(0);
+        assertThrows(ConcurrentModificationException.class, () -> view.get(0));
+        assertThrows(ConcurrentModificationException.class, view::stream);
+    }
+
+    @Test
+    void testSortAndBinarySearch() {
+        container.addAll(new int[]{5, -3, 9, 0, 5});
+        container.sort();
+        assertEquals("[-3, 0, 5, 5, 9]", container.toString());
+        assertEquals(4, container.binarySearch(9));
+        assertEquals(-3, container.binarySearch(1));
+    }
+
+    @Test
+    void testParallelSort() {
+        int[] values = new Random(7).ints(1 << 19).toArray();
+        container.addAll(values);
+        container.sort();
+        Arrays.sort(values);
+        assertArrayEquals(values, container.view().toArray());
+    }
+
+    @Test
+    void testIndexOfAndContains() {
+        container.addAll(new int[]{4, 8, 15, 8});
+        assertEquals(1, container.indexOf(8));
+        assertEquals(-1, container.indexOf(16));
+        assertTrue(container.contains(15));
+        assertFalse(container.contains(0));
+        container.remove(3);
+        container.remove(1);
+        assertFalse(container.contains(8));
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сверка шаблона {@code PrimitiveContainer} с {@link Container}: экземпляр шаблона
+ * для {@code int} генерируется при сборке тестов и должен вести себя так же, как
+ * написанный вручную контейнер, на одной и той же случайной последовательности операций.
+ */
+class IntContainerTests {
+    private static final GrowthPolicy[] POLICIES = {
+            GrowthPolicy.doubling(),
+            GrowthPolicy.factor(1.5),
+            GrowthPolicy.increment(3),
+            GrowthPolicy.doubling().withoutShrinking()
+    };
+
+    @Test
+    void testTemplateMatchesContainer() {
+        Random random = new Random(25);
+        for (GrowthPolicy policy : POLICIES) {
+            Container expected = new Container(2, policy);
+            IntContainer actual = new IntContainer(2, policy);
+            for (int step = 0; step < 5_000; step++) {
+                apply(random, expected, actual);
+                assertEquals(expected.size(), actual.size());
+                assertEquals(expected.capacity(), actual.capacity());
+                assertEquals(expected.memoryFootprint(), actual.memoryFootprint());
+            }
+            assertEquals(expected.toString(), actual.toString());
+            long[] sum = new long[1];
+            actual.forEach(x -> sum[0] += x);
+            assertEquals(expected.stream().asLongStream().sum(), sum[0]);
+        }
+    }
+
+    private static void apply(Random random, Container expected, IntContainer actual) {
+        int size = expected.size();
+        switch (random.nextInt(10)) {
+            case 0:
+            case 1:
+            case 2:
+                int value = random.nextInt(100);
+                expected.add(value);
+                actual.add(value);
+                break;
+            case 3:
+                int[] values = random.ints(random.nextInt(20), 0, 100).toArray();
+                int off = values.length == 0 ? 0 : random.nextInt(values.length);
+                expected.addAll(values, off, values.length - off);
+                actual.addAll(values, off, values.length - off);
+                break;
+            case 4:
+                int[] inserted = random.ints(random.nextInt(5), 0, 100).toArray();
+                int at = random.nextInt(size + 1);
+                expected.insert(at, inserted);
+                actual.insert(at, inserted);
+                break;
+            case 5:
+                if (size > 0) {
+                    int index = random.nextInt(size);
+                    assertEquals(expected.get(index), actual.get(index));
+                    expected.remove(index);
+                    actual.remove(index);
+                }
+                break;
+            case 6:
+                int from = random.nextInt(size + 1);
+                int to = from + random.nextInt(Math.min(size - from, 8) + 1);
+                expected.removeRange(from, to);
+                actual.removeRange(from, to);
+                break;
+            case 7:
+                int divisor = 2 + random.nextInt(8);
+                assertEquals(expected.removeIf(x -> x % divisor == 0), actual.removeIf(x -> x % divisor == 0));
+                break;
+            case 8:
+                expected.sort();
+                actual.sort();
+                int key = random.nextInt(100);
+                assertEquals(expected.binarySearch(key) >= 0, actual.binarySearch(key) >= 0);
+                break;
+            default:
+                if (random.nextInt(20) == 0) {
+                    expected.clear();
+                    actual.clear();
+                } else {
+                    assertThrows(IndexOutOfBoundsException.class, () -> expected.get(size));
+                    assertThrows(IndexOutOfBoundsException.class, () -> actual.get(size));
+                }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapContainerTests {
+    /** Блоки по 16 элементов, чтобы проверять переходы через границы блоков. */
+    private static final int SMALL_CHUNKS = 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAddGetRemove() throws IOException {
+        try (OffHeapContainer container = OffHeapContainer.allocateDirect()) {
+            assertTrue(container.isEmpty());
+            container.add(1);
+            container.add(25);
+            container.add(74);
+            assertEquals(3, container.size());
+            assertEquals(25, container.get(1));
+            container.remove(1);
+            assertEquals("[1, 74]", container.toString());
+            assertThrows(IndexOutOfBoundsException.class, () -> container.get(2));
+            assertThrows(IndexOutOfBoundsException.class, () -> container.remove(-1));
+        }
+    }
+
+    @Test
+    void testNegativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> OffHeapContainer.allocateDirect(-1));
+    }
+
+    @Test
+    void testGrowthAcrossChunks() throws IOException {
+        try (OffHeapContainer container = OffHeapContainer.allocateDirect(2, SMALL_CHUNKS)) {
+            for (int i = 0; i < 100; i++) {
+                container.add(i * 3);
+            }
+            assertEquals(100, container.size());
+            assertEquals(112, container.capacity());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i * 3, container.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testRemoveShiftsAcrossChunks() throws IOException {
+        try (OffHeapContainer container = OffHeapContainer.allocateDirect(0, SMALL_CHUNKS)) {
+            for (int i = 0; i < 50; i++) {
+                container.add(i);
+            }
+            container.remove(3);
+            container.remove(15);
+            container.remove(container.size() - 1);
+            assertEquals(47, container.size());
+            int expected = 0;
+            for (long i = 0; i < container.size(); i++) {
+                while (expected == 3 || expected == 16) {
+                    expected++;
+                }
+                assertEquals(expected++, container.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testClear() throws IOException {
+        try (OffHeapContainer container = OffHeapContainer.allocateDirect(0, SMALL_CHUNKS)) {
+            for (int i = 0; i < 40; i++) {
+                container.add(i);
+            }
+            container.clear();
+            assertTrue(container.isEmpty());
+            assertEquals(16, container.capacity());
+            container.add(5);
+            assertEquals("[5]", container.toString());
+        }
+    }
+
+    @Test
+    void testClosedContainer() throws IOException {
+        OffHeapContainer container = OffHeapContainer.allocateDirect();
+        container.add(1);
+        container.close();
+        container.close();
+        assertThrows(IllegalStateException.class, () -> container.get(0));
+        assertThrows(IllegalStateException.class, () -> container.add(2));
+    }
+
+    @Test
+    void testMappedFileIsPersisted() throws IOException {
+        Path file = directory.resolve("ints.bin");
+        try (OffHeapContainer container = OffHeapContainer.open(file, SMALL_CHUNKS)) {
+            for (int i = 0; i < 100; i++) {
+                container.add(-i);
+            }
+            container.remove(0);
+        }
+        try (OffHeapContainer container = OffHeapContainer.open(file, SMALL_CHUNKS)) {
+            assertEquals(99, container.size());
+            for (int i = 0; i < 99; i++) {
+                assertEquals(-(i + 1), container.get(i));
+            }
+            container.add(7);
+            assertEquals(7, container.get(99));
+        }
+    }
+
+    @Test
+    void testMappedFileWithDefaultChunks() throws IOException {
+        Path file = directory.resolve("default.bin");
+        try (OffHeapContainer container = OffHeapContainer.open(file)) {
+            for (int i = 0; i < 5000; i++) {
+                container.add(i);
+            }
+        }
+        try (OffHeapContainer container = OffHeapContainer.open(file)) {
+            assertEquals(5000, container.size());
+            assertEquals(4999, container.get(4999));
+        }
+    }
+
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Path file = directory.resolve("foreign.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+        assertThrows(IllegalArgumentException.class, () -> OffHeapContainer.open(file));
+    }
+}
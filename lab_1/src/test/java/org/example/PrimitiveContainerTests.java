@@ -0,0 +1,95 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверки контейнеров, сгенерированных из шаблона. Общая логика шаблона
+ * проверяется на {@link LongContainer}, для остальных типов — особенности типа.
+ */
+class PrimitiveContainerTests {
+    @Test
+    void testLongAddGetRemove() {
+        LongContainer container = new LongContainer();
+        container.add(1L << 40);
+        container.add(-7);
+        container.add(Long.MAX_VALUE);
+        assertEquals(3, container.size());
+        assertEquals(1L << 40, container.get(0));
+        container.remove(1);
+        assertEquals("[1099511627776, 9223372036854775807]", container.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> container.get(2));
+        assertThrows(IllegalArgumentException.class, () -> new LongContainer(-1));
+    }
+
+    @Test
+    void testLongBulkOperations() {
+        LongContainer container = new LongContainer(2, GrowthPolicy.increment(2));
+        container.addAll(new long[]{9, 1, 8, 2, 7}, 1, 3);
+        container.insert(1, new long[]{5, 6});
+        assertEquals("[1, 5, 6, 8, 2]", container.toString());
+        container.removeRange(3, 5);
+        assertTrue(container.removeIf(x -> x == 5));
+        LongContainer other = new LongContainer();
+        other.addAll(container);
+        assertEquals("[1, 6]", other.toString());
+        other.sort();
+        assertEquals(1, other.binarySearch(6));
+    }
+
+    @Test
+    void testLongGrowthAndShrink() {
+        LongContainer container = new LongContainer(4);
+        for (int i = 0; i < 64; i++) {
+            container.add(i);
+        }
+        assertEquals(64, container.capacity());
+        long peak = container.memoryFootprint();
+        container.removeRange(0, 60);
+        assertEquals(8, container.capacity());
+        assertTrue(container.memoryFootprint() < peak);
+        container.trimToSize();
+        assertEquals(4, container.capacity());
+        container.clear();
+        assertTrue(container.isEmpty());
+    }
+
+    @Test
+    void testLongForEach() {
+        LongContainer container = new LongContainer();
+        container.addAll(new long[]{1, 2, 3});
+        long[] sum = new long[1];
+        container.forEach(x -> sum[0] += x);
+        assertEquals(6, sum[0]);
+        assertThrows(ConcurrentModificationException.class, () -> container.forEach(container::add));
+    }
+
+    @Test
+    void testDoubleContainer() {
+        DoubleContainer container = new DoubleContainer();
+        container.addAll(new double[]{2.5, Double.NaN, -0.0, 1e300});
+        assertEquals(4, container.size());
+        assertTrue(Double.isNaN(container.get(1)));
+        container.sort();
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(container.get(0)));
+        assertTrue(container.removeIf(Double::isNaN));
+        assertEquals("[-0.0, 2.5, 1.0E300]", container.toString());
+    }
+
+    @Test
+    void testByteContainer() {
+        ByteContainer container = new ByteContainer(1);
+        for (int i = 0; i < 300; i++) {
+            container.add((byte) i);
+        }
+        assertEquals(300, container.size());
+        assertEquals((byte) 200, container.get(200));
+        assertTrue(container.removeIf(x -> x < 0));
+        assertEquals(172, container.size());
+        container.trimToSize();
+        assertEquals(32 + 192, container.memoryFootprint());
+    }
+}
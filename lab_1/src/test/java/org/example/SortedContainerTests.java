@@ -0,0 +1,64 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedContainerTests {
+    @Test
+    void testAddKeepsOrder() {
+        SortedContainer container = new SortedContainer();
+        container.add(5);
+        container.add(1);
+        container.add(3);
+        container.add(3);
+        assertEquals(4, container.size());
+        assertEquals("[1, 3, 3, 5]", container.toString());
+        assertEquals(1, container.get(0));
+        assertEquals(5, container.get(3));
+    }
+
+    @Test
+    void testManyBatches() {
+        SortedContainer container = new SortedContainer();
+        int[] values = new Random(11).ints(50_000, -1000, 1000).toArray();
+        for (int i = 0; i < values.length; i++) {
+            container.add(values[i]);
+            if (i % 9973 == 0) {
+                assertTrue(container.contains(values[i]));
+            }
+        }
+        Arrays.sort(values);
+        assertArrayEquals(values, container.stream().toArray());
+    }
+
+    @Test
+    void testAddAll() {
+        SortedContainer container = new SortedContainer(2, GrowthPolicy.increment(4));
+        container.add(10);
+        container.addAll(new int[]{7, 12, 1});
+        container.add(8);
+        assertEquals("[1, 7, 8, 10, 12]", container.toString());
+    }
+
+    @Test
+    void testSearchAndRemove() {
+        SortedContainer container = new SortedContainer();
+        container.addAll(new int[]{4, 2, 2, 9});
+        assertEquals(0, container.indexOf(2));
+        assertEquals(2, container.indexOf(4));
+        assertEquals(-1, container.indexOf(3));
+        assertTrue(container.removeValue(2));
+        assertEquals("[2, 4, 9]", container.toString());
+        assertFalse(container.removeValue(5));
+        container.remove(0);
+        assertEquals("[4, 9]", container.view().toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> container.get(2));
+        container.add(1);
+        container.clear();
+        assertTrue(container.isEmpty());
+    }
+}
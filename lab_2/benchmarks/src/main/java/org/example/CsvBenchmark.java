@@ -0,0 +1,54 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Потоковое вычисление формулы по CSV из памяти: разбор чисел, пакетное вычисление
+ * и запись результата. Результат — время на одну строку данных.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+    private static final int ROWS = 100_000;
+
+    private byte[] csv;
+    private final CsvEvaluator evaluator = new CsvEvaluator(new Calculator(), "price * qty - discount");
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder("id,qty,discount,price\n");
+        for (int i = 0; i < ROWS; i++) {
+            text.append(i).append(',').append(random.nextInt(100)).append(',')
+                    .append(random.nextInt(1000) / 100.0).append(',').append(random.nextInt(100000) / 100.0).append('\n');
+        }
+        csv = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public StreamStats evaluate() throws IOException {
+        return evaluator.evaluate(new ByteArrayInputStream(csv), OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вычисление одной точки разными путями: через текст и карту переменных
+ * ({@link Calculator#evaluate(String, Map)}), интерпретатором по слотам
+ * и сгенерированным байткодом, а также пакетное вычисление.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluateBenchmark {
+    private static final int BATCH_ROWS = 4096;
+
+    @Param({"SHORT", "LONG", "MANY_VARIABLES", "DEEP", "FUNCTIONS"})
+    public Formulas shape;
+
+    private final Calculator calculator = Calculator.builder().parallelism(1).build();
+    private String formula;
+    private Map<String, Double> variables;
+    private double[] slots;
+    private CompiledExpression interpreted;
+    private CompiledExpression generated;
+    private double[][] columns;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        formula = shape.build();
+        String[] names = shape.variableNames();
+        slots = shape.slotValues();
+        variables = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            variables.put(names[i], slots[i]);
+        }
+        interpreted = calculator.compile(formula, names);
+        generated = interpreted.withBackend(Backend.BYTECODE);
+        columns = new double[names.length][BATCH_ROWS];
+        for (int i = 0; i < names.length; i++) {
+            for (int row = 0; row < BATCH_ROWS; row++) {
+                columns[i][row] = slots[i] + row * 1e-4;
+            }
+        }
+        out = new double[BATCH_ROWS];
+    }
+
+    @Benchmark
+    public double evaluateText() {
+        return calculator.evaluate(formula, variables);
+    }
+
+    @Benchmark
+    public double evaluateInterpreter() {
+        return interpreted.evaluate(slots);
+    }
+
+    @Benchmark
+    public double evaluateBytecode() {
+        return generated.evaluate(slots);
+    }
+
+    /** Время на весь блок из {@value #BATCH_ROWS} строк. */
+    @Benchmark
+    public double[] evaluateBatch() {
+        calculator.evaluateBatch(interpreted, columns, out);
+        return out;
+    }
+}
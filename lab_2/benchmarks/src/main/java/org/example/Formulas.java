@@ -0,0 +1,92 @@
+package org.example;
+
+/**
+ * Формулы разной формы, на которых измеряется калькулятор.
+ */
+public enum Formulas {
+    /** Короткое выражение с одной переменной. */
+    SHORT(1) {
+        @Override
+        String build() {
+            return "(2 + x0) * 4 - 5";
+        }
+    },
+    /** Длинная сумма из сотни слагаемых. */
+    LONG(4) {
+        @Override
+        String build() {
+            StringBuilder text = new StringBuilder("0");
+            for (int i = 0; i < 100; i++) {
+                text.append(" + x").append(i % 4).append(" * ").append(i + 1).append(".5");
+            }
+            return text.toString();
+        }
+    },
+    /** Много переменных. */
+    MANY_VARIABLES(32) {
+        @Override
+        String build() {
+            StringBuilder text = new StringBuilder("x0");
+            for (int i = 1; i < 32; i++) {
+                text.append(i % 2 == 0 ? " + " : " * ").append('x').append(i);
+            }
+            return text.toString();
+        }
+    },
+    /** Глубокая вложенность скобок. */
+    DEEP(1) {
+        @Override
+        String build() {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 64; i++) {
+                text.append("(x0 + ");
+            }
+            text.append('1');
+            for (int i = 0; i < 64; i++) {
+                text.append(") * 0.5");
+            }
+            return text.toString();
+        }
+    },
+    /** Много вызовов функций. */
+    FUNCTIONS(2) {
+        @Override
+        String build() {
+            return "sin(x0) * cos(x1) + sqrt(abs(x0 - x1)) - ln(abs(x0) + 1) / log10(abs(x1) + 10)"
+                    + " + pow(abs(x0), 1.5) - tan(x1 / 4) + log2(x0 * x0 + 1)";
+        }
+    };
+
+    private final int variables;
+
+    Formulas(int variables) {
+        this.variables = variables;
+    }
+
+    /**
+     * Возвращает текст формулы с переменными {@code x0 .. x(n-1)}.
+     */
+    abstract String build();
+
+    /**
+     * Возвращает значения переменных в порядке слотов.
+     */
+    double[] slotValues() {
+        double[] values = new double[variables];
+        for (int i = 0; i < variables; i++) {
+            values[i] = 0.5 + i * 0.25;
+        }
+        return values;
+    }
+
+    /**
+     * Возвращает имена переменных в порядке слотов.
+     */
+    String[] variableNames() {
+        String[] names = new String[variables];
+        for (int i = 0; i < variables; i++) {
+            names[i] = "x" + i;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор и компиляция выражений: промах кэша (полный разбор и оптимизация),
+ * попадание в кэш и отказ на некорректном вводе.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({"SHORT", "LONG", "MANY_VARIABLES", "DEEP", "FUNCTIONS"})
+    public Formulas shape;
+
+    private String formula;
+    private String malformed;
+    private final Calculator uncached = new Calculator(0);
+    private final Calculator cached = new Calculator();
+
+    @Setup
+    public void setUp() {
+        formula = shape.build();
+        malformed = formula.substring(0, formula.length() - 1) + "* )";
+        cached.compile(formula);
+    }
+
+    @Benchmark
+    public CompiledExpression compileCacheMiss() {
+        return uncached.compile(formula);
+    }
+
+    @Benchmark
+    public CompiledExpression compileCacheHit() {
+        return cached.compile(formula);
+    }
+
+    @Benchmark
+    public ParseResult tryCompileMalformed() {
+        return uncached.tryCompile(malformed);
+    }
+}
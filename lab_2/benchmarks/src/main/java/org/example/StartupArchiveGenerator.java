@@ -0,0 +1,30 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строит архив формул для {@link StartupBenchmark} в отдельном процессе,
+ * чтобы измеряемая JVM не выполняла разбор текста до замера.
+ */
+public final class StartupArchiveGenerator {
+    private StartupArchiveGenerator() {
+    }
+
+    /**
+     * Компилирует формулы бенчмарка и записывает их в архив.
+     *
+     * @param args путь к файлу архива
+     * @throws IOException если архив не удалось записать
+     */
+    public static void main(String[] args) throws IOException {
+        Calculator calculator = new Calculator(0);
+        List<CompiledExpression> compiled = new ArrayList<>(StartupBenchmark.FORMULAS);
+        for (int i = 0; i < StartupBenchmark.FORMULAS; i++) {
+            compiled.add(calculator.compile(StartupBenchmark.formula(i)));
+        }
+        ExpressionArchive.write(compiled, Paths.get(args[0]));
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время запуска: получение 50 000 готовых к вычислению формул разбором текста
+ * и загрузкой из архива {@link ExpressionArchive}. Каждая итерация выполняется
+ * в новой JVM без прогрева, как при старте рабочего процесса.
+ * <p>
+ * Архив строит отдельный процесс ({@link StartupArchiveGenerator}), чтобы
+ * подготовка не выполняла разбор текста в измеряемой JVM и не прогревала его.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    static final int FORMULAS = 50_000;
+
+    private final List<String> texts = new ArrayList<>(FORMULAS);
+    private Path archive;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        for (int i = 0; i < FORMULAS; i++) {
+            texts.add(formula(i));
+        }
+        archive = Files.createTempFile("formulas", ".bin");
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process generator = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                StartupArchiveGenerator.class.getName(), archive.toString())
+                .inheritIO()
+                .start();
+        if (generator.waitFor() != 0) {
+            throw new IllegalStateException("Не удалось построить архив: код " + generator.exitValue());
+        }
+    }
+
+    /**
+     * Возвращает текст формулы с указанным номером.
+     *
+     * @param i номер формулы
+     * @return текст формулы
+     */
+    static String formula(int i) {
+        return "pow(x, 2) * " + i + " + sin(y) / (abs(x) + " + (i % 97 + 1) + ") - ln(abs(y) + " + i + ")";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(archive);
+    }
+
+    @Benchmark
+    public List<CompiledExpression> compileFromText() {
+        Calculator calculator = new Calculator(0);
+        List<CompiledExpression> compiled = new ArrayList<>(FORMULAS);
+        for (String text : texts) {
+            compiled.add(calculator.compile(text));
+        }
+        return compiled;
+    }
+
+    @Benchmark
+    public List<CompiledExpression> loadFromArchive() throws IOException {
+        return ExpressionArchive.read(new Calculator(0), archive);
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность калькулятора, разделяемого несколькими потоками.
+ * Набор выражений больше кэша, поэтому одновременно происходят попадания,
+ * промахи и вытеснения. Число потоков меняется параметром JMH {@code -t}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+    private static final int EXPRESSIONS = 256;
+
+    private final Calculator calculator = Calculator.builder().cacheSize(EXPRESSIONS / 2).build();
+    private final String[] expressions = new String[EXPRESSIONS];
+    private final Map<String, Double> variables = Collections.singletonMap("x", 1.5);
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            expressions[i] = "pow(x, 2) * " + i + " + sin(x) / (abs(x) + " + (i + 1) + ")";
+        }
+    }
+
+    /** Часто используемые выражения: почти всегда попадание в кэш. */
+    @Benchmark
+    public double sharedHotExpression() {
+        return calculator.evaluate(expressions[ThreadLocalRandom.current().nextInt(8)], variables);
+    }
+
+    /** Равномерный выбор из набора, вдвое большего кэша. */
+    @Benchmark
+    public double sharedMixedExpressions() {
+        return calculator.evaluate(expressions[ThreadLocalRandom.current().nextInt(EXPRESSIONS)], variables);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * Способ вычисления скомпилированного выражения.
+ */
+public enum Backend {
+    /** Интерпретация программы выражения. */
+    INTERPRETER,
+    /** Вычисление сгенерированным для выражения классом. */
+    BYTECODE
+}
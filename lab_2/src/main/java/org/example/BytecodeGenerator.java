@@ -0,0 +1,455 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор байткода для скомпилированных выражений.
+ * <p>
+ * Для каждого выражения создается класс, реализующий {@link ExpressionFunction}.
+ * Каждой инструкции программы соответствует локальная переменная типа {@code double},
+ * операции выполняются непосредственно командами JVM или вызовами статических методов
+ * {@link OpCode} и {@link Math}, поэтому JIT-компилятор может встроить формулу целиком.
+ * Пользовательские функции вызываются через поля сгенерированного класса с точным
+ * интерфейсным типом; у каждого выражения свои места вызова, поэтому они остаются
+ * мономорфными и тоже встраиваются.
+ * Сгенерированный код не содержит ветвлений, так что таблица фреймов стека не нужна.
+ * </p>
+ * <p>
+ * На JVM 15+ класс определяется как скрытый и выгружается вместе с последней
+ * ссылкой на функцию; на более старых версиях используется обычный
+ * {@link MethodHandles.Lookup#defineClass(byte[])}.
+ * </p>
+ */
+final class BytecodeGenerator {
+    /** Предельная длина кода метода в байтах по спецификации JVM. */
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    private static final String CLASS_PREFIX = "org/example/GeneratedExpression";
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private BytecodeGenerator() {
+    }
+
+    /**
+     * Генерирует функцию для программы выражения.
+     *
+     * @param program программа выражения
+     * @return сгенерированная функция или null, если программа не может быть
+     *         представлена одним методом JVM либо класс не удалось загрузить
+     */
+    static ExpressionFunction generate(Program program) {
+        if (3 + 2L * program.length() > 0xFFFF) {
+            return null;
+        }
+        try {
+            byte[] classFile = new ClassFile(CLASS_PREFIX + COUNTER.incrementAndGet(), program).write();
+            if (classFile == null) {
+                return null;
+            }
+            Object[] implementations = new Object[program.functions.length];
+            for (int j = 0; j < implementations.length; j++) {
+                implementations[j] = implementation(program.functions[j]);
+            }
+            Class<?> generated = define(classFile);
+            return (ExpressionFunction) generated.getDeclaredConstructor(Object[].class)
+                    .newInstance((Object) implementations);
+        } catch (ReflectiveOperationException | LinkageError | IOException e) {
+            return null;
+        }
+    }
+
+    private static Object implementation(MathFunction function) {
+        switch (function.getKind()) {
+            case UNARY: return function.unary;
+            case BINARY: return function.binary;
+            default: return function.variadic;
+        }
+    }
+
+    private static String interfaceName(MathFunction function) {
+        switch (function.getKind()) {
+            case UNARY: return "java/util/function/DoubleUnaryOperator";
+            case BINARY: return "java/util/function/DoubleBinaryOperator";
+            default: return "org/example/VariadicFunction";
+        }
+    }
+
+    /**
+     * Загружает класс в пакет {@code org.example}.
+     */
+    private static Class<?> define(byte[] classFile) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            Object noOptions = Array.newInstance(option, 0);
+            Method defineHidden = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, noOptions.getClass());
+            Object hidden = defineHidden.invoke(lookup, classFile, true, noOptions);
+            return (Class<?>) MethodHandles.Lookup.class.getMethod("lookupClass").invoke(hidden);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return lookup.defineClass(classFile);
+        }
+    }
+
+    /**
+     * Минимальный формирователь class-файла с одним методом {@code applyAsDouble}.
+     * Реализации пользовательских функций хранятся в финальных полях {@code f0, f1, ...}
+     * с точным интерфейсным типом и передаются в конструктор массивом.
+     */
+    private static final class ClassFile {
+        private final String className;
+        private final Program program;
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final Map<String, Integer> poolIndex = new HashMap<>();
+        private int poolCount = 1;
+
+        ClassFile(String className, Program program) {
+            this.className = className;
+            this.program = program;
+        }
+
+        byte[] write() throws IOException {
+            int thisClass = classRef(className);
+            int superClass = classRef("java/lang/Object");
+            int iface = classRef("org/example/ExpressionFunction");
+            int init = utf8("<init>");
+            int initDescriptor = utf8("([Ljava/lang/Object;)V");
+            int apply = utf8("applyAsDouble");
+            int applyDescriptor = utf8("([D)D");
+            int codeAttribute = utf8("Code");
+
+            byte[] initCode = initCode();
+            byte[] code = applyCode();
+            if (code == null || poolCount > 0xFFFF) {
+                return null;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(iface);
+
+            out.writeShort(program.functions.length);
+            for (int j = 0; j < program.functions.length; j++) {
+                out.writeShort(ACC_PRIVATE | ACC_FINAL);
+                out.writeShort(utf8("f" + j));
+                out.writeShort(utf8("L" + interfaceName(program.functions[j]) + ";"));
+                out.writeShort(0);
+            }
+
+            out.writeShort(2);
+            // public <init>(Object[] functions)
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(init);
+            out.writeShort(initDescriptor);
+            out.writeShort(1);
+            writeCode(out, codeAttribute, 3, 2, initCode);
+            // public double applyAsDouble(double[] slots)
+            out.writeShort(ACC_PUBLIC | ACC_FINAL);
+            out.writeShort(apply);
+            out.writeShort(applyDescriptor);
+            out.writeShort(1);
+            writeCode(out, codeAttribute, 5, scratchLocal() + 1, code);
+
+            out.writeShort(0);
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Код конструктора: вызов конструктора Object и заполнение полей функций.
+         */
+        private byte[] initCode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            code.writeByte(0x2A); // aload_0
+            code.writeByte(0xB7); // invokespecial
+            code.writeShort(methodRef("java/lang/Object", "<init>", "()V"));
+            for (int j = 0; j < program.functions.length; j++) {
+                String type = interfaceName(program.functions[j]);
+                code.writeByte(0x2A); // aload_0
+                code.writeByte(0x2B); // aload_1
+                pushInt(code, j);
+                code.writeByte(0x32); // aaload
+                code.writeByte(0xC0); // checkcast
+                code.writeShort(classRef(type));
+                code.writeByte(0xB5); // putfield
+                code.writeShort(fieldRef(j));
+            }
+            code.writeByte(0xB1); // return
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Номер локальной переменной с массивом аргументов функций переменного числа аргументов.
+         */
+        private int scratchLocal() {
+            return 2 + 2 * program.length();
+        }
+
+        private byte[] applyCode() throws IOException {
+            int[] opcodes = program.opcodes;
+            int[] arg0 = program.arg0;
+            int[] arg1 = program.arg1;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            if (program.maxCallArity > 0) {
+                pushInt(code, program.maxCallArity);
+                code.writeByte(0xBC); // newarray
+                code.writeByte(7); // T_DOUBLE
+                localInstruction(code, 0x3A, scratchLocal()); // astore
+            }
+            for (int i = 0; i < opcodes.length; i++) {
+                int op = opcodes[i];
+                switch (op) {
+                    case OpCode.CONST:
+                        code.writeByte(0x14); // ldc2_w
+                        code.writeShort(doubleConstant(program.constants[arg0[i]]));
+                        break;
+                    case OpCode.VAR:
+                        code.writeByte(0x2B); // aload_1
+                        pushInt(code, arg0[i]);
+                        code.writeByte(0x31); // daload
+                        break;
+                    case OpCode.NEG:
+                        load(code, arg0[i]);
+                        code.writeByte(0x77); // dneg
+                        break;
+                    case OpCode.ADD:
+                    case OpCode.SUB:
+                    case OpCode.MUL:
+                        load(code, arg0[i]);
+                        load(code, arg1[i]);
+                        code.writeByte(op == OpCode.ADD ? 0x63 : op == OpCode.SUB ? 0x67 : 0x6B);
+                        break;
+                    case OpCode.DIV:
+                        binaryCall(code, arg0[i], arg1[i], "org/example/OpCode", "div");
+                        break;
+                    case OpCode.POW:
+                        binaryCall(code, arg0[i], arg1[i], "java/lang/Math", "pow");
+                        break;
+                    case OpCode.CALL:
+                        call(code, i);
+                        break;
+                    default:
+                        String owner = "java/lang/Math";
+                        String name;
+                        switch (op) {
+                            case OpCode.SQRT: owner = "org/example/OpCode"; name = "sqrt"; break;
+                            case OpCode.LN: owner = "org/example/OpCode"; name = "ln"; break;
+                            case OpCode.LOG10: owner = "org/example/OpCode"; name = "log10"; break;
+                            case OpCode.LOG2: owner = "org/example/OpCode"; name = "log2"; break;
+                            case OpCode.SIN: name = "sin"; break;
+                            case OpCode.COS: name = "cos"; break;
+                            case OpCode.TAN: name = "tan"; break;
+                            case OpCode.ABS: name = "abs"; break;
+                            default: return null;
+                        }
+                        load(code, arg0[i]);
+                        code.writeByte(0xB8); // invokestatic
+                        code.writeShort(methodRef(owner, name, "(D)D"));
+                }
+                store(code, i);
+            }
+            load(code, opcodes.length - 1);
+            code.writeByte(0xAF); // dreturn
+            return bytes.size() <= MAX_CODE_LENGTH ? bytes.toByteArray() : null;
+        }
+
+        /**
+         * Вызов пользовательской функции через поле с ее реализацией.
+         */
+        private void call(DataOutputStream code, int i) throws IOException {
+            int j = program.arg0[i];
+            MathFunction function = program.functions[j];
+            String type = interfaceName(function);
+            int count = program.operandCount(i);
+            if (function.getKind() == MathFunction.Kind.VARIADIC) {
+                for (int k = 0; k < count; k++) {
+                    localInstruction(code, 0x19, scratchLocal()); // aload
+                    pushInt(code, k);
+                    load(code, program.operand(i, k));
+                    code.writeByte(0x52); // dastore
+                }
+            }
+            code.writeByte(0x2A); // aload_0
+            code.writeByte(0xB4); // getfield
+            code.writeShort(fieldRef(j));
+            int argumentSlots;
+            String descriptor;
+            if (function.getKind() == MathFunction.Kind.VARIADIC) {
+                localInstruction(code, 0x19, scratchLocal()); // aload
+                pushInt(code, count);
+                argumentSlots = 3;
+                descriptor = "([DI)D";
+            } else {
+                for (int k = 0; k < count; k++) {
+                    load(code, program.operand(i, k));
+                }
+                argumentSlots = 1 + 2 * count;
+                descriptor = count == 1 ? "(D)D" : "(DD)D";
+            }
+            code.writeByte(0xB9); // invokeinterface
+            code.writeShort(interfaceMethodRef(type,
+                    function.getKind() == MathFunction.Kind.VARIADIC ? "apply" : "applyAsDouble", descriptor));
+            code.writeByte(argumentSlots);
+            code.writeByte(0);
+        }
+
+        private void binaryCall(DataOutputStream code, int left, int right, String owner, String name)
+                throws IOException {
+            load(code, left);
+            load(code, right);
+            code.writeByte(0xB8); // invokestatic
+            code.writeShort(methodRef(owner, name, "(DD)D"));
+        }
+
+        private void load(DataOutputStream code, int register) throws IOException {
+            localInstruction(code, 0x18, 2 + 2 * register); // dload
+        }
+
+        private void store(DataOutputStream code, int register) throws IOException {
+            localInstruction(code, 0x39, 2 + 2 * register); // dstore
+        }
+
+        private static void localInstruction(DataOutputStream code, int opcode, int local) throws IOException {
+            if (local <= 0xFF) {
+                code.writeByte(opcode);
+                code.writeByte(local);
+            } else {
+                code.writeByte(0xC4); // wide
+                code.writeByte(opcode);
+                code.writeShort(local);
+            }
+        }
+
+        private void pushInt(DataOutputStream code, int value) throws IOException {
+            if (value <= 5) {
+                code.writeByte(0x03 + value); // iconst_<n>
+            } else if (value <= Byte.MAX_VALUE) {
+                code.writeByte(0x10); // bipush
+                code.writeByte(value);
+            } else if (value <= Short.MAX_VALUE) {
+                code.writeByte(0x11); // sipush
+                code.writeShort(value);
+            } else {
+                code.writeByte(0x13); // ldc_w
+                code.writeShort(intConstant(value));
+            }
+        }
+
+        private static void writeCode(DataOutputStream out, int codeAttribute, int maxStack, int maxLocals,
+                                      byte[] code) throws IOException {
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        private int utf8(String value) throws IOException {
+            Integer index = poolIndex.get("U" + value);
+            if (index != null) {
+                return index;
+            }
+            poolOut.writeByte(1);
+            poolOut.writeUTF(value);
+            return register("U" + value, 1);
+        }
+
+        private int classRef(String name) throws IOException {
+            Integer index = poolIndex.get("C" + name);
+            if (index != null) {
+                return index;
+            }
+            int nameIndex = utf8(name);
+            poolOut.writeByte(7);
+            poolOut.writeShort(nameIndex);
+            return register("C" + name, 1);
+        }
+
+        private int methodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        private int interfaceMethodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(11, owner, name, descriptor);
+        }
+
+        private int fieldRef(int function) throws IOException {
+            return memberRef(9, className, "f" + function, "L" + interfaceName(program.functions[function]) + ";");
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) throws IOException {
+            String key = "R" + tag + owner + '.' + name + descriptor;
+            Integer index = poolIndex.get(key);
+            if (index != null) {
+                return index;
+            }
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            poolOut.writeByte(12);
+            poolOut.writeShort(nameIndex);
+            poolOut.writeShort(descriptorIndex);
+            int nameAndType = poolCount++;
+            poolOut.writeByte(tag);
+            poolOut.writeShort(ownerIndex);
+            poolOut.writeShort(nameAndType);
+            return register(key, 1);
+        }
+
+        private int doubleConstant(double value) throws IOException {
+            String key = "D" + Double.doubleToRawLongBits(value);
+            Integer index = poolIndex.get(key);
+            if (index != null) {
+                return index;
+            }
+            poolOut.writeByte(6);
+            poolOut.writeDouble(value);
+            return register(key, 2);
+        }
+
+        private int intConstant(int value) throws IOException {
+            String key = "I" + value;
+            Integer index = poolIndex.get(key);
+            if (index != null) {
+                return index;
+            }
+            poolOut.writeByte(3);
+            poolOut.writeInt(value);
+            return register(key, 1);
+        }
+
+        private int register(String key, int slots) {
+            int index = poolCount;
+            poolIndex.put(key, index);
+            poolCount += slots;
+            return index;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+/**
+ * Снимок статистики кэша скомпилированных выражений.
+ */
+public final class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    /**
+     * Создает снимок статистики.
+     *
+     * @param hits число обращений, найденных в кэше
+     * @param misses число обращений, потребовавших компиляции
+     * @param evictions число вытесненных выражений
+     * @param size текущее число выражений в кэше
+     */
+    CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Возвращает число обращений, найденных в кэше.
+     *
+     * @return число попаданий
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Возвращает число обращений, потребовавших компиляции.
+     *
+     * @return число промахов
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Возвращает число выражений, вытесненных из кэша.
+     *
+     * @return число вытеснений
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Возвращает текущее число выражений в кэше.
+     *
+     * @return размер кэша
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Возвращает долю попаданий среди всех обращений.
+     *
+     * @return доля попаданий от 0 до 1, либо 0, если обращений не было
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * Возвращает строковое представление статистики.
+     *
+     * @return строковое представление статистики
+     */
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", size=" + size + "}";
+    }
+}
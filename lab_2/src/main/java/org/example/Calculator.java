@@ -1,37 +1,103 @@
 package org.example;
 
+import java.math.RoundingMode;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.*;
 
 /**
  * Калькулятор математических выражений с поддержкой переменных и функций.
  * Поддерживает основные арифметические операции, тригонометрические функции,
  * логарифмы и другие математические операции.
+ * <p>
+ * Калькулятор неизменяем после создания и безопасен для одновременного использования
+ * из нескольких потоков: набор функций фиксируется при построении, а кэш
+ * скомпилированных выражений не использует блокировок. Скомпилированные выражения
+ * также неизменяемы и могут вычисляться параллельно.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * Calculator calculator = Calculator.builder().cacheSize(1024).build();
+ * }</pre>
+ * </p>
  */
 public class Calculator {
-    private final Map<String, Function<double[], Double>> functions = new HashMap<>();
+    /**
+     * Размер кэша скомпилированных выражений по умолчанию.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 512;
+
+    /**
+     * Число строк, вычисляемых одной параллельной задачей пакетного вычисления, по умолчанию.
+     */
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = 1 << 16;
+
+    static final Map<String, MathFunction> BUILTIN_FUNCTIONS = initializeFunctions();
+
+    private final Map<String, MathFunction> functions;
+    private final ExpressionCache cache;
+    private final ForkJoinPool pool;
+    private final int batchChunkSize;
 
     /**
      * Конструктор калькулятора. Инициализирует встроенные математические функции.
      */
     public Calculator() {
-        initializeFunctions();
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Создает калькулятор с кэшем скомпилированных выражений указанного размера.
+     *
+     * @param cacheSize максимальное число выражений в кэше; 0 отключает кэширование
+     * @throws IllegalArgumentException если размер кэша отрицательный
+     */
+    public Calculator(int cacheSize) {
+        this(cacheSize, BUILTIN_FUNCTIONS, ForkJoinPool.commonPool(), DEFAULT_BATCH_CHUNK_SIZE);
+    }
+
+    /**
+     * Создает калькулятор с заданным набором функций.
+     *
+     * @param cacheSize максимальное число выражений в кэше
+     * @param functions неизменяемая карта функций (имя → описание)
+     * @param pool пул потоков для пакетного вычисления
+     * @param batchChunkSize число строк, вычисляемых одной задачей пакетного вычисления
+     */
+    private Calculator(int cacheSize, Map<String, MathFunction> functions, ForkJoinPool pool, int batchChunkSize) {
+        this.cache = new ExpressionCache(cacheSize);
+        this.functions = functions;
+        this.pool = pool;
+        this.batchChunkSize = batchChunkSize;
+    }
+
+    /**
+     * Создает построитель калькулятора.
+     *
+     * @return новый построитель с настройками по умолчанию
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
      * Инициализирует встроенные математические функции.
+     *
+     * @return неизменяемая карта встроенных функций
      */
-    private void initializeFunctions() {
-        functions.put("sin", args -> Math.sin(args[0]));
-        functions.put("cos", args -> Math.cos(args[0]));
-        functions.put("tan", args -> Math.tan(args[0]));
-        functions.put("sqrt", args -> Math.sqrt(args[0]));
-        functions.put("pow", args -> Math.pow(args[0], args[1]));
-        functions.put("ln", args -> Math.log(args[0]));
-        functions.put("log10", args -> Math.log10(args[0]));
-        functions.put("log2", args -> Math.log(args[0])/Math.log(2));
-        functions.put("abs", args -> Math.abs(args[0]));
+    private static Map<String, MathFunction> initializeFunctions() {
+        Map<String, MathFunction> functions = new HashMap<>();
+        functions.put("sin", MathFunction.unary("sin", Math::sin));
+        functions.put("cos", MathFunction.unary("cos", Math::cos));
+        functions.put("tan", MathFunction.unary("tan", Math::tan));
+        functions.put("sqrt", MathFunction.unary("sqrt", OpCode::sqrt));
+        functions.put("pow", MathFunction.binary("pow", Math::pow));
+        functions.put("ln", MathFunction.unary("ln", OpCode::ln));
+        functions.put("log10", MathFunction.unary("log10", OpCode::log10));
+        functions.put("log2", MathFunction.unary("log2", OpCode::log2));
+        functions.put("abs", MathFunction.unary("abs", Math::abs));
+        return Collections.unmodifiableMap(functions);
     }
 
     /**
@@ -43,18 +109,159 @@ public class Calculator {
      * @throws IllegalArgumentException если выражение содержит ошибки
      */
     public double evaluate(String expression, Map<String, Double> variables) throws IllegalArgumentException {
+        CompiledExpression compiled = compile(expression);
+        try {
+            return compiled.evaluate(variables);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Арифметическая ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Компилирует выражение для многократного вычисления.
+     * Разбор выполняется один раз, последующие вычисления работают только
+     * с готовой программой выражения. Результаты компиляции кэшируются по тексту
+     * выражения без пробелов, поэтому повторные вызовы с тем же текстом не выполняют
+     * разбор.
+     *
+     * @param expression строка с математическим выражением
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение пустое или содержит синтаксические ошибки
+     */
+    public CompiledExpression compile(String expression) {
+        String processedExpr = preprocessExpression(expression);
+        try {
+            return cache.get(processedExpr, expr -> ExpressionParser.compile(expr, functions));
+        } catch (ExpressionSyntaxException e) {
+            throw e.withPosition(originalPosition(expression, e.getPosition()));
+        }
+    }
+
+    /**
+     * Компилирует выражение, не выбрасывая исключений при синтаксических ошибках.
+     * Результат компиляции кэшируется так же, как в {@link #compile(String)}.
+     * Ошибка сообщается описанием и номером столбца в исходном тексте; на этом пути
+     * не создаются исключения с трассировкой стека, поэтому метод подходит для
+     * проверки большого потока пользовательского ввода.
+     *
+     * @param expression строка с математическим выражением
+     * @return скомпилированное выражение или описание синтаксической ошибки
+     */
+    public ParseResult tryCompile(String expression) {
+        String processedExpr = stripWhitespace(expression);
+        if (processedExpr.isEmpty()) {
+            return ParseResult.failure("Пустое выражение", 1);
+        }
+        try {
+            return ParseResult.success(cache.get(processedExpr, expr -> ExpressionParser.compile(expr, functions)));
+        } catch (ExpressionSyntaxException e) {
+            return ParseResult.failure(e.getReason(), originalPosition(expression, e.getPosition()) + 1);
+        }
+    }
+
+    /**
+     * Компилирует выражение с указанным способом вычисления.
+     *
+     * @param expression строка с математическим выражением
+     * @param backend способ вычисления; при невозможности сгенерировать байткод
+     *                используется интерпретатор
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение пустое или содержит синтаксические ошибки
+     */
+    public CompiledExpression compile(String expression, Backend backend) {
+        return compile(expression).withBackend(backend);
+    }
+
+    /**
+     * Компилирует выражение, закрепляя за переменными слоты в заданном порядке.
+     * Значения переменных затем передаются в {@link CompiledExpression#evaluate(double...)}
+     * массивом в том же порядке. Переменные выражения, не указанные в списке,
+     * получают следующие слоты в порядке появления.
+     *
+     * @param expression строка с математическим выражением
+     * @param variableOrder имена переменных в порядке слотов
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение содержит ошибки
+     *         или переменная указана дважды
+     */
+    public CompiledExpression compile(String expression, String... variableOrder) {
+        String processedExpr = preprocessExpression(expression);
+        try {
+            return ExpressionParser.compile(processedExpr, functions, variableOrder);
+        } catch (ExpressionSyntaxException e) {
+            throw e.withPosition(originalPosition(expression, e.getPosition()));
+        }
+    }
+
+    /**
+     * Компилирует выражение для вычисления в целых числах {@code long} с проверкой переполнения.
+     * Деление округляет частное до целого по правилу {@link RoundingMode#HALF_UP}.
+     *
+     * @param expression строка с математическим выражением
+     * @param variableOrder имена переменных в порядке слотов
+     * @return выражение в целочисленной арифметике
+     * @throws IllegalArgumentException если выражение содержит ошибки, использует функции,
+     *         недоступные в целых числах, или нецелые константы
+     * @see FixedPointExpression
+     */
+    public FixedPointExpression compileLong(String expression, String... variableOrder) {
+        return compileFixedPoint(expression, 0, RoundingMode.HALF_UP, variableOrder);
+    }
+
+    /**
+     * Компилирует выражение для вычисления в десятичных числах с фиксированной точкой.
+     *
+     * @param expression строка с математическим выражением
+     * @param scale число знаков после запятой, от 0 до 18
+     * @param rounding способ округления результатов умножения и деления
+     * @param variableOrder имена переменных в порядке слотов
+     * @return выражение в арифметике с фиксированной точкой
+     * @throws IllegalArgumentException если выражение содержит ошибки, использует функции,
+     *         недоступные в этой арифметике, или константы с большим числом знаков после запятой
+     * @see FixedPointExpression
+     */
+    public FixedPointExpression compileFixedPoint(String expression, int scale, RoundingMode rounding,
+                                                  String... variableOrder) {
         String processedExpr = preprocessExpression(expression);
-        return evaluateExpression(processedExpr, variables);
+        CompiledExpression parsed;
+        try {
+            parsed = ExpressionParser.parse(processedExpr, functions, variableOrder);
+        } catch (ExpressionSyntaxException e) {
+            throw e.withPosition(originalPosition(expression, e.getPosition()));
+        }
+        return FixedPointExpression.compile(parsed, scale, rounding);
+    }
+
+    /**
+     * Вычисляет скомпилированное выражение для таблицы значений, заданной по столбцам.
+     * Выражение выполняется поинструкционно сразу для блоков строк, а не построчно.
+     * Таблицы длиннее размера части (см. {@link Builder#batchChunkSize(int)})
+     * вычисляются параллельно в пуле потоков калькулятора.
+     *
+     * @param expression скомпилированное выражение
+     * @param columns значения переменных по столбцам в порядке слотов выражения
+     * @param out массив результатов; его длина задает число строк
+     * @throws IllegalArgumentException если столбцы не соответствуют выражению
+     *         или при ошибке вычисления в какой-либо строке
+     */
+    public void evaluateBatch(CompiledExpression expression, double[][] columns, double[] out) {
+        try {
+            expression.evaluateBatch(columns, out, pool, batchChunkSize);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Арифметическая ошибка: " + e.getMessage());
+        }
     }
 
     /**
      * Находит все переменные в выражении (имена, не являющиеся функциями).
+     * Порядок обхода множества совпадает с порядком слотов, которые получают
+     * переменные при компиляции выражения.
      *
      * @param expression строка с математическим выражением
-     * @return множество имен переменных
+     * @return множество имен переменных в порядке первого появления
      */
     public Set<String> findVariables(String expression) {
-        Set<String> vars = new HashSet<>();
+        Set<String> vars = new LinkedHashSet<>();
         Pattern pattern = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
         Matcher matcher = pattern.matcher(expression);
 
@@ -75,7 +282,7 @@ public class Calculator {
      * @throws IllegalArgumentException если выражение пустое
      */
     private String preprocessExpression(String expr) {
-        String processed = expr.replaceAll("\\s+", "");
+        String processed = stripWhitespace(expr);
         if (processed.isEmpty()) {
             throw new IllegalArgumentException("Пустое выражение");
         }
@@ -83,192 +290,165 @@ public class Calculator {
     }
 
     /**
-     * Вычисляет значение предварительно обработанного выражения.
+     * Удаляет пробельные символы. Строка без пробелов возвращается без копирования.
      *
-     * @param expr обработанное выражение
-     * @param variables карта переменных (имя → значение)
-     * @return результат вычисления
-     * @throws IllegalArgumentException при ошибках вычисления или синтаксических ошибках
+     * @param expr исходное выражение
+     * @return выражение без пробельных символов
      */
-    private double evaluateExpression(String expr, Map<String, Double> variables) {
-        try {
-            String exprWithValues = substituteVariables(expr, variables);
-            return parseExpression(exprWithValues);
-        } catch (ArithmeticException e) {
-            throw new IllegalArgumentException("Арифметическая ошибка: " + e.getMessage());
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Ошибка вычисления выражения: " + e.getMessage());
+    private static String stripWhitespace(String expr) {
+        int length = expr.length();
+        int first = 0;
+        while (first < length && !Character.isWhitespace(expr.charAt(first))) first++;
+        if (first == length) {
+            return expr;
         }
+        StringBuilder processed = new StringBuilder(length).append(expr, 0, first);
+        for (int i = first + 1; i < length; i++) {
+            char c = expr.charAt(i);
+            if (!Character.isWhitespace(c)) processed.append(c);
+        }
+        return processed.toString();
     }
 
     /**
-     * Рекурсивный парсер математических выражений.
+     * Переводит позицию в тексте без пробелов в позицию в исходном тексте.
      *
-     * @param expr выражение для разбора
-     * @return результат вычисления
+     * @param expr исходное выражение
+     * @param position позиция в выражении без пробельных символов
+     * @return позиция того же символа в исходном выражении
      */
-    private double parseExpression(String expr) {
-        return new Object() {
-            int pos = -1, ch;
-
-            /**
-             * Переход к следующему символу выражения.
-             */
-            void nextChar() {
-                ch = (++pos < expr.length()) ? expr.charAt(pos) : -1;
-            }
-
-            /**
-             * Пропускает пробелы и проверяет текущий символ.
-             *
-             * @param charToEat символ для проверки
-             * @return true если символ совпадает
-             */
-            boolean eat(int charToEat) {
-                while (ch == ' ') nextChar();
-                if (ch == charToEat) {
-                    nextChar();
-                    return true;
-                }
-                return false;
-            }
-
-            /**
-             * Начинает разбор выражения.
-             */
-            double parse() {
-                nextChar();
-                double x = parseExpression();
-                if (pos < expr.length()) throw new RuntimeException("Неожиданный символ: " + (char)ch);
-                return x;
-            }
-
-            /**
-             * Обрабатывает операции сложения и вычитания.
-             */
-            double parseExpression() {
-                double x = parseTerm();
-                for (;;) {
-                    if      (eat('+')) x += parseTerm();
-                    else if (eat('-')) x -= parseTerm();
-                    else return x;
-                }
-            }
-
-            /**
-             * Обрабатывает операции умножения и деления.
-             */
-            double parseTerm() {
-                double x = parseFactor();
-                for (;;) {
-                    if (eat('*')) {
-                        x *= parseFactor();
-                    } else if (eat('/')) {
-                        double divisor = parseFactor();
-                        if (divisor == 0) {
-                            throw new ArithmeticException("Деление на ноль");
-                        }
-                        x /= divisor;
-                    } else {
-                        return x;
-                    }
-                }
-            }
-
-            /**
-             * Обрабатывает числа, скобки, функции и унарные операторы.
-             */
-            private double parseFactor() {
-                if (eat('+')) return parseFactor();
-                if (eat('-')) return -parseFactor();
-
-                double x;
-                int startPos = this.pos;
-                if (eat('(')) {
-                    x = parseExpression();
-                    if (!eat(')')) throw new RuntimeException("Не хватает закрывающей скобки");
-                } else if ((ch >= '0' && ch <= '9') || ch == '.') {
-                    while ((ch >= '0' && ch <= '9') || ch == '.') nextChar();
-                    x = Double.parseDouble(expr.substring(startPos, this.pos));
-                } else if (ch >= 'a' && ch <= 'z') {
-                    // Считываем имя функции (может содержать цифры, например "log10")
-                    while ((ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9')) nextChar();
-                    String func = expr.substring(startPos, this.pos);
-
-                    // Проверяем наличие открывающей скобки
-                    if (!eat('(')) {
-                        throw new RuntimeException("Не хватает открывающей скобки после функции " + func);
-                    }
-
-                    // Обрабатываем аргументы функции
-                    if (func.equals("pow")) {
-                        // Для pow ожидаем два аргумента
-                        x = parseExpression();
-                        if (!eat(',')) throw new RuntimeException("Ожидается запятая между аргументами функции pow");
-                        double exponent = parseExpression();
-                        if (!eat(')')) throw new RuntimeException("Не хватает закрывающей скобки для функции pow");
-                        return Math.pow(x, exponent);
-                    } else {
-                        // Для остальных функций ожидаем один аргумент
-                        x = parseExpression();
-                        if (!eat(')')) throw new RuntimeException("Не хватает закрывающей скобки после аргумента функции " + func);
-
-                        switch (func) {
-                            case "sqrt":
-                                if (x < 0) throw new IllegalArgumentException("Квадратный корень из отрицательного числа");
-                                return Math.sqrt(x);
-                            case "sin": return Math.sin(x);
-                            case "cos": return Math.cos(x);
-                            case "tan": return Math.tan(x);
-                            case "ln":
-                                if (x <= 0) throw new IllegalArgumentException("Логарифм от неположительного числа");
-                                return Math.log(x);
-                            case "log10":
-                                if (x <= 0) throw new IllegalArgumentException("Логарифм от неположительного числа");
-                                return Math.log10(x);
-                            case "log2":
-                                if (x <= 0) throw new IllegalArgumentException("Логарифм от неположительного числа");
-                                return Math.log(x)/Math.log(2);
-                            case "abs": return Math.abs(x);
-                            default:
-                                throw new RuntimeException("Неизвестная функция: " + func);
-                        }
-                    }
-                } else {
-                    throw new RuntimeException("Неожиданный символ: " + (char)ch);
-                }
-
-                if (eat('^')) {
-                    double exponent = parseFactor();
-                    x = Math.pow(x, exponent);
-                }
-
-                return x;
+    private static int originalPosition(String expr, int position) {
+        int remaining = position;
+        for (int i = 0; i < expr.length(); i++) {
+            if (!Character.isWhitespace(expr.charAt(i)) && remaining-- == 0) {
+                return i;
             }
-        }.parse();
+        }
+        return expr.length();
     }
 
     /**
-     * Заменяет переменные в выражении на их значения.
+     * Возвращает статистику кэша скомпилированных выражений.
      *
-     * @param expr исходное выражение
-     * @param variables карта переменных (имя → значение)
-     * @return выражение с подставленными значениями переменных
+     * @return снимок счетчиков попаданий, промахов и вытеснений
      */
-    private String substituteVariables(String expr, Map<String, Double> variables) {
-        String result = expr;
-        for (Map.Entry<String, Double> entry : variables.entrySet()) {
-            result = result.replaceAll(Pattern.quote(entry.getKey()), entry.getValue().toString());
-        }
-        return result;
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Очищает кэш скомпилированных выражений.
+     */
+    public void clearCache() {
+        cache.clear();
     }
 
     /**
      * Возвращает список доступных функций.
      *
-     * @return множество имен доступных функций
+     * @return неизменяемое множество имен доступных функций
      */
     public Set<String> getFunctionsList() {
         return functions.keySet();
     }
-}
\ No newline at end of file
+
+    /**
+     * Возвращает функцию калькулятора по имени.
+     *
+     * @param name имя функции
+     * @return описание функции или null, если функции с таким именем нет
+     */
+    MathFunction function(String name) {
+        return functions.get(name);
+    }
+
+    /**
+     * Построитель калькулятора. Настройки копируются в калькулятор при вызове
+     * {@link #build()}, поэтому построитель можно повторно использовать и изменять,
+     * не затрагивая уже созданные калькуляторы.
+     */
+    public static final class Builder {
+        private int cacheSize = DEFAULT_CACHE_SIZE;
+        private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        private int batchChunkSize = DEFAULT_BATCH_CHUNK_SIZE;
+        private final Map<String, MathFunction> functions = new HashMap<>(BUILTIN_FUNCTIONS);
+
+        private Builder() {
+        }
+
+        /**
+         * Задает размер кэша скомпилированных выражений.
+         *
+         * @param cacheSize максимальное число выражений в кэше; 0 отключает кэширование
+         * @return этот построитель
+         * @throws IllegalArgumentException если размер кэша отрицательный
+         */
+        public Builder cacheSize(int cacheSize) {
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+            }
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Задает число потоков для пакетного вычисления. По умолчанию используется
+         * общий пул {@link ForkJoinPool#commonPool()}; при другом значении калькулятор
+         * создает собственный пул (его потоки — демоны и завершаются при простое).
+         *
+         * @param parallelism число потоков; 1 означает вычисление в вызывающем потоке
+         * @return этот построитель
+         * @throws IllegalArgumentException если число потоков не положительно
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Задает наибольшее число строк, вычисляемых одной параллельной задачей.
+         * Таблицы не длиннее этого значения вычисляются в вызывающем потоке.
+         *
+         * @param batchChunkSize размер части в строках
+         * @return этот построитель
+         * @throws IllegalArgumentException если размер части не положителен
+         */
+        public Builder batchChunkSize(int batchChunkSize) {
+            if (batchChunkSize <= 0) {
+                throw new IllegalArgumentException("Invalid batch chunk size: " + batchChunkSize);
+            }
+            this.batchChunkSize = batchChunkSize;
+            return this;
+        }
+
+        /**
+         * Регистрирует пользовательскую функцию. Вызовы функции в выражениях связываются
+         * с ее реализацией при компиляции, число аргументов проверяется там же.
+         *
+         * @param function описание функции
+         * @return этот построитель
+         * @throws IllegalArgumentException если функция с таким именем уже есть
+         */
+        public Builder function(MathFunction function) {
+            if (functions.putIfAbsent(function.getName(), function) != null) {
+                throw new IllegalArgumentException("Функция уже определена: " + function.getName());
+            }
+            return this;
+        }
+
+        /**
+         * Создает калькулятор с текущими настройками.
+         *
+         * @return новый калькулятор
+         */
+        public Calculator build() {
+            ForkJoinPool pool = parallelism == ForkJoinPool.getCommonPoolParallelism()
+                    ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+            return new Calculator(cacheSize, Collections.unmodifiableMap(new HashMap<>(functions)),
+                    pool, batchChunkSize);
+        }
+    }
+}
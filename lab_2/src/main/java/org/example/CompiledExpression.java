@@ -0,0 +1,581 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Неизменяемое скомпилированное математическое выражение.
+ * <p>
+ * Выражение разбирается один раз и хранится как линейная программа: каждая инструкция
+ * вычисляет значение одного регистра из констант, переменных или регистров предыдущих
+ * инструкций. Результат выражения находится в регистре последней инструкции.
+ * Повторное вычисление не выполняет никакой работы со строками.
+ * </p>
+ * <p>
+ * Переменные при компиляции связываются с целочисленными слотами. Значения можно
+ * передавать массивом {@code double[]} в порядке слотов, тогда вычисление обходится
+ * без упаковки чисел и без поиска по имени.
+ * </p>
+ *
+ * <p>
+ * По умолчанию программа интерпретируется. Метод {@link #withBackend(Backend)} позволяет
+ * выбрать для выражения генерацию байткода ({@link Backend#BYTECODE}); если класс
+ * сгенерировать не удалось, выражение продолжает вычисляться интерпретатором.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * CompiledExpression f = new Calculator().compile("(2 + x) * 4 - 5");
+ * double y = f.evaluate(Map.of("x", 1.0));
+ * double z = f.evaluate(new double[] {1.0});
+ * }</pre>
+ * </p>
+ */
+public final class CompiledExpression {
+    /** Число строк, обрабатываемых за один проход пакетного вычисления. */
+    static final int BATCH_BLOCK = 256;
+
+    private final String source;
+    private final String[] variables;
+    private final Program program;
+    private final ExpressionFunction function;
+
+    /**
+     * Вариант этого выражения, выбранный для {@link Backend#BYTECODE}: выражение
+     * со сгенерированным классом или само выражение, если генерация не удалась.
+     * Запоминается, чтобы повторные вызовы не определяли новые классы.
+     */
+    private volatile CompiledExpression bytecode;
+
+    /**
+     * Создает скомпилированное выражение, вычисляемое интерпретатором.
+     *
+     * @param source исходный текст выражения
+     * @param variables имена переменных по номерам слотов
+     * @param program программа выражения
+     */
+    CompiledExpression(String source, String[] variables, Program program) {
+        this(source, variables, program, null);
+    }
+
+    /**
+     * Создает скомпилированное выражение.
+     *
+     * @param source исходный текст выражения
+     * @param variables имена переменных по номерам слотов
+     * @param program программа выражения
+     * @param function сгенерированная функция или null для интерпретации
+     */
+    private CompiledExpression(String source, String[] variables, Program program, ExpressionFunction function) {
+        this.source = source;
+        this.variables = variables;
+        this.program = program;
+        this.function = function;
+    }
+
+    /**
+     * Возвращает исходный текст выражения.
+     *
+     * @return исходный текст выражения
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Возвращает способ, которым вычисляется выражение.
+     *
+     * @return {@link Backend#BYTECODE}, если для выражения сгенерирован класс,
+     *         иначе {@link Backend#INTERPRETER}
+     */
+    public Backend getBackend() {
+        return function != null ? Backend.BYTECODE : Backend.INTERPRETER;
+    }
+
+    /**
+     * Возвращает выражение с указанным способом вычисления. Исходное выражение не меняется.
+     * Если сгенерировать байткод не удалось (например, программа слишком велика для
+     * одного метода JVM), возвращается выражение, вычисляемое интерпретатором.
+     * Класс генерируется один раз на выражение; повторные вызовы возвращают тот же результат.
+     *
+     * @param backend способ вычисления
+     * @return выражение с тем же текстом и набором переменных
+     */
+    public CompiledExpression withBackend(Backend backend) {
+        if (backend == getBackend()) {
+            return this;
+        }
+        if (backend == Backend.INTERPRETER) {
+            return new CompiledExpression(source, variables, program, null);
+        }
+        CompiledExpression result = bytecode;
+        if (result == null) {
+            synchronized (this) {
+                result = bytecode;
+                if (result == null) {
+                    ExpressionFunction generated = BytecodeGenerator.generate(program);
+                    result = generated != null ? new CompiledExpression(source, variables, program, generated) : this;
+                    bytecode = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает число инструкций программы выражения.
+     *
+     * @return число инструкций
+     */
+    public int getInstructionCount() {
+        return program.length();
+    }
+
+    /**
+     * Возвращает оптимизированную программу выражения: со свернутыми константами,
+     * алгебраическими упрощениями и без повторных вычислений общих подвыражений.
+     *
+     * @return оптимизированное выражение, вычисляемое интерпретатором
+     */
+    CompiledExpression optimize() {
+        return new CompiledExpression(source, variables, ExpressionOptimizer.optimize(program));
+    }
+
+    /**
+     * Возвращает программу выражения.
+     *
+     * @return программа выражения
+     */
+    Program program() {
+        return program;
+    }
+
+    /**
+     * Возвращает имена переменных в порядке их слотов.
+     *
+     * @return неизменяемый список имен переменных
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Возвращает номер слота переменной.
+     *
+     * @param name имя переменной
+     * @return номер слота или -1, если переменная в выражении не используется
+     */
+    public int slotOf(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Вычисляет значение выражения.
+     *
+     * @param values карта переменных (имя → значение)
+     * @return результат вычисления
+     * @throws IllegalArgumentException если значение какой-либо переменной не задано
+     *         или аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public double evaluate(Map<String, Double> values) {
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Double value = values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Не задано значение переменной " + variables[i]);
+            }
+            slots[i] = value;
+        }
+        return evaluate(slots);
+    }
+
+    /**
+     * Вычисляет значение выражения по значениям переменных в порядке слотов.
+     *
+     * @param slots значения переменных по номерам слотов (см. {@link #getVariables()})
+     * @return результат вычисления
+     * @throws IllegalArgumentException если число значений не совпадает с числом слотов
+     *         или аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public double evaluate(double... slots) {
+        if (slots.length != variables.length) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variables.length
+                    + ", передано: " + slots.length);
+        }
+        if (function != null) {
+            return function.applyAsDouble(slots);
+        }
+        return interpret(slots);
+    }
+
+    /**
+     * Интерпретирует программу выражения.
+     *
+     * @param slots значения переменных по номерам слотов
+     * @return значение регистра последней инструкции
+     */
+    private double interpret(double[] slots) {
+        int[] opcodes = program.opcodes;
+        int[] arg0 = program.arg0;
+        int[] arg1 = program.arg1;
+        int length = opcodes.length;
+        double[] registers = new double[length];
+        double[] scratch = null;
+        for (int i = 0; i < length; i++) {
+            int op = opcodes[i];
+            switch (op) {
+                case OpCode.CONST:
+                    registers[i] = program.constants[arg0[i]];
+                    break;
+                case OpCode.VAR:
+                    registers[i] = slots[arg0[i]];
+                    break;
+                case OpCode.ADD:
+                    registers[i] = registers[arg0[i]] + registers[arg1[i]];
+                    break;
+                case OpCode.SUB:
+                    registers[i] = registers[arg0[i]] - registers[arg1[i]];
+                    break;
+                case OpCode.MUL:
+                    registers[i] = registers[arg0[i]] * registers[arg1[i]];
+                    break;
+                case OpCode.CALL:
+                    if (scratch == null) {
+                        scratch = new double[program.maxCallArity];
+                    }
+                    registers[i] = program.functions[arg0[i]].invoke(registers, program.callArgs, arg1[i], scratch);
+                    break;
+                default:
+                    registers[i] = OpCode.apply(op, registers[arg0[i]], registers[arg1[i]]);
+            }
+        }
+        return registers[length - 1];
+    }
+
+    /**
+     * Вычисляет выражение в равноотстоящих точках отрезка одной переменной.
+     * Точки вычисляются пакетно, как в {@link #evaluateBatch(double[][], double[])}.
+     *
+     * @param variable имя переменной, пробегающей отрезок
+     * @param from начало отрезка
+     * @param to конец отрезка
+     * @param steps число шагов; результат содержит {@code steps + 1} значений,
+     *              первое в точке {@code from}, последнее в точке {@code to}
+     * @param slots значения остальных переменных по номерам слотов;
+     *              значение в слоте {@code variable} не используется
+     * @return значения выражения в точках отрезка
+     * @throws IllegalArgumentException если переменная не используется в выражении,
+     *         число шагов не положительно, число значений не совпадает с числом слотов,
+     *         либо аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public double[] evaluateRange(String variable, double from, double to, int steps, double... slots) {
+        int slot = slotOf(variable);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Переменная не используется в выражении: " + variable);
+        }
+        if (steps <= 0) {
+            throw new IllegalArgumentException("Число шагов должно быть положительным: " + steps);
+        }
+        if (slots.length != variables.length) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variables.length
+                    + ", передано: " + slots.length);
+        }
+        int points = steps + 1;
+        double[][] columns = new double[variables.length][];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new double[points];
+            if (i != slot) {
+                Arrays.fill(columns[i], slots[i]);
+            }
+        }
+        double step = (to - from) / steps;
+        double[] argument = columns[slot];
+        for (int k = 0; k < points; k++) {
+            argument[k] = from + k * step;
+        }
+        argument[steps] = to;
+        double[] out = new double[points];
+        evaluateBatch(columns, out, 0, points);
+        return out;
+    }
+
+    /**
+     * Вычисляет выражение одной переменной в равноотстоящих точках отрезка.
+     *
+     * @param variable имя единственной переменной выражения
+     * @param from начало отрезка
+     * @param to конец отрезка
+     * @param steps число шагов; результат содержит {@code steps + 1} значений
+     * @return значения выражения в точках отрезка
+     * @throws IllegalArgumentException если в выражении есть другие переменные
+     *         или см. {@link #evaluateRange(String, double, double, int, double...)}
+     * @throws ArithmeticException при делении на ноль
+     */
+    public double[] evaluateRange(String variable, double from, double to, int steps) {
+        if (variables.length > 1) {
+            throw new IllegalArgumentException("Выражение зависит от нескольких переменных: "
+                    + getVariables() + "; передайте значения остальных переменных");
+        }
+        return evaluateRange(variable, from, to, steps, new double[variables.length]);
+    }
+
+    /**
+     * Вычисляет гарантированные границы значений выражения, когда переменные
+     * пробегают заданные интервалы: для любых значений переменных из интервалов
+     * значение выражения лежит в возвращаемом интервале. Оценка может быть шире
+     * точного множества значений, особенно если переменная входит в выражение
+     * несколько раз.
+     *
+     * @param slots интервалы значений переменных по номерам слотов
+     * @return интервал, содержащий все значения выражения
+     * @throws IllegalArgumentException если число интервалов не совпадает с числом слотов
+     *         или интервал аргумента функции целиком вне области ее определения
+     * @throws ArithmeticException при делении на ноль (делитель тождественно равен нулю)
+     */
+    public Interval evaluateInterval(Interval... slots) {
+        if (slots.length != variables.length) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variables.length
+                    + ", передано: " + slots.length);
+        }
+        return IntervalEvaluator.evaluate(program, slots);
+    }
+
+    /**
+     * Вычисляет выражение для каждой строки таблицы значений, заданной по столбцам.
+     * Строки обрабатываются блоками: каждая инструкция выполняется сразу для всего
+     * блока, что позволяет JIT-компилятору разворачивать и векторизовать циклы.
+     *
+     * @param columns значения переменных по номерам слотов, по одному столбцу на слот
+     * @param out массив результатов; его длина задает число строк
+     * @throws IllegalArgumentException если число или длина столбцов не соответствуют выражению,
+     *         либо аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public void evaluateBatch(double[][] columns, double[] out) {
+        checkBatch(columns, out);
+        evaluateBatch(columns, out, 0, out.length);
+    }
+
+    /**
+     * Вычисляет выражение для каждой строки таблицы значений, распределяя строки
+     * между потоками пула. Таблица делится пополам, пока части не станут не больше
+     * {@code chunkSize} строк; каждая часть вычисляется блоками, как в
+     * {@link #evaluateBatch(double[][], double[])}, и записывает только свой диапазон
+     * массива результатов, поэтому потоки не конкурируют за общие данные.
+     *
+     * @param columns значения переменных по номерам слотов, по одному столбцу на слот
+     * @param out массив результатов; его длина задает число строк
+     * @param pool пул потоков, выполняющий вычисление
+     * @param chunkSize наибольшее число строк, вычисляемых одной задачей
+     * @throws IllegalArgumentException если число или длина столбцов не соответствуют выражению,
+     *         размер части не положителен, либо аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public void evaluateBatch(double[][] columns, double[] out, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + chunkSize);
+        }
+        checkBatch(columns, out);
+        if (out.length <= chunkSize || pool.getParallelism() == 1) {
+            evaluateBatch(columns, out, 0, out.length);
+        } else {
+            try {
+                pool.invoke(new BatchTask(columns, out, 0, out.length, chunkSize));
+            } catch (RuntimeException e) {
+                // Пул передает исключение из рабочего потока копией, часто без сообщения
+                // (например, для ArithmeticException), и может обернуть его несколько раз;
+                // возвращаем исходное исключение.
+                RuntimeException original = e;
+                while (original.getCause() != null && original.getCause().getClass() == original.getClass()) {
+                    original = (RuntimeException) original.getCause();
+                }
+                throw original;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что столбцы соответствуют слотам выражения и массиву результатов.
+     */
+    private void checkBatch(double[][] columns, double[] out) {
+        if (columns.length != variables.length) {
+            throw new IllegalArgumentException("Ожидается столбцов: " + variables.length
+                    + ", передано: " + columns.length);
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].length < out.length) {
+                throw new IllegalArgumentException("Столбец переменной " + variables[i]
+                        + " короче массива результатов");
+            }
+        }
+    }
+
+    /**
+     * Задача пакетного вычисления диапазона строк для {@link ForkJoinPool}.
+     * Диапазон делится по границам блоков {@link #BATCH_BLOCK}, чтобы соседние задачи
+     * не дробили блоки друг друга.
+     */
+    private final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] columns;
+        private final double[] out;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        BatchTask(double[][] columns, double[] out, int from, int to, int chunkSize) {
+            this.columns = columns;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            int middle = from + (to - from) / 2 / BATCH_BLOCK * BATCH_BLOCK;
+            if (to - from <= chunkSize || middle == from) {
+                evaluateBatch(columns, out, from, to);
+                return;
+            }
+            invokeAll(new BatchTask(columns, out, from, middle, chunkSize),
+                    new BatchTask(columns, out, middle, to, chunkSize));
+        }
+    }
+
+    /**
+     * Вычисляет выражение для строк {@code [from, to)} таблицы значений без проверки аргументов.
+     *
+     * @param columns значения переменных по номерам слотов
+     * @param out массив результатов
+     * @param from первая строка (включительно)
+     * @param to последняя строка (не включительно)
+     */
+    void evaluateBatch(double[][] columns, double[] out, int from, int to) {
+        int length = program.length();
+        double[][] registers = new double[length][Math.min(BATCH_BLOCK, to - from)];
+        double[] scratch = new double[program.maxCallArity];
+        for (int start = from; start < to; start += BATCH_BLOCK) {
+            int rows = Math.min(BATCH_BLOCK, to - start);
+            for (int i = 0; i < length; i++) {
+                evaluateBlock(i, registers, columns, start, rows, scratch);
+            }
+            System.arraycopy(registers[length - 1], 0, out, start, rows);
+        }
+    }
+
+    /**
+     * Выполняет одну инструкцию для блока строк.
+     *
+     * @param i номер инструкции
+     * @param registers регистры блока
+     * @param columns столбцы значений переменных
+     * @param start первая строка блока в столбцах
+     * @param rows число строк в блоке
+     * @param scratch массив для аргументов функций переменного числа аргументов
+     */
+    private void evaluateBlock(int i, double[][] registers, double[][] columns, int start, int rows,
+                               double[] scratch) {
+        double[] r = registers[i];
+        int op = program.opcodes[i];
+        int[] arg0 = program.arg0;
+        switch (op) {
+            case OpCode.CONST:
+                Arrays.fill(r, 0, rows, program.constants[arg0[i]]);
+                return;
+            case OpCode.VAR:
+                System.arraycopy(columns[arg0[i]], start, r, 0, rows);
+                return;
+            case OpCode.CALL:
+                evaluateCallBlock(i, registers, rows, scratch);
+                return;
+            default:
+                break;
+        }
+        double[] a = registers[arg0[i]];
+        double[] b = registers[program.arg1[i]];
+        switch (op) {
+            case OpCode.NEG:
+                for (int k = 0; k < rows; k++) r[k] = -a[k];
+                break;
+            case OpCode.ADD:
+                for (int k = 0; k < rows; k++) r[k] = a[k] + b[k];
+                break;
+            case OpCode.SUB:
+                for (int k = 0; k < rows; k++) r[k] = a[k] - b[k];
+                break;
+            case OpCode.MUL:
+                for (int k = 0; k < rows; k++) r[k] = a[k] * b[k];
+                break;
+            case OpCode.DIV:
+                boolean zero = false;
+                for (int k = 0; k < rows; k++) zero |= b[k] == 0;
+                if (zero) throw new ArithmeticException("Деление на ноль");
+                for (int k = 0; k < rows; k++) r[k] = a[k] / b[k];
+                break;
+            case OpCode.ABS:
+                for (int k = 0; k < rows; k++) r[k] = Math.abs(a[k]);
+                break;
+            case OpCode.SQRT:
+                boolean negative = false;
+                for (int k = 0; k < rows; k++) negative |= a[k] < 0;
+                if (negative) throw new IllegalArgumentException("Квадратный корень из отрицательного числа");
+                for (int k = 0; k < rows; k++) r[k] = Math.sqrt(a[k]);
+                break;
+            default:
+                for (int k = 0; k < rows; k++) r[k] = OpCode.apply(op, a[k], b[k]);
+        }
+    }
+
+    /**
+     * Выполняет вызов пользовательской функции для блока строк.
+     */
+    private void evaluateCallBlock(int i, double[][] registers, int rows, double[] scratch) {
+        MathFunction f = program.functions[program.arg0[i]];
+        int offset = program.arg1[i];
+        int[] callArgs = program.callArgs;
+        double[] r = registers[i];
+        switch (f.getKind()) {
+            case UNARY:
+                double[] x = registers[callArgs[offset + 1]];
+                for (int k = 0; k < rows; k++) r[k] = f.unary.applyAsDouble(x[k]);
+                break;
+            case BINARY:
+                double[] a = registers[callArgs[offset + 1]];
+                double[] b = registers[callArgs[offset + 2]];
+                for (int k = 0; k < rows; k++) r[k] = f.binary.applyAsDouble(a[k], b[k]);
+                break;
+            default:
+                int count = callArgs[offset];
+                for (int k = 0; k < rows; k++) {
+                    for (int j = 0; j < count; j++) {
+                        scratch[j] = registers[callArgs[offset + 1 + j]][k];
+                    }
+                    r[k] = f.variadic.apply(scratch, count);
+                }
+        }
+    }
+
+    /**
+     * Возвращает исходный текст выражения.
+     *
+     * @return исходный текст выражения
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,340 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Потоковое вычисление формулы по строкам CSV-файла.
+ * <p>
+ * Первая строка файла содержит имена столбцов. Столбцы, имена которых совпадают
+ * с переменными выражения, подставляются в формулу, остальные пропускаются.
+ * Для каждой строки данных в выходной поток записывается одно значение; первая
+ * строка результата — заголовок {@code result}.
+ * </p>
+ * <p>
+ * Файл читается собственным буфером фиксированного размера, числа разбираются прямо
+ * из байтов без создания строк, а строки накапливаются в столбцы по {@value #ROWS_PER_BLOCK}
+ * значений и вычисляются пакетно. Поэтому расход памяти не зависит от размера файла.
+ * Поддерживаются ASCII-файлы с окончаниями строк {@code \n} и {@code \r\n};
+ * кавычки в полях не поддерживаются.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * CsvEvaluator evaluator = new CsvEvaluator(new Calculator(), "price * qty");
+ * StreamStats stats = evaluator.evaluate(Paths.get("in.csv"), Paths.get("out.csv"));
+ * System.out.println(stats.getRowsPerSecond());
+ * }</pre>
+ * </p>
+ */
+public final class CsvEvaluator {
+    /** Число строк, накапливаемых перед пакетным вычислением. */
+    static final int ROWS_PER_BLOCK = 4096;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final CompiledExpression expression;
+    private final byte delimiter;
+
+    /**
+     * Создает вычислитель для файлов с разделителем-запятой.
+     *
+     * @param calculator калькулятор, компилирующий выражение
+     * @param expression формула
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public CsvEvaluator(Calculator calculator, String expression) {
+        this(calculator, expression, ',');
+    }
+
+    /**
+     * Создает вычислитель.
+     *
+     * @param calculator калькулятор, компилирующий выражение
+     * @param expression формула
+     * @param delimiter разделитель полей (символ ASCII)
+     * @throws IllegalArgumentException если выражение некорректно или разделитель не ASCII
+     */
+    public CsvEvaluator(Calculator calculator, String expression, char delimiter) {
+        if (delimiter > 127 || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Недопустимый разделитель: " + delimiter);
+        }
+        Set<String> variables = calculator.findVariables(expression);
+        this.expression = calculator.compile(expression, variables.toArray(new String[0]));
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * Возвращает скомпилированную формулу.
+     *
+     * @return скомпилированное выражение
+     */
+    public CompiledExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Вычисляет формулу для каждой строки файла и записывает результаты в файл.
+     *
+     * @param input входной CSV-файл
+     * @param output файл результатов (перезаписывается)
+     * @return итоги обработки
+     * @throws IOException при ошибке чтения или записи
+     * @throws IllegalArgumentException если в файле нет нужного столбца, поле не является
+     *         числом или формула не вычисляется для какой-либо строки
+     */
+    public StreamStats evaluate(Path input, Path output) throws IOException {
+        try (InputStream in = Files.newInputStream(input);
+             OutputStream out = Files.newOutputStream(output)) {
+            return evaluate(in, out);
+        }
+    }
+
+    /**
+     * Вычисляет формулу для каждой строки потока и записывает результаты в выходной поток.
+     * Потоки не закрываются.
+     *
+     * @param input входные данные в формате CSV
+     * @param output поток результатов
+     * @return итоги обработки
+     * @throws IOException при ошибке чтения или записи
+     * @throws IllegalArgumentException если в данных нет нужного столбца, поле не является
+     *         числом или формула не вычисляется для какой-либо строки
+     */
+    public StreamStats evaluate(InputStream input, OutputStream output) throws IOException {
+        long started = System.nanoTime();
+        LineReader reader = new LineReader(input);
+        if (!reader.next()) {
+            throw new IllegalArgumentException("Нет строки заголовка");
+        }
+        int[] slotOfColumn = mapHeader(reader);
+        int columnCount = slotOfColumn.length;
+
+        double[][] columns = new double[expression.getVariables().size()][ROWS_PER_BLOCK];
+        double[] results = new double[ROWS_PER_BLOCK];
+        ResultWriter writer = new ResultWriter(output);
+        writer.writeHeader();
+
+        long rows = 0;
+        int filled = 0;
+        while (reader.next()) {
+            if (reader.lineStart == reader.lineEnd) {
+                continue;
+            }
+            byte[] buffer = reader.buffer;
+            int fieldStart = reader.lineStart;
+            int column = 0;
+            for (int pos = reader.lineStart; pos <= reader.lineEnd && column < columnCount; pos++) {
+                if (pos == reader.lineEnd || buffer[pos] == delimiter) {
+                    int slot = slotOfColumn[column];
+                    if (slot >= 0) {
+                        columns[slot][filled] = parseField(buffer, fieldStart, pos, reader.lineNumber, column);
+                    }
+                    column++;
+                    fieldStart = pos + 1;
+                }
+            }
+            if (column < columnCount) {
+                throw new IllegalArgumentException("Строка " + reader.lineNumber + ": ожидается не меньше "
+                        + columnCount + " полей, найдено: " + column);
+            }
+            if (++filled == ROWS_PER_BLOCK) {
+                evaluateBlock(columns, results, filled, rows, writer);
+                rows += filled;
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            evaluateBlock(columns, results, filled, rows, writer);
+            rows += filled;
+        }
+        writer.flush();
+        return new StreamStats(rows, System.nanoTime() - started);
+    }
+
+    /**
+     * Сопоставляет столбцы заголовка слотам переменных выражения.
+     *
+     * @return номер слота для каждого столбца или -1 для неиспользуемых столбцов
+     */
+    private int[] mapHeader(LineReader reader) {
+        String header = new String(reader.buffer, reader.lineStart, reader.lineEnd - reader.lineStart,
+                StandardCharsets.UTF_8);
+        String[] names = header.split(Pattern.quote(String.valueOf((char) delimiter)), -1);
+        int[] slotOfColumn = new int[names.length];
+        boolean[] bound = new boolean[expression.getVariables().size()];
+        int last = -1;
+        for (int c = 0; c < names.length; c++) {
+            int slot = expression.slotOf(names[c].trim());
+            if (slot >= 0) {
+                if (bound[slot]) {
+                    throw new IllegalArgumentException("Повторяющийся столбец: " + names[c].trim());
+                }
+                bound[slot] = true;
+                last = c;
+            }
+            slotOfColumn[c] = slot;
+        }
+        for (int slot = 0; slot < bound.length; slot++) {
+            if (!bound[slot]) {
+                throw new IllegalArgumentException("Нет столбца для переменной "
+                        + expression.getVariables().get(slot));
+            }
+        }
+        // Поля после последнего нужного столбца не просматриваются.
+        return Arrays.copyOf(slotOfColumn, last + 1);
+    }
+
+    private double parseField(byte[] buffer, int start, int end, long lineNumber, int column) {
+        while (start < end && buffer[start] == ' ') start++;
+        while (end > start && buffer[end - 1] == ' ') end--;
+        try {
+            return NumberParser.parse(buffer, start, end);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Строка " + lineNumber + ", столбец " + (column + 1)
+                    + ": некорректное число: "
+                    + new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private void evaluateBlock(double[][] columns, double[] results, int rows, long firstRow,
+                               ResultWriter writer) throws IOException {
+        try {
+            expression.evaluateBatch(columns, results, 0, rows);
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ошибка вычисления в строках данных " + (firstRow + 1)
+                    + "–" + (firstRow + rows) + ": " + e.getMessage(), e);
+        }
+        for (int i = 0; i < rows; i++) {
+            writer.write(results[i]);
+        }
+    }
+
+    /**
+     * Чтение строк из потока через буфер, который переиспользуется для всех строк.
+     * Строка, не поместившаяся в буфер целиком, переносится в его начало,
+     * а при необходимости буфер увеличивается.
+     */
+    private static final class LineReader {
+        private final InputStream input;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private boolean eof;
+        int lineStart;
+        int lineEnd;
+        long lineNumber;
+
+        LineReader(InputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * Переходит к следующей строке.
+         *
+         * @return false, если поток закончился
+         */
+        boolean next() throws IOException {
+            int scan = position;
+            while (true) {
+                while (scan < limit && buffer[scan] != '\n') {
+                    scan++;
+                }
+                if (scan < limit) {
+                    setLine(position, scan);
+                    position = scan + 1;
+                    return true;
+                }
+                if (eof) {
+                    if (position == limit) {
+                        return false;
+                    }
+                    setLine(position, limit);
+                    position = limit;
+                    return true;
+                }
+                scan -= position;
+                fill();
+            }
+        }
+
+        private void setLine(int start, int end) {
+            if (end > start && buffer[end - 1] == '\r') {
+                end--;
+            }
+            lineStart = start;
+            lineEnd = end;
+            lineNumber++;
+        }
+
+        private void fill() throws IOException {
+            int pending = limit - position;
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, pending);
+            } else if (pending == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            position = 0;
+            limit = pending;
+            int read = input.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    /**
+     * Запись результатов через буфер без создания строк на каждое значение.
+     */
+    private static final class ResultWriter {
+        private final OutputStream output;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final StringBuilder text = new StringBuilder(32);
+        private int position;
+
+        ResultWriter(OutputStream output) {
+            this.output = output;
+        }
+
+        void writeHeader() throws IOException {
+            text.setLength(0);
+            text.append("result");
+            writeText();
+        }
+
+        void write(double value) throws IOException {
+            text.setLength(0);
+            text.append(value);
+            writeText();
+        }
+
+        private void writeText() throws IOException {
+            int length = text.length();
+            if (position + length + 1 > buffer.length) {
+                flushBuffer();
+            }
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) text.charAt(i);
+            }
+            buffer[position++] = '\n';
+        }
+
+        private void flushBuffer() throws IOException {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            output.flush();
+        }
+    }
+}
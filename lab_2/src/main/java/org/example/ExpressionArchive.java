@@ -0,0 +1,398 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Двоичный формат для сохранения скомпилированных выражений и их загрузки без разбора текста.
+ * <p>
+ * Файл начинается с сигнатуры {@code CALC} и номера версии формата, затем идут общие
+ * для всех выражений пулы строк (исходные тексты, имена переменных и функций) и констант,
+ * после них — выражения. Каждое выражение записано ссылками в пулы и потоком инструкций
+ * своей программы; целые числа записываются в формате переменной длины (LEB128),
+ * константы — восемью байтами IEEE 754, строки — в UTF-8.
+ * </p>
+ * <p>
+ * Сохраняется уже оптимизированная программа, поэтому загрузка сводится к чтению массивов
+ * и проверке их корректности. Пользовательские функции записываются по имени и при загрузке
+ * связываются с функциями калькулятора; если функции с таким именем нет, загрузка
+ * завершается ошибкой. Вызовы с постоянными аргументами в архиве не сворачиваются
+ * в константы, поэтому загруженное выражение вычисляет функции читающего калькулятора,
+ * как если бы его исходный текст скомпилировали этим калькулятором. Файл отображается в память и читается без промежуточного копирования.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * ExpressionArchive.write(compiledFormulas, Paths.get("formulas.bin"));
+ * // при запуске
+ * List<CompiledExpression> formulas = ExpressionArchive.read(calculator, Paths.get("formulas.bin"));
+ * }</pre>
+ * </p>
+ */
+public final class ExpressionArchive {
+    /** Сигнатура файла: байты {@code CALC}. */
+    static final int MAGIC = 0x43414C43;
+    /** Текущая версия формата. */
+    static final int VERSION = 1;
+
+    private ExpressionArchive() {
+    }
+
+    /**
+     * Записывает выражения в файл.
+     *
+     * @param expressions выражения
+     * @param file файл (перезаписывается)
+     * @throws IOException при ошибке записи
+     */
+    public static void write(Collection<CompiledExpression> expressions, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(expressions, out);
+        }
+    }
+
+    /**
+     * Записывает выражения в поток. Поток не закрывается.
+     *
+     * @param expressions выражения
+     * @param out выходной поток
+     * @throws IOException при ошибке записи
+     */
+    public static void write(Collection<CompiledExpression> expressions, OutputStream out) throws IOException {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> stringPool = new ArrayList<>();
+        Map<Long, Integer> doubles = new HashMap<>();
+        Encoder doublePool = new Encoder();
+        Encoder body = new Encoder();
+
+        body.writeVarInt(expressions.size());
+        for (CompiledExpression expression : expressions) {
+            Program program = archivedProgram(expression);
+            body.writeVarInt(intern(expression.getSource(), strings, stringPool));
+            List<String> variables = expression.getVariables();
+            body.writeVarInt(variables.size());
+            for (String variable : variables) {
+                body.writeVarInt(intern(variable, strings, stringPool));
+            }
+            body.writeVarInt(program.functions.length);
+            for (MathFunction function : program.functions) {
+                body.writeVarInt(intern(function.getName(), strings, stringPool));
+            }
+            body.writeVarInt(program.constants.length);
+            for (double constant : program.constants) {
+                long bits = Double.doubleToRawLongBits(constant);
+                Integer index = doubles.get(bits);
+                if (index == null) {
+                    index = doubles.size();
+                    doubles.put(bits, index);
+                    doublePool.writeLong(bits);
+                }
+                body.writeVarInt(index);
+            }
+            body.writeVarInt(program.length());
+            for (int i = 0; i < program.length(); i++) {
+                int op = program.opcodes[i];
+                body.writeByte(op);
+                body.writeVarInt(program.arg0[i]);
+                if (hasSecondArgument(op)) {
+                    body.writeVarInt(program.arg1[i]);
+                }
+            }
+            body.writeVarInt(program.callArgs.length);
+            for (int value : program.callArgs) {
+                body.writeVarInt(value);
+            }
+        }
+
+        Encoder header = new Encoder();
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION >>> 8);
+        header.writeByte(VERSION);
+        header.writeVarInt(stringPool.size());
+        for (String string : stringPool) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            header.writeVarInt(bytes.length);
+            header.writeBytes(bytes);
+        }
+        header.writeVarInt(doubles.size());
+        header.writeTo(out);
+        doublePool.writeTo(out);
+        body.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Возвращает программу выражения для записи в архив. Оптимизатор сворачивает вызовы
+     * пользовательских функций с постоянными аргументами в константы, и такие вызовы
+     * не были бы связаны при загрузке; поэтому выражение с пользовательскими функциями
+     * разбирается заново и оптимизируется без этой свертки.
+     *
+     * @param expression выражение
+     * @return программа для записи
+     */
+    private static Program archivedProgram(CompiledExpression expression) {
+        Program program = expression.program();
+        if (program.functions.length == 0) {
+            return program;
+        }
+        Map<String, MathFunction> functions = new HashMap<>(Calculator.BUILTIN_FUNCTIONS);
+        for (MathFunction function : program.functions) {
+            functions.put(function.getName(), function);
+        }
+        Program parsed = ExpressionParser.parse(expression.getSource(), functions,
+                expression.getVariables().toArray(new String[0])).program();
+        return ExpressionOptimizer.optimize(parsed, false);
+    }
+
+    /**
+     * Загружает выражения из файла, отображая его в память.
+     *
+     * @param calculator калькулятор, функции которого связываются с вызовами в выражениях
+     * @param file файл, записанный {@link #write(Collection, Path)}
+     * @return выражения в порядке записи
+     * @throws IOException при ошибке чтения
+     * @throws IllegalArgumentException если файл поврежден, записан неподдерживаемой версией
+     *         формата или ссылается на неизвестную функцию
+     */
+    public static List<CompiledExpression> read(Calculator calculator, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(calculator, buffer);
+        }
+    }
+
+    /**
+     * Загружает выражения из буфера, начиная с его текущей позиции.
+     *
+     * @param calculator калькулятор, функции которого связываются с вызовами в выражениях
+     * @param buffer данные в формате архива
+     * @return выражения в порядке записи
+     * @throws IllegalArgumentException если данные повреждены, записаны неподдерживаемой версией
+     *         формата или ссылаются на неизвестную функцию
+     */
+    public static List<CompiledExpression> read(Calculator calculator, ByteBuffer buffer) {
+        try {
+            return new Decoder(calculator, buffer).readAll();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Поврежденный архив выражений", e);
+        }
+    }
+
+    private static boolean hasSecondArgument(int op) {
+        return OpCode.isBinary(op) || op == OpCode.CALL;
+    }
+
+    private static int intern(String string, Map<String, Integer> strings, List<String> pool) {
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = pool.size();
+            strings.put(string, index);
+            pool.add(string);
+        }
+        return index;
+    }
+
+    /**
+     * Чтение и проверка архива.
+     */
+    private static final class Decoder {
+        private final Calculator calculator;
+        private final ByteBuffer buffer;
+        private String[] strings;
+        private double[] doubles;
+
+        Decoder(Calculator calculator, ByteBuffer buffer) {
+            this.calculator = calculator;
+            this.buffer = buffer;
+        }
+
+        List<CompiledExpression> readAll() {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Данные не являются архивом выражений");
+            }
+            int version = buffer.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия формата архива: " + version);
+            }
+            strings = new String[readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[readCount()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            doubles = new double[readCount()];
+            for (int i = 0; i < doubles.length; i++) {
+                doubles[i] = buffer.getDouble();
+            }
+            int count = readCount();
+            List<CompiledExpression> expressions = new ArrayList<>(count);
+            for (int e = 0; e < count; e++) {
+                expressions.add(readExpression());
+            }
+            return expressions;
+        }
+
+        private CompiledExpression readExpression() {
+            String source = strings[readVarInt()];
+            String[] variables = new String[readCount()];
+            for (int i = 0; i < variables.length; i++) {
+                variables[i] = strings[readVarInt()];
+            }
+            MathFunction[] functions = new MathFunction[readCount()];
+            for (int i = 0; i < functions.length; i++) {
+                String name = strings[readVarInt()];
+                functions[i] = calculator.function(name);
+                if (functions[i] == null) {
+                    throw new IllegalArgumentException("Неизвестная функция в архиве: " + name);
+                }
+            }
+            double[] constants = new double[readCount()];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = doubles[readVarInt()];
+            }
+            int length = readCount();
+            if (length == 0) {
+                throw new IllegalArgumentException("Поврежденный архив выражений: пустая программа");
+            }
+            int[] opcodes = new int[length];
+            int[] arg0 = new int[length];
+            int[] arg1 = new int[length];
+            for (int i = 0; i < length; i++) {
+                opcodes[i] = buffer.get() & 0xFF;
+                arg0[i] = readVarInt();
+                if (hasSecondArgument(opcodes[i])) {
+                    arg1[i] = readVarInt();
+                }
+            }
+            int[] callArgs = new int[readCount()];
+            for (int i = 0; i < callArgs.length; i++) {
+                callArgs[i] = readVarInt();
+            }
+            validate(source, opcodes, arg0, arg1, variables.length, constants.length, functions, callArgs);
+            return new CompiledExpression(source, variables,
+                    new Program(opcodes, arg0, arg1, constants, functions, callArgs));
+        }
+
+        /**
+         * Проверяет, что все ссылки программы указывают на существующие элементы,
+         * инструкции читают только регистры предыдущих инструкций, а функции
+         * загружающего калькулятора принимают записанное в архиве число аргументов.
+         */
+        private static void validate(String source, int[] opcodes, int[] arg0, int[] arg1, int slots,
+                                     int constants, MathFunction[] functions, int[] callArgs) {
+            for (int i = 0; i < opcodes.length; i++) {
+                int op = opcodes[i];
+                boolean valid;
+                if (op == OpCode.CONST) {
+                    valid = arg0[i] < constants;
+                } else if (op == OpCode.VAR) {
+                    valid = arg0[i] < slots;
+                } else if (OpCode.isUnary(op)) {
+                    valid = arg0[i] < i;
+                } else if (OpCode.isBinary(op)) {
+                    valid = arg0[i] < i && arg1[i] < i;
+                } else if (op == OpCode.CALL) {
+                    int offset = arg1[i];
+                    valid = arg0[i] < functions.length && offset < callArgs.length
+                            && callArgs[offset] <= callArgs.length - offset - 1;
+                    for (int k = 0; valid && k < callArgs[offset]; k++) {
+                        valid = callArgs[offset + 1 + k] < i;
+                    }
+                    if (valid && !functions[arg0[i]].acceptsArity(callArgs[offset])) {
+                        throw new IllegalArgumentException("Функция " + functions[arg0[i]]
+                                + " не принимает аргументов: " + callArgs[offset] + " (выражение " + source + ")");
+                    }
+                } else {
+                    valid = false;
+                }
+                if (!valid) {
+                    throw new IllegalArgumentException("Поврежденный архив выражений: инструкция " + i
+                            + " выражения " + source);
+                }
+            }
+        }
+
+        private int readCount() {
+            int count = readVarInt();
+            if (count > buffer.remaining()) {
+                throw new IllegalArgumentException("Поврежденный архив выражений");
+            }
+            return count;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) break;
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Поврежденный архив выражений");
+        }
+    }
+
+    /**
+     * Буфер записи, растущий по мере необходимости.
+     */
+    private static final class Encoder {
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeBytes(byte[] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, length, values.length);
+            length += values.length;
+        }
+
+        void writeInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, length);
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Потокобезопасный кэш скомпилированных выражений ограниченного размера
+ * с вытеснением давно не использованных записей.
+ * <p>
+ * Кэш не использует блокировок: записи хранятся в {@link ConcurrentHashMap}
+ * и в очереди в порядке добавления. Вытеснение приближает LRU алгоритмом «часы»
+ * (второй шанс): попадание в кэш лишь отмечает запись как использованную, причем
+ * пишет в нее только при первом обращении после очередного обхода, поэтому частые
+ * попадания в одни и те же выражения из разных потоков не конкурируют за общую память.
+ * При переполнении из головы очереди извлекаются записи: использованная теряет
+ * отметку и возвращается в хвост, неиспользованная вытесняется. Каждая запись
+ * получает не больше одного второго шанса за обход, так что вытеснение в среднем
+ * занимает постоянное время и выполняется только после компиляции нового выражения.
+ * </p>
+ */
+final class ExpressionCache {
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Запись кэша с отметкой обращения.
+     */
+    private static final class Entry {
+        final String key;
+        final CompiledExpression expression;
+        /** Обращались ли к записи после ее последнего просмотра при вытеснении; без гарантий видимости. */
+        boolean referenced;
+
+        Entry(String key, CompiledExpression expression) {
+            this.key = key;
+            this.expression = expression;
+        }
+    }
+
+    /**
+     * Создает кэш.
+     *
+     * @param maxSize максимальное число хранимых выражений; 0 отключает кэширование
+     * @throws IllegalArgumentException если размер отрицательный
+     */
+    ExpressionCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Возвращает выражение из кэша или компилирует и запоминает его.
+     * Если несколько потоков одновременно компилируют одно выражение,
+     * все они получают экземпляр, попавший в кэш первым.
+     *
+     * @param key нормализованный текст выражения
+     * @param compiler функция компиляции
+     * @return скомпилированное выражение
+     */
+    CompiledExpression get(String key, Function<String, CompiledExpression> compiler) {
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.referenced) {
+                cached.referenced = true;
+            }
+            hits.increment();
+            return cached.expression;
+        }
+        misses.increment();
+        CompiledExpression compiled = compiler.apply(key);
+        if (maxSize == 0) {
+            return compiled;
+        }
+        Entry entry = new Entry(key, compiled);
+        Entry raced = entries.putIfAbsent(key, entry);
+        if (raced != null) {
+            return raced.expression;
+        }
+        queue.add(entry);
+        evictOverflow();
+        return compiled;
+    }
+
+    /**
+     * Вытесняет записи, пока размер кэша превышает максимальный.
+     */
+    private void evictOverflow() {
+        while (entries.size() > maxSize) {
+            Entry candidate = queue.poll();
+            if (candidate == null) {
+                return;
+            }
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                queue.add(candidate);
+            } else if (entries.remove(candidate.key, candidate)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Возвращает снимок статистики кэша.
+     *
+     * @return статистика кэша
+     */
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * Удаляет все выражения из кэша. Счетчики не сбрасываются.
+     * Записи удаляются через очередь, поэтому запись, которую другой поток добавил
+     * в карту во время очистки, остается в очереди и может быть вытеснена.
+     */
+    void clear() {
+        for (Entry entry; (entry = queue.poll()) != null; ) {
+            entries.remove(entry.key, entry);
+        }
+    }
+}
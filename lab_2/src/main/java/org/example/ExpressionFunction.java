@@ -0,0 +1,20 @@
+package org.example;
+
+/**
+ * Функция, вычисляющая значение выражения по значениям переменных в порядке слотов.
+ * <p>
+ * Аналог {@link java.util.function.DoubleUnaryOperator} для выражений с несколькими
+ * переменными. Реализации создаются генератором байткода для каждого выражения,
+ * что позволяет JIT-компилятору встраивать формулу целиком.
+ * </p>
+ */
+@FunctionalInterface
+public interface ExpressionFunction {
+    /**
+     * Вычисляет значение выражения.
+     *
+     * @param slots значения переменных по номерам слотов
+     * @return результат вычисления
+     */
+    double applyAsDouble(double[] slots);
+}
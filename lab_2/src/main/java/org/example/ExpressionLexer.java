@@ -0,0 +1,241 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Лексический анализатор выражений калькулятора.
+ * <p>
+ * Текст разбирается прямо из {@link CharSequence} в параллельные массивы лексем
+ * (вид, позиция, значение), которые переиспользуются между вызовами
+ * {@link #tokenize(CharSequence)}. Числа переводятся в {@code double} без создания
+ * подстрок, а имена функций и переменных заносятся в таблицу имен и обозначаются
+ * номерами: строка для имени создается только при первой встрече, повторные
+ * выражения с теми же именами разбираются без выделения памяти.
+ * </p>
+ * <p>
+ * Экземпляр не потокобезопасен.
+ * </p>
+ */
+final class ExpressionLexer {
+    /** Конец выражения. */
+    static final int END = 0;
+    /** Число; значение в {@link #numbers}. */
+    static final int NUMBER = 1;
+    /** Имя функции или переменной; номер имени в {@link #values}. */
+    static final int NAME = 2;
+    static final int PLUS = 3;
+    static final int MINUS = 4;
+    static final int STAR = 5;
+    static final int SLASH = 6;
+    static final int CARET = 7;
+    static final int LEFT_PAREN = 8;
+    static final int RIGHT_PAREN = 9;
+    static final int COMMA = 10;
+
+    /** Размер таблицы имен, после которого она очищается перед разбором следующего выражения. */
+    private static final int MAX_NAMES = 1024;
+
+    int[] kinds = new int[32];
+    /** Позиция начала лексемы в тексте (с нуля). */
+    int[] positions = new int[32];
+    int[] values = new int[32];
+    double[] numbers = new double[32];
+    int count;
+
+    private String[] names = new String[64];
+    private int[] nameHashes = new int[64];
+    private int nameCount;
+    /** Открытая адресация: номер имени + 1 или 0 для пустой ячейки. */
+    private int[] nameTable = new int[128];
+
+    private byte[] digits = new byte[32];
+    private CharSequence text;
+
+    /**
+     * Разбивает текст на лексемы. Последняя лексема всегда {@link #END}.
+     *
+     * @param text текст выражения
+     * @throws ExpressionSyntaxException если в тексте встречается недопустимый символ
+     *         или некорректное число
+     */
+    void tokenize(CharSequence text) {
+        if (nameCount > MAX_NAMES) {
+            clearNames();
+        }
+        this.text = text;
+        count = 0;
+        int length = text.length();
+        int pos = 0;
+        while (true) {
+            while (pos < length && Character.isWhitespace(text.charAt(pos))) pos++;
+            if (pos == length) {
+                add(END, pos);
+                return;
+            }
+            char c = text.charAt(pos);
+            int start = pos;
+            if ((c >= '0' && c <= '9') || c == '.') {
+                while (pos < length && (isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) pos++;
+                double value = parseNumber(text, start, pos);
+                int index = add(NUMBER, start);
+                numbers[index] = value;
+            } else if (isIdentifierStart(c)) {
+                int hash = 0;
+                while (pos < length && (isIdentifierStart(text.charAt(pos)) || isDigit(text.charAt(pos)))) {
+                    hash = 31 * hash + text.charAt(pos++);
+                }
+                int id = intern(text, start, pos, hash);
+                int index = add(NAME, start);
+                values[index] = id;
+            } else {
+                add(operator(c, start), start);
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Возвращает имя по номеру.
+     *
+     * @param id номер имени из {@link #values}
+     * @return имя
+     */
+    String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Возвращает запись числа в тексте так, как она была введена.
+     *
+     * @param index номер лексемы {@link #NUMBER}
+     * @return текст числа
+     */
+    String literal(int index) {
+        int start = positions[index];
+        int end = start;
+        while (end < text.length() && (isDigit(text.charAt(end)) || text.charAt(end) == '.')) end++;
+        return text.subSequence(start, end).toString();
+    }
+
+    /**
+     * Возвращает первый символ лексемы.
+     *
+     * @param index номер лексемы
+     * @return символ текста в позиции лексемы
+     */
+    char firstChar(int index) {
+        return text.charAt(positions[index]);
+    }
+
+    private int add(int kind, int start) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            values = Arrays.copyOf(values, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+        }
+        kinds[count] = kind;
+        positions[count] = start;
+        return count++;
+    }
+
+    private static int operator(char c, int position) {
+        switch (c) {
+            case '+': return PLUS;
+            case '-': return MINUS;
+            case '*': return STAR;
+            case '/': return SLASH;
+            case '^': return CARET;
+            case '(': return LEFT_PAREN;
+            case ')': return RIGHT_PAREN;
+            case ',': return COMMA;
+            default:
+                throw new ExpressionSyntaxException("Неожиданный символ: " + c, position);
+        }
+    }
+
+    private double parseNumber(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length > digits.length) {
+            digits = new byte[Math.max(length, digits.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            digits[i] = (byte) text.charAt(start + i);
+        }
+        try {
+            return NumberParser.parse(digits, 0, length);
+        } catch (NumberFormatException e) {
+            throw new ExpressionSyntaxException("Некорректное число: " + text.subSequence(start, end), start);
+        }
+    }
+
+    private int intern(CharSequence text, int start, int end, int hash) {
+        int mask = nameTable.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = nameTable[slot];
+            if (entry == 0) {
+                return insert(text.subSequence(start, end).toString(), hash, slot);
+            }
+            String candidate = names[entry - 1];
+            if (nameHashes[entry - 1] == hash && regionEquals(candidate, text, start, end)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int insert(String name, int hash, int slot) {
+        if (nameCount == names.length) {
+            names = Arrays.copyOf(names, nameCount * 2);
+            nameHashes = Arrays.copyOf(nameHashes, nameCount * 2);
+        }
+        int id = nameCount++;
+        names[id] = name;
+        nameHashes[id] = hash;
+        nameTable[slot] = id + 1;
+        if (nameCount * 2 > nameTable.length) {
+            rehash(nameTable.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        nameTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < nameCount; id++) {
+            int slot = mix(nameHashes[id]) & mask;
+            while (nameTable[slot] != 0) slot = (slot + 1) & mask;
+            nameTable[slot] = id + 1;
+        }
+    }
+
+    private void clearNames() {
+        Arrays.fill(names, 0, nameCount, null);
+        nameCount = 0;
+        Arrays.fill(nameTable, 0);
+    }
+
+    private static boolean regionEquals(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+}
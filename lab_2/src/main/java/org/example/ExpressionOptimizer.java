@@ -0,0 +1,331 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Оптимизирующий проход по программе скомпилированного выражения.
+ * <p>
+ * За один проход в порядке инструкций выполняются:
+ * <ul>
+ *   <li>свертка констант: подвыражения без переменных вычисляются при компиляции;</li>
+ *   <li>алгебраические упрощения: {@code x+0}, {@code x-0}, {@code x*1}, {@code x/1},
+ *       {@code pow(x,1)} заменяются на {@code x}, {@code pow(x,0)} на 1 (только если
+ *       {@code x} — переменная или константа, иначе ошибка в {@code x} потерялась бы),
+ *       {@code pow(x,2)} на {@code x*x}, двойной унарный минус убирается;</li>
+ *   <li>устранение общих подвыражений: одинаковые инструкции над одинаковыми
+ *       операндами, в том числе вызовы пользовательских функций, вычисляются один раз.</li>
+ * </ul>
+ * Затем удаляются инструкции, от которых не зависит результат.
+ * </p>
+ * <p>
+ * Пользовательские функции считаются чистыми (см. {@link MathFunction}).
+ * Подвыражения, вычисление которых завершается ошибкой (например, {@code 1/0}),
+ * не сворачиваются, чтобы ошибка возникала при вычислении, как и без оптимизации.
+ * Преобразования, меняющие результат для бесконечностей и NaN (например, {@code x*0 = 0}),
+ * не выполняются.
+ * </p>
+ */
+final class ExpressionOptimizer {
+    private int[] opcodes;
+    private int[] arg0;
+    private int[] arg1;
+    private int length;
+    private double[] constants;
+    private int constantCount;
+    private int[] callArgs = new int[8];
+    private int callArgsLength;
+    /** Значение регистра, если он содержит константу. */
+    private double[] constantValues;
+    private boolean[] isConstant;
+
+    private final Map<Long, Integer> constantRegisters = new HashMap<>();
+    private final Map<Long, Integer> instructions = new HashMap<>();
+    private final Map<String, Integer> calls = new HashMap<>();
+    /** Вычислять ли вызовы пользовательских функций с постоянными аргументами. */
+    private final boolean foldCalls;
+
+    private ExpressionOptimizer(int capacity, boolean foldCalls) {
+        this.foldCalls = foldCalls;
+        opcodes = new int[capacity];
+        arg0 = new int[capacity];
+        arg1 = new int[capacity];
+        constants = new double[capacity];
+        constantValues = new double[capacity];
+        isConstant = new boolean[capacity];
+    }
+
+    /**
+     * Оптимизирует программу выражения.
+     *
+     * @param program исходная программа
+     * @return оптимизированная программа с теми же слотами переменных
+     */
+    static Program optimize(Program program) {
+        return optimize(program, true);
+    }
+
+    /**
+     * Оптимизирует программу выражения, при необходимости сохраняя вызовы
+     * пользовательских функций с постоянными аргументами. Такие вызовы нужно
+     * сохранять, если функции будут связаны заново (например, при загрузке архива).
+     *
+     * @param program исходная программа
+     * @param foldCalls вычислять ли вызовы с постоянными аргументами при оптимизации
+     * @return оптимизированная программа с теми же слотами переменных
+     */
+    static Program optimize(Program program, boolean foldCalls) {
+        ExpressionOptimizer optimizer = new ExpressionOptimizer(program.length(), foldCalls);
+        int[] remap = new int[program.length()];
+        for (int i = 0; i < program.length(); i++) {
+            remap[i] = optimizer.rewrite(program, i, remap);
+        }
+        return optimizer.compact(program.functions, remap[program.length() - 1]);
+    }
+
+    /**
+     * Переписывает одну инструкцию исходной программы.
+     *
+     * @return регистр новой программы с результатом инструкции
+     */
+    private int rewrite(Program program, int i, int[] remap) {
+        int op = program.opcodes[i];
+        int a = program.arg0[i];
+        if (op == OpCode.CONST) {
+            return constant(program.constants[a]);
+        }
+        if (op == OpCode.VAR) {
+            return emit(OpCode.VAR, a, 0);
+        }
+        if (op == OpCode.CALL) {
+            return rewriteCall(program, i, remap);
+        }
+        int x = remap[a];
+        if (OpCode.isUnary(op)) {
+            if (isConstant[x]) {
+                Integer folded = fold(op, constantValues[x], 0);
+                if (folded != null) {
+                    return folded;
+                }
+            }
+            if (op == OpCode.NEG && opcodes[x] == OpCode.NEG) {
+                return arg0[x];
+            }
+            return emit(op, x, 0);
+        }
+
+        int y = remap[program.arg1[i]];
+        if (isConstant[x] && isConstant[y]) {
+            Integer folded = fold(op, constantValues[x], constantValues[y]);
+            if (folded != null) {
+                return folded;
+            }
+        }
+        switch (op) {
+            case OpCode.ADD:
+                if (isConstantEqual(y, 0)) return x;
+                if (isConstantEqual(x, 0)) return y;
+                break;
+            case OpCode.SUB:
+                if (isConstantEqual(y, 0)) return x;
+                if (isConstantEqual(x, 0)) return emit(OpCode.NEG, y, 0);
+                break;
+            case OpCode.MUL:
+                if (isConstantEqual(y, 1)) return x;
+                if (isConstantEqual(x, 1)) return y;
+                break;
+            case OpCode.DIV:
+                if (isConstantEqual(y, 1)) return x;
+                break;
+            case OpCode.POW:
+                if (isConstantEqual(y, 1)) return x;
+                if (isConstantEqual(y, 0) && cannotFail(x)) return constant(1);
+                if (isConstantEqual(y, 2)) return emit(OpCode.MUL, x, x);
+                break;
+            default:
+                break;
+        }
+        if ((op == OpCode.ADD || op == OpCode.MUL) && x > y) {
+            return emit(op, y, x);
+        }
+        return emit(op, x, y);
+    }
+
+    /**
+     * Переписывает вызов пользовательской функции: вычисляет его при постоянных
+     * аргументах или переиспользует такой же вызов.
+     */
+    private int rewriteCall(Program program, int i, int[] remap) {
+        int count = program.operandCount(i);
+        int[] arguments = new int[count];
+        boolean allConstant = true;
+        StringBuilder key = new StringBuilder().append(program.arg0[i]);
+        for (int k = 0; k < count; k++) {
+            arguments[k] = remap[program.operand(i, k)];
+            allConstant &= isConstant[arguments[k]];
+            key.append(',').append(arguments[k]);
+        }
+        MathFunction function = program.functions[program.arg0[i]];
+        if (allConstant && foldCalls) {
+            double[] values = new double[count];
+            for (int k = 0; k < count; k++) {
+                values[k] = constantValues[arguments[k]];
+            }
+            try {
+                return constant(function.apply(values, count));
+            } catch (RuntimeException e) {
+                // Ошибка должна возникнуть при вычислении, как и без оптимизации
+            }
+        }
+        Integer existing = calls.get(key.toString());
+        if (existing != null) {
+            return existing;
+        }
+        if (callArgsLength + count + 1 > callArgs.length) {
+            callArgs = Arrays.copyOf(callArgs, Math.max(callArgs.length * 2, callArgsLength + count + 1));
+        }
+        int offset = callArgsLength;
+        callArgs[callArgsLength++] = count;
+        System.arraycopy(arguments, 0, callArgs, callArgsLength, count);
+        callArgsLength += count;
+        int register = emit(OpCode.CALL, program.arg0[i], offset);
+        calls.put(key.toString(), register);
+        return register;
+    }
+
+    /**
+     * Пытается вычислить операцию над константами.
+     *
+     * @return регистр с константой или null, если вычисление завершилось ошибкой
+     */
+    private Integer fold(int op, double x, double y) {
+        try {
+            return constant(OpCode.apply(op, x, y));
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Проверяет, что вычисление регистра не может завершиться ошибкой,
+     * и поэтому его можно удалить вместе с использующей его инструкцией.
+     */
+    private boolean cannotFail(int register) {
+        return isConstant[register] || opcodes[register] == OpCode.VAR;
+    }
+
+    private boolean isConstantEqual(int register, double value) {
+        return isConstant[register] && constantValues[register] == value;
+    }
+
+    private int constant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        Integer existing = constantRegisters.get(bits);
+        if (existing != null) {
+            return existing;
+        }
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2 + 1);
+        }
+        constants[constantCount] = value;
+        int register = emit(OpCode.CONST, constantCount++, 0);
+        isConstant[register] = true;
+        constantValues[register] = value;
+        constantRegisters.put(bits, register);
+        return register;
+    }
+
+    /**
+     * Добавляет инструкцию или возвращает регистр такой же уже добавленной инструкции.
+     */
+    private int emit(int op, int a, int b) {
+        long key = ((long) op << 56) ^ ((long) a << 28) ^ b;
+        if (op != OpCode.CONST && op != OpCode.CALL) {
+            Integer existing = instructions.get(key);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        if (length == opcodes.length) {
+            int capacity = length * 2 + 1;
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            arg0 = Arrays.copyOf(arg0, capacity);
+            arg1 = Arrays.copyOf(arg1, capacity);
+            constantValues = Arrays.copyOf(constantValues, capacity);
+            isConstant = Arrays.copyOf(isConstant, capacity);
+        }
+        opcodes[length] = op;
+        arg0[length] = a;
+        arg1[length] = b;
+        if (op != OpCode.CONST && op != OpCode.CALL) {
+            instructions.put(key, length);
+        }
+        return length++;
+    }
+
+    /**
+     * Удаляет инструкции, от которых не зависит результат, и перенумеровывает регистры
+     * так, чтобы результат находился в последней инструкции.
+     */
+    private Program compact(MathFunction[] functions, int result) {
+        Program program = new Program(opcodes, arg0, arg1, constants, functions, callArgs);
+        boolean[] live = new boolean[length];
+        live[result] = true;
+        for (int i = result; i >= 0; i--) {
+            if (live[i]) {
+                for (int k = program.operandCount(i) - 1; k >= 0; k--) {
+                    live[program.operand(i, k)] = true;
+                }
+            }
+        }
+
+        int[] newIndex = new int[length];
+        int[] constantIndex = new int[constantCount];
+        Arrays.fill(constantIndex, -1);
+        int count = 0;
+        int newConstantCount = 0;
+        double[] newConstants = new double[constantCount];
+        int[] newCallArgs = new int[callArgsLength];
+        int newCallArgsLength = 0;
+        for (int i = 0; i <= result; i++) {
+            if (!live[i]) {
+                continue;
+            }
+            int op = opcodes[i];
+            int a = arg0[i];
+            int b = arg1[i];
+            if (op == OpCode.CONST) {
+                if (constantIndex[a] < 0) {
+                    newConstants[newConstantCount] = constants[a];
+                    constantIndex[a] = newConstantCount++;
+                }
+                a = constantIndex[a];
+            } else if (op == OpCode.CALL) {
+                int operands = callArgs[b];
+                newCallArgs[newCallArgsLength] = operands;
+                for (int k = 1; k <= operands; k++) {
+                    newCallArgs[newCallArgsLength + k] = newIndex[callArgs[b + k]];
+                }
+                b = newCallArgsLength;
+                newCallArgsLength += operands + 1;
+            } else if (OpCode.isUnary(op)) {
+                a = newIndex[a];
+            } else if (OpCode.isBinary(op)) {
+                a = newIndex[a];
+                b = newIndex[b];
+            }
+            opcodes[count] = op;
+            arg0[count] = a;
+            arg1[count] = b;
+            newIndex[i] = count++;
+        }
+        return new Program(
+                Arrays.copyOf(opcodes, count),
+                Arrays.copyOf(arg0, count),
+                Arrays.copyOf(arg1, count),
+                Arrays.copyOf(newConstants, newConstantCount),
+                functions,
+                Arrays.copyOf(newCallArgs, newCallArgsLength));
+    }
+}
@@ -0,0 +1,208 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Рекурсивный парсер математических выражений, который вместо немедленного
+ * вычисления строит программу {@link CompiledExpression}.
+ * <p>
+ * Грамматика совпадает с исходным калькулятором: сложение и вычитание, умножение
+ * и деление, правоассоциативная степень {@code ^}, унарные знаки, скобки,
+ * вызовы функций и переменные. Встроенные функции компилируются в отдельные
+ * инструкции, пользовательские — в вызовы {@link OpCode#CALL}, связанные
+ * с реализацией при компиляции.
+ * </p>
+ * <p>
+ * Текст предварительно разбивается на лексемы {@link ExpressionLexer}, буферы
+ * которого переиспользуются в пределах потока. Синтаксические ошибки сообщаются
+ * исключением {@link ExpressionSyntaxException} с позицией ошибки.
+ * </p>
+ */
+final class ExpressionParser {
+    /**
+     * Лексический анализатор потока. Во время разбора пользовательский код не вызывается,
+     * поэтому повторный вход в парсер из того же потока невозможен.
+     */
+    private static final ThreadLocal<ExpressionLexer> LEXER = ThreadLocal.withInitial(ExpressionLexer::new);
+
+    private final ExpressionLexer lexer;
+    private final Map<String, MathFunction> functions;
+    private final ProgramBuilder builder = new ProgramBuilder();
+    private int token;
+
+    private ExpressionParser(ExpressionLexer lexer, Map<String, MathFunction> functions) {
+        this.lexer = lexer;
+        this.functions = functions;
+    }
+
+    /**
+     * Разбирает выражение и компилирует его.
+     *
+     * @param expr выражение для разбора
+     * @param functions доступные функции по именам
+     * @param variableOrder переменные, которым слоты назначаются в указанном порядке;
+     *                      остальные переменные получают слоты в порядке появления
+     * @return скомпилированное и оптимизированное выражение
+     * @throws ExpressionSyntaxException при синтаксической ошибке
+     * @throws IllegalArgumentException если переменная в списке указана дважды
+     */
+    static CompiledExpression compile(String expr, Map<String, MathFunction> functions, String... variableOrder) {
+        return parse(expr, functions, variableOrder).optimize();
+    }
+
+    /**
+     * Разбирает выражение без оптимизации программы. Константы остаются в том виде,
+     * в каком записаны в тексте, что нужно режимам вычисления не в {@code double}.
+     *
+     * @param expr выражение для разбора
+     * @param functions доступные функции по именам
+     * @param variableOrder переменные, которым слоты назначаются в указанном порядке
+     * @return выражение с программой в порядке разбора
+     * @throws ExpressionSyntaxException при синтаксической ошибке
+     * @throws IllegalArgumentException если переменная в списке указана дважды
+     */
+    static CompiledExpression parse(String expr, Map<String, MathFunction> functions, String... variableOrder) {
+        ExpressionLexer lexer = LEXER.get();
+        lexer.tokenize(expr);
+        ExpressionParser parser = new ExpressionParser(lexer, functions);
+        for (String name : variableOrder) {
+            parser.builder.declare(name);
+        }
+        parser.parse();
+        return parser.builder.build(expr);
+    }
+
+    /**
+     * Пропускает текущую лексему, если она указанного вида.
+     *
+     * @param kind вид лексемы
+     * @return true если лексема совпадает
+     */
+    private boolean eat(int kind) {
+        if (lexer.kinds[token] == kind) {
+            token++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Начинает разбор выражения.
+     */
+    private void parse() {
+        parseExpression();
+        if (lexer.kinds[token] != ExpressionLexer.END) throw unexpectedToken();
+    }
+
+    /**
+     * Обрабатывает операции сложения и вычитания.
+     *
+     * @return регистр с результатом
+     */
+    private int parseExpression() {
+        int x = parseTerm();
+        for (;;) {
+            if      (eat(ExpressionLexer.PLUS)) x = builder.binary(OpCode.ADD, x, parseTerm());
+            else if (eat(ExpressionLexer.MINUS)) x = builder.binary(OpCode.SUB, x, parseTerm());
+            else return x;
+        }
+    }
+
+    /**
+     * Обрабатывает операции умножения и деления.
+     *
+     * @return регистр с результатом
+     */
+    private int parseTerm() {
+        int x = parseFactor();
+        for (;;) {
+            if      (eat(ExpressionLexer.STAR)) x = builder.binary(OpCode.MUL, x, parseFactor());
+            else if (eat(ExpressionLexer.SLASH)) x = builder.binary(OpCode.DIV, x, parseFactor());
+            else return x;
+        }
+    }
+
+    /**
+     * Обрабатывает числа, скобки, функции, переменные и унарные операторы.
+     *
+     * @return регистр с результатом
+     */
+    private int parseFactor() {
+        if (eat(ExpressionLexer.PLUS)) return parseFactor();
+        if (eat(ExpressionLexer.MINUS)) return builder.unary(OpCode.NEG, parseFactor());
+
+        int x;
+        int current = token;
+        if (eat(ExpressionLexer.LEFT_PAREN)) {
+            x = parseExpression();
+            if (!eat(ExpressionLexer.RIGHT_PAREN)) throw error("Не хватает закрывающей скобки");
+        } else if (eat(ExpressionLexer.NUMBER)) {
+            x = builder.constant(lexer.numbers[current]);
+        } else if (eat(ExpressionLexer.NAME)) {
+            int id = lexer.values[current];
+            x = eat(ExpressionLexer.LEFT_PAREN) ? parseFunction(id, current) : builder.variable(lexer.name(id));
+        } else {
+            throw unexpectedToken();
+        }
+
+        if (eat(ExpressionLexer.CARET)) {
+            x = builder.binary(OpCode.POW, x, parseFactor());
+        }
+        return x;
+    }
+
+    /**
+     * Обрабатывает аргументы функции после открывающей скобки.
+     *
+     * @param id номер имени функции в таблице имен
+     * @param nameToken номер лексемы с именем функции
+     * @return регистр с результатом
+     */
+    private int parseFunction(int id, int nameToken) {
+        String func = lexer.name(id);
+        MathFunction function = functions.get(func);
+        if (function == null) {
+            throw new ExpressionSyntaxException("Неизвестная функция: " + func, lexer.positions[nameToken]);
+        }
+
+        int[] arguments = new int[4];
+        int count = 0;
+        if (!eat(ExpressionLexer.RIGHT_PAREN)) {
+            do {
+                int argument = parseExpression();
+                if (count == arguments.length) {
+                    arguments = Arrays.copyOf(arguments, count * 2);
+                }
+                arguments[count++] = argument;
+            } while (eat(ExpressionLexer.COMMA));
+            if (!eat(ExpressionLexer.RIGHT_PAREN)) {
+                throw error("Не хватает закрывающей скобки после аргументов функции " + func);
+            }
+        }
+        if (!function.acceptsArity(count)) {
+            throw new ExpressionSyntaxException("Функция " + function + " не принимает аргументов: " + count,
+                    lexer.positions[nameToken]);
+        }
+
+        if (func.equals("pow")) {
+            return builder.binary(OpCode.POW, arguments[0], arguments[1]);
+        }
+        int op = OpCode.unaryFunction(func);
+        if (op >= 0) {
+            return builder.unary(op, arguments[0]);
+        }
+        return builder.call(function, Arrays.copyOf(arguments, count), count);
+    }
+
+    private ExpressionSyntaxException error(String reason) {
+        return new ExpressionSyntaxException(reason, lexer.positions[token]);
+    }
+
+    private ExpressionSyntaxException unexpectedToken() {
+        if (lexer.kinds[token] == ExpressionLexer.END) {
+            return error("Неожиданный конец выражения");
+        }
+        return error("Неожиданный символ: " + lexer.firstChar(token));
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+/**
+ * Синтаксическая ошибка в тексте выражения.
+ * <p>
+ * Исключение не заполняет трассировку стека: синтаксические ошибки возникают
+ * при обработке пользовательского ввода и сообщаются вызывающему коду сообщением
+ * и позицией, поэтому дорогой обход стека на каждой ошибке не нужен.
+ * </p>
+ */
+final class ExpressionSyntaxException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final String reason;
+    private final int position;
+
+    /**
+     * Создает исключение.
+     *
+     * @param reason описание ошибки
+     * @param position позиция ошибки в разбираемом тексте (с нуля)
+     */
+    ExpressionSyntaxException(String reason, int position) {
+        super(reason);
+        this.reason = reason;
+        this.position = position;
+    }
+
+    /**
+     * Возвращает такую же ошибку с другой позицией.
+     *
+     * @param newPosition позиция ошибки (с нуля)
+     * @return новое исключение
+     */
+    ExpressionSyntaxException withPosition(int newPosition) {
+        return new ExpressionSyntaxException(reason, newPosition);
+    }
+
+    /**
+     * Возвращает описание ошибки без позиции.
+     *
+     * @return описание ошибки
+     */
+    String getReason() {
+        return reason;
+    }
+
+    /**
+     * Возвращает позицию ошибки в разбираемом тексте.
+     *
+     * @return позиция с нуля
+     */
+    int getPosition() {
+        return position;
+    }
+
+    /**
+     * Возвращает описание ошибки с номером столбца (с единицы).
+     *
+     * @return сообщение об ошибке
+     */
+    @Override
+    public String getMessage() {
+        return reason + " (позиция " + (position + 1) + ")";
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
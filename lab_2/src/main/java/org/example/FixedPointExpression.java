@@ -0,0 +1,456 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Выражение, вычисляемое в целых числах {@code long} или в десятичных числах
+ * с фиксированной точкой.
+ * <p>
+ * Число с {@code scale} знаками после запятой хранится как {@code long}, равный
+ * значению, умноженному на {@code 10^scale} (при {@code scale = 0} — обычное целое).
+ * Сложение и вычитание точны, умножение, деление и степень округляются до {@code scale}
+ * знаков заданным способом округления (степень — один раз, а не на каждом умножении). Переполнение {@code long} не допускается:
+ * вместо неверного результата выбрасывается {@link ArithmeticException}.
+ * Вычисление не использует {@code double}, упаковку чисел и {@link BigDecimal}
+ * (кроме редкого случая, когда промежуточное произведение не помещается в {@code long}).
+ * </p>
+ * <p>
+ * Операции выбираются при компиляции: для целых чисел умножение не масштабируется,
+ * а константы заранее переводятся в масштабированный вид. Доступны {@code + - * /},
+ * унарный минус, {@code ^} и {@code pow} с целым неотрицательным показателем и {@code abs};
+ * остальные функции дают нецелые результаты и в этом режиме не поддерживаются.
+ * Константы должны записываться не более чем с {@code scale} знаками после запятой.
+ * </p>
+ * <p>
+ * Экземпляр неизменяем и может вычисляться параллельно из нескольких потоков.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * FixedPointExpression total = calculator.compileFixedPoint("price * qty * 1.2", 2, RoundingMode.HALF_UP);
+ * long cents = total.evaluate(total.toUnscaled(new BigDecimal("19.99")), total.toUnscaled(3));
+ * BigDecimal value = total.toDecimal(cents); // 71.96
+ * }</pre>
+ * </p>
+ */
+public final class FixedPointExpression {
+    private static final int CONST = 0;
+    private static final int VAR = 1;
+    private static final int NEG = 2;
+    private static final int ADD = 3;
+    private static final int SUB = 4;
+    private static final int MUL = 5;
+    private static final int DIV = 6;
+    private static final int POW = 7;
+    private static final int ABS = 8;
+    /** Умножение с масштабированием результата (при {@code scale > 0}). */
+    private static final int MUL_SCALED = 9;
+    /** Наибольший размер точной степени в битах, который вычисляется в {@link BigInteger}. */
+    private static final long MAX_EXACT_POWER_BITS = 1 << 16;
+
+    private final String source;
+    private final String[] variables;
+    private final int scale;
+    private final long one;
+    private final RoundingMode rounding;
+    private final int[] opcodes;
+    private final int[] arg0;
+    private final int[] arg1;
+    private final long[] constants;
+
+    private FixedPointExpression(String source, String[] variables, int scale, RoundingMode rounding,
+                                 int[] opcodes, int[] arg0, int[] arg1, long[] constants) {
+        this.source = source;
+        this.variables = variables;
+        this.scale = scale;
+        this.one = pow10(scale);
+        this.rounding = rounding;
+        this.opcodes = opcodes;
+        this.arg0 = arg0;
+        this.arg1 = arg1;
+        this.constants = constants;
+    }
+
+    /**
+     * Переводит разобранное выражение в целочисленную программу.
+     *
+     * @param expression неоптимизированное выражение: его константы идут в порядке записи в тексте
+     * @param scale число знаков после запятой, от 0 до 18
+     * @param rounding способ округления умножения и деления
+     * @return выражение в арифметике с фиксированной точкой
+     * @throws IllegalArgumentException если выражение использует недоступные функции
+     *         или константу нельзя записать с заданным числом знаков
+     */
+    static FixedPointExpression compile(CompiledExpression expression, int scale, RoundingMode rounding) {
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("Число знаков после запятой должно быть от 0 до 18: " + scale);
+        }
+        if (rounding == null) {
+            throw new NullPointerException("rounding");
+        }
+        Program program = expression.program();
+        int length = program.length();
+        int[] opcodes = new int[length];
+        long[] constants = new long[program.constants.length];
+        ExpressionLexer lexer = new ExpressionLexer();
+        lexer.tokenize(expression.getSource());
+        for (int token = 0, c = 0; c < constants.length; token++) {
+            if (lexer.kinds[token] == ExpressionLexer.NUMBER) {
+                constants[c++] = toUnscaled(lexer.literal(token), scale);
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            opcodes[i] = translate(program.opcodes[i], scale);
+        }
+        return new FixedPointExpression(expression.getSource(),
+                expression.getVariables().toArray(new String[0]), scale, rounding,
+                opcodes, program.arg0.clone(), program.arg1.clone(), constants);
+    }
+
+    private static int translate(int op, int scale) {
+        switch (op) {
+            case OpCode.CONST: return CONST;
+            case OpCode.VAR: return VAR;
+            case OpCode.NEG: return NEG;
+            case OpCode.ADD: return ADD;
+            case OpCode.SUB: return SUB;
+            case OpCode.MUL: return scale == 0 ? MUL : MUL_SCALED;
+            case OpCode.DIV: return DIV;
+            case OpCode.POW: return POW;
+            case OpCode.ABS: return ABS;
+            default:
+                throw new IllegalArgumentException("Операция недоступна в арифметике с фиксированной точкой: "
+                        + operationName(op));
+        }
+    }
+
+    private static String operationName(int op) {
+        switch (op) {
+            case OpCode.SQRT: return "sqrt";
+            case OpCode.SIN: return "sin";
+            case OpCode.COS: return "cos";
+            case OpCode.TAN: return "tan";
+            case OpCode.LN: return "ln";
+            case OpCode.LOG10: return "log10";
+            case OpCode.LOG2: return "log2";
+            default: return "вызов пользовательской функции";
+        }
+    }
+
+    /**
+     * Переводит константу в масштабированный вид по ее записи в тексте, а не по
+     * значению {@code double}, которое теряет точность за пределами 2^53.
+     */
+    private static long toUnscaled(String literal, int scale) {
+        BigDecimal constant = new BigDecimal(literal);
+        try {
+            return constant.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Константа " + constant.toPlainString()
+                    + " не представима с " + scale + " знаками после запятой");
+        }
+    }
+
+    /**
+     * Возвращает исходный текст выражения.
+     *
+     * @return исходный текст выражения
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Возвращает число знаков после запятой.
+     *
+     * @return масштаб чисел выражения
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Возвращает способ округления умножения и деления.
+     *
+     * @return способ округления
+     */
+    public RoundingMode getRounding() {
+        return rounding;
+    }
+
+    /**
+     * Возвращает имена переменных в порядке их слотов.
+     *
+     * @return неизменяемый список имен переменных
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Переводит десятичное число в масштабированное представление выражения.
+     *
+     * @param value число
+     * @return значение, умноженное на {@code 10^scale}
+     * @throws ArithmeticException если у числа больше знаков после запятой, чем {@code scale},
+     *         или результат не помещается в {@code long}
+     */
+    public long toUnscaled(BigDecimal value) {
+        return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Переводит целое число в масштабированное представление выражения.
+     *
+     * @param value число
+     * @return значение, умноженное на {@code 10^scale}
+     * @throws ArithmeticException если результат не помещается в {@code long}
+     */
+    public long toUnscaled(long value) {
+        return Math.multiplyExact(value, one);
+    }
+
+    /**
+     * Переводит масштабированное значение в десятичное число.
+     *
+     * @param unscaled значение, умноженное на {@code 10^scale}
+     * @return десятичное число с {@code scale} знаками после запятой
+     */
+    public BigDecimal toDecimal(long unscaled) {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Вычисляет выражение.
+     *
+     * @param slots масштабированные значения переменных по номерам слотов
+     * @return масштабированное значение выражения
+     * @throws IllegalArgumentException если число значений не совпадает с числом слотов
+     * @throws ArithmeticException при переполнении, делении на ноль, отрицательном
+     *         или нецелом показателе степени, а также при {@link RoundingMode#UNNECESSARY},
+     *         если результат требует округления
+     */
+    public long evaluate(long... slots) {
+        if (slots.length != variables.length) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variables.length
+                    + ", передано: " + slots.length);
+        }
+        int length = opcodes.length;
+        long[] registers = new long[length];
+        for (int i = 0; i < length; i++) {
+            switch (opcodes[i]) {
+                case CONST:
+                    registers[i] = constants[arg0[i]];
+                    break;
+                case VAR:
+                    registers[i] = slots[arg0[i]];
+                    break;
+                case NEG:
+                    registers[i] = Math.negateExact(registers[arg0[i]]);
+                    break;
+                case ABS:
+                    long value = registers[arg0[i]];
+                    registers[i] = value < 0 ? Math.negateExact(value) : value;
+                    break;
+                case ADD:
+                    registers[i] = Math.addExact(registers[arg0[i]], registers[arg1[i]]);
+                    break;
+                case SUB:
+                    registers[i] = Math.subtractExact(registers[arg0[i]], registers[arg1[i]]);
+                    break;
+                case MUL:
+                    registers[i] = Math.multiplyExact(registers[arg0[i]], registers[arg1[i]]);
+                    break;
+                case MUL_SCALED:
+                    registers[i] = multiplyScaled(registers[arg0[i]], registers[arg1[i]]);
+                    break;
+                case DIV:
+                    registers[i] = divide(registers[arg0[i]], registers[arg1[i]]);
+                    break;
+                default:
+                    registers[i] = power(registers[arg0[i]], registers[arg1[i]]);
+            }
+        }
+        return registers[length - 1];
+    }
+
+    /**
+     * Произведение масштабированных чисел: {@code a * b / 10^scale} с округлением.
+     */
+    private long multiplyScaled(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return divideRounded(low, one, rounding);
+        }
+        return viaBigInteger(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)), BigInteger.valueOf(one));
+    }
+
+    /**
+     * Частное масштабированных чисел: {@code a * 10^scale / b} с округлением.
+     */
+    private long divide(long a, long b) {
+        if (b == 0) {
+            throw new ArithmeticException("Деление на ноль");
+        }
+        long high = Math.multiplyHigh(a, one);
+        long low = a * one;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            if (low == Long.MIN_VALUE && b == -1) {
+                throw new ArithmeticException("long overflow");
+            }
+            return divideRounded(low, b, rounding);
+        }
+        return viaBigInteger(BigInteger.valueOf(a).multiply(BigInteger.valueOf(one)), BigInteger.valueOf(b));
+    }
+
+    private long viaBigInteger(BigInteger numerator, BigInteger denominator) {
+        return new BigDecimal(numerator).divide(new BigDecimal(denominator), 0, rounding)
+                .toBigInteger().longValueExact();
+    }
+
+    /**
+     * Возведение в целую неотрицательную степень. Целые числа возводятся последовательным
+     * возведением в квадрат в {@code long}. Для {@code scale > 0} степень вычисляется точно
+     * в {@link BigInteger} и округляется один раз: округление каждого промежуточного
+     * произведения накапливало бы ошибку.
+     */
+    private long power(long base, long exponent) {
+        if (exponent % one != 0 || exponent < 0) {
+            throw new ArithmeticException("Показатель степени должен быть целым неотрицательным числом");
+        }
+        long n = exponent / one;
+        if (scale > 0) {
+            return scaledPower(base, n);
+        }
+        long result = 1;
+        long square = base;
+        while (n > 0) {
+            if ((n & 1) != 0) {
+                result = Math.multiplyExact(result, square);
+            }
+            n >>= 1;
+            if (n > 0) {
+                square = Math.multiplyExact(square, square);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Степень масштабированного числа с одним округлением: {@code base^n / 10^(scale(n-1))}.
+     * Если точное значение занимает слишком много бит (огромный показатель), величина
+     * результата оценивается по логарифму: слишком большая означает переполнение, слишком
+     * малая округляется так же, как любое число из (0, 1/4) младшего разряда, а значение
+     * вблизи единицы считается в {@link BigDecimal} с запасом точности.
+     */
+    private long scaledPower(long base, long n) {
+        if (n == 0 || base == one) {
+            return one;
+        }
+        if (base == 0) {
+            return 0;
+        }
+        int sign = base < 0 && (n & 1) != 0 ? -1 : 1;
+        if (base == -one) {
+            return sign * one;
+        }
+        long magnitude = Math.abs(base);
+        if (n <= MAX_EXACT_POWER_BITS / (64 - Long.numberOfLeadingZeros(magnitude))) {
+            int k = (int) n;
+            return viaBigInteger(BigInteger.valueOf(base).pow(k), BigInteger.valueOf(one).pow(k - 1));
+        }
+        double log2 = n * (Math.log(magnitude) - Math.log(one)) / Math.log(2) + Math.log(one) / Math.log(2);
+        if (log2 > 66) {
+            throw new ArithmeticException("long overflow");
+        }
+        if (log2 < -4) {
+            return viaBigInteger(BigInteger.valueOf(sign), BigInteger.valueOf(4));
+        }
+        MathContext context = new MathContext(40 + scale);
+        BigDecimal result = BigDecimal.ONE;
+        BigDecimal square = BigDecimal.valueOf(base, scale);
+        for (long k = n; k > 0; k >>= 1) {
+            if ((k & 1) != 0) {
+                result = result.multiply(square, context);
+            }
+            if (k > 1) {
+                square = square.multiply(square, context);
+            }
+        }
+        return result.setScale(scale, rounding).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Делит целые числа с округлением частного заданным способом.
+     *
+     * @param numerator делимое
+     * @param denominator делитель, не равный нулю
+     * @param rounding способ округления
+     * @return округленное частное
+     * @throws ArithmeticException при {@link RoundingMode#UNNECESSARY}, если деление неточное
+     */
+    static long divideRounded(long numerator, long denominator, RoundingMode rounding) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = (numerator ^ denominator) < 0 ? -1 : 1;
+        boolean increment;
+        switch (rounding) {
+            case DOWN:
+                increment = false;
+                break;
+            case UP:
+                increment = true;
+                break;
+            case FLOOR:
+                increment = sign < 0;
+                break;
+            case CEILING:
+                increment = sign > 0;
+                break;
+            case UNNECESSARY:
+                throw new ArithmeticException("Результат требует округления");
+            default:
+                // Сравниваем |остаток| с половиной |делителя| без переполнения
+                long r = Math.abs(remainder);
+                long rest = Math.abs(denominator) - r;
+                if (r != rest) {
+                    increment = r > rest;
+                } else if (rounding == RoundingMode.HALF_UP) {
+                    increment = true;
+                } else if (rounding == RoundingMode.HALF_DOWN) {
+                    increment = false;
+                } else {
+                    increment = (quotient & 1) != 0;
+                }
+        }
+        return increment ? quotient + sign : quotient;
+    }
+
+    /**
+     * Возвращает исходный текст выражения.
+     *
+     * @return исходный текст выражения
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static long pow10(int scale) {
+        long result = 1;
+        for (int i = 0; i < scale; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
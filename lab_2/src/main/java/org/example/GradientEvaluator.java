@@ -0,0 +1,278 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Вычисление значения скомпилированного выражения вместе с градиентом
+ * по всем его переменным методом автоматического дифференцирования.
+ * <p>
+ * Поддерживаются два режима, дающие одинаковый результат:
+ * <ul>
+ *   <li>{@link #gradient(double[], double[])} — обратный режим: программа выполняется
+ *       один раз вперед, затем производные (сопряженные значения) распространяются
+ *       от результата к переменным. Стоимость не зависит от числа переменных;</li>
+ *   <li>{@link #gradientForward(double[], double[])} — прямой режим на дуальных числах:
+ *       вместе с каждым регистром вычисляется вектор его производных по всем
+ *       переменным. Выгоден для выражений с одной-двумя переменными.</li>
+ * </ul>
+ * Слоты переменных совпадают со слотами выражения (см. {@link CompiledExpression#getVariables()});
+ * для выражений, скомпилированных через {@link Calculator#compile(String)}, это порядок
+ * {@link Calculator#findVariables(String)}.
+ * </p>
+ * <p>
+ * Все рабочие массивы создаются в конструкторе, поэтому вычисление градиента
+ * не выделяет память. Экземпляр не потокобезопасен: каждому потоку нужен свой
+ * вычислитель, при этом само выражение можно разделять между потоками.
+ * </p>
+ * <p>
+ * Производные встроенных операций вычисляются точно. Для пользовательских функций
+ * производные неизвестны, поэтому частные производные вызова оцениваются
+ * центральной разностью по каждому аргументу.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * CompiledExpression f = calculator.compile("x^2 * y + sin(y)");
+ * GradientEvaluator evaluator = new GradientEvaluator(f);
+ * double[] gradient = new double[2];
+ * double value = evaluator.gradient(new double[] {3, 0}, gradient); // gradient = {0, 10}
+ * }</pre>
+ * </p>
+ */
+public final class GradientEvaluator {
+    private static final double LN_2 = Math.log(2);
+    private static final double LN_10 = Math.log(10);
+
+    private final Program program;
+    private final int variableCount;
+    /** Зависит ли регистр от какой-либо переменной. */
+    private final boolean[] active;
+    private final double[] values;
+    private final double[] adjoints;
+    private final double[] tangents;
+    private final double[] scratch;
+    private final double[] partials;
+
+    /**
+     * Создает вычислитель градиента для выражения.
+     *
+     * @param expression скомпилированное выражение
+     */
+    public GradientEvaluator(CompiledExpression expression) {
+        this.program = expression.program();
+        this.variableCount = expression.getVariables().size();
+        int length = program.length();
+        this.active = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            boolean depends = program.opcodes[i] == OpCode.VAR;
+            for (int k = 0; k < program.operandCount(i) && !depends; k++) {
+                depends = active[program.operand(i, k)];
+            }
+            active[i] = depends;
+        }
+        this.values = new double[length];
+        this.adjoints = new double[length];
+        this.tangents = new double[length * variableCount];
+        this.scratch = new double[program.maxCallArity];
+        this.partials = new double[program.maxCallArity];
+    }
+
+    /**
+     * Вычисляет значение и градиент выражения в обратном режиме.
+     *
+     * @param slots значения переменных по номерам слотов
+     * @param gradient массив для частных производных по номерам слотов
+     * @return значение выражения
+     * @throws IllegalArgumentException если длины массивов не совпадают с числом переменных
+     *         или аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public double gradient(double[] slots, double[] gradient) {
+        checkLengths(slots, gradient);
+        evaluateValues(slots);
+        int last = values.length - 1;
+        Arrays.fill(adjoints, 0);
+        Arrays.fill(gradient, 0);
+        adjoints[last] = 1;
+        int[] opcodes = program.opcodes;
+        int[] arg0 = program.arg0;
+        int[] arg1 = program.arg1;
+        for (int i = last; i >= 0; i--) {
+            double adjoint = adjoints[i];
+            if (adjoint == 0 || !active[i]) {
+                continue;
+            }
+            int op = opcodes[i];
+            switch (op) {
+                case OpCode.VAR:
+                    gradient[arg0[i]] += adjoint;
+                    break;
+                case OpCode.CALL:
+                    int offset = program.arg1[i];
+                    int count = program.callArgs[offset];
+                    callPartials(i);
+                    for (int k = 0; k < count; k++) {
+                        adjoints[program.callArgs[offset + 1 + k]] += adjoint * partials[k];
+                    }
+                    break;
+                default:
+                    int a = arg0[i];
+                    if (OpCode.isBinary(op)) {
+                        int b = arg1[i];
+                        if (active[a]) adjoints[a] += adjoint * leftPartial(op, values[a], values[b], values[i]);
+                        if (active[b]) adjoints[b] += adjoint * rightPartial(op, values[a], values[b], values[i]);
+                    } else {
+                        adjoints[a] += adjoint * unaryDerivative(op, values[a], values[i]);
+                    }
+            }
+        }
+        return values[last];
+    }
+
+    /**
+     * Вычисляет значение и градиент выражения в прямом режиме (на дуальных числах).
+     *
+     * @param slots значения переменных по номерам слотов
+     * @param gradient массив для частных производных по номерам слотов
+     * @return значение выражения
+     * @throws IllegalArgumentException если длины массивов не совпадают с числом переменных
+     *         или аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public double gradientForward(double[] slots, double[] gradient) {
+        checkLengths(slots, gradient);
+        int n = variableCount;
+        int[] opcodes = program.opcodes;
+        int[] arg0 = program.arg0;
+        int[] arg1 = program.arg1;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = program.execute(i, values, slots, scratch);
+            int base = i * n;
+            int op = opcodes[i];
+            if (!active[i]) {
+                Arrays.fill(tangents, base, base + n, 0);
+            } else if (op == OpCode.VAR) {
+                Arrays.fill(tangents, base, base + n, 0);
+                tangents[base + arg0[i]] = 1;
+            } else if (op == OpCode.CALL) {
+                Arrays.fill(tangents, base, base + n, 0);
+                int offset = arg1[i];
+                int count = program.callArgs[offset];
+                callPartials(i);
+                for (int k = 0; k < count; k++) {
+                    int argBase = program.callArgs[offset + 1 + k] * n;
+                    double partial = partials[k];
+                    for (int j = 0; j < n; j++) tangents[base + j] += partial * tangents[argBase + j];
+                }
+            } else if (OpCode.isBinary(op)) {
+                int a = arg0[i];
+                int b = arg1[i];
+                double da = active[a] ? leftPartial(op, values[a], values[b], values[i]) : 0;
+                double db = active[b] ? rightPartial(op, values[a], values[b], values[i]) : 0;
+                int aBase = a * n;
+                int bBase = b * n;
+                for (int j = 0; j < n; j++) {
+                    tangents[base + j] = da * tangents[aBase + j] + db * tangents[bBase + j];
+                }
+            } else {
+                double d = unaryDerivative(op, values[arg0[i]], values[i]);
+                int aBase = arg0[i] * n;
+                for (int j = 0; j < n; j++) tangents[base + j] = d * tangents[aBase + j];
+            }
+        }
+        System.arraycopy(tangents, (values.length - 1) * n, gradient, 0, n);
+        return values[values.length - 1];
+    }
+
+    private void checkLengths(double[] slots, double[] gradient) {
+        if (slots.length != variableCount || gradient.length != variableCount) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variableCount
+                    + ", передано: " + slots.length + ", длина градиента: " + gradient.length);
+        }
+    }
+
+    private void evaluateValues(double[] slots) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = program.execute(i, values, slots, scratch);
+        }
+    }
+
+    /**
+     * Оценивает частные производные вызова пользовательской функции центральными
+     * разностями и записывает их в {@link #partials}.
+     */
+    private void callPartials(int i) {
+        MathFunction function = program.functions[program.arg0[i]];
+        int offset = program.arg1[i];
+        int count = program.callArgs[offset];
+        for (int k = 0; k < count; k++) {
+            scratch[k] = values[program.callArgs[offset + 1 + k]];
+        }
+        for (int k = 0; k < count; k++) {
+            double x = scratch[k];
+            double h = 1e-6 * Math.max(1, Math.abs(x));
+            scratch[k] = x + h;
+            double upper = function.apply(scratch, count);
+            scratch[k] = x - h;
+            double lower = function.apply(scratch, count);
+            scratch[k] = x;
+            partials[k] = (upper - lower) / (2 * h);
+        }
+    }
+
+    /**
+     * Производная унарной операции по операнду.
+     *
+     * @param op код инструкции
+     * @param x значение операнда
+     * @param r значение результата
+     */
+    private static double unaryDerivative(int op, double x, double r) {
+        switch (op) {
+            case OpCode.NEG: return -1;
+            case OpCode.SQRT: return 0.5 / r;
+            case OpCode.SIN: return Math.cos(x);
+            case OpCode.COS: return -Math.sin(x);
+            case OpCode.TAN: {
+                double c = Math.cos(x);
+                return 1 / (c * c);
+            }
+            case OpCode.LN: return 1 / x;
+            case OpCode.LOG10: return 1 / (x * LN_10);
+            case OpCode.LOG2: return 1 / (x * LN_2);
+            case OpCode.ABS: return Math.signum(x);
+            default:
+                throw new IllegalStateException("Неизвестная инструкция: " + op);
+        }
+    }
+
+    /**
+     * Частная производная бинарной операции по левому операнду.
+     */
+    private static double leftPartial(int op, double x, double y, double r) {
+        switch (op) {
+            case OpCode.ADD:
+            case OpCode.SUB: return 1;
+            case OpCode.MUL: return y;
+            case OpCode.DIV: return 1 / y;
+            case OpCode.POW: return y == 0 ? 0 : y * Math.pow(x, y - 1);
+            default:
+                throw new IllegalStateException("Неизвестная инструкция: " + op);
+        }
+    }
+
+    /**
+     * Частная производная бинарной операции по правому операнду.
+     */
+    private static double rightPartial(int op, double x, double y, double r) {
+        switch (op) {
+            case OpCode.ADD: return 1;
+            case OpCode.SUB: return -1;
+            case OpCode.MUL: return x;
+            case OpCode.DIV: return -r / y;
+            case OpCode.POW: return r == 0 ? 0 : r * Math.log(x);
+            default:
+                throw new IllegalStateException("Неизвестная инструкция: " + op);
+        }
+    }
+}
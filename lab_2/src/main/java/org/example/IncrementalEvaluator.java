@@ -0,0 +1,196 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Вычислитель выражения с запоминанием промежуточных значений, который при
+ * изменении части переменных пересчитывает только зависящие от них инструкции.
+ * <p>
+ * Для каждой переменной при создании вычислителя строится список инструкций,
+ * прямо или косвенно читающих ее значение. Изменение переменной помечает эти
+ * инструкции устаревшими; {@link #evaluate()} выполняет только помеченные
+ * инструкции в порядке программы, остальные регистры берутся из предыдущего
+ * вычисления. Так стоимость шага зависит от того, что изменилось, а не от
+ * размера формулы. Присваивание переменной прежнего значения ничего не помечает.
+ * </p>
+ * <p>
+ * Экземпляр хранит состояние и не потокобезопасен; само выражение можно разделять
+ * между несколькими вычислителями.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * IncrementalEvaluator state = new IncrementalEvaluator(calculator.compile(formula));
+ * state.setAll(initialValues);
+ * for (int step = 0; step < steps; step++) {
+ *     state.set("t", step * dt);
+ *     double y = state.evaluate();
+ * }
+ * }</pre>
+ * </p>
+ */
+public final class IncrementalEvaluator {
+    private final CompiledExpression expression;
+    private final Program program;
+    /** Инструкции, зависящие от переменной, по номерам слотов (по возрастанию). */
+    private final int[][] dependents;
+    private final double[] slots;
+    private final double[] registers;
+    private final double[] scratch;
+    private final boolean[] dirty;
+    /** Устаревшие инструкции, ожидающие пересчета. */
+    private final int[] pending;
+    private int pendingCount;
+    private int recomputed;
+
+    /**
+     * Создает вычислитель. Все переменные изначально равны нулю, первое вычисление
+     * выполняет всю программу.
+     *
+     * @param expression скомпилированное выражение
+     */
+    public IncrementalEvaluator(CompiledExpression expression) {
+        this.expression = expression;
+        this.program = expression.program();
+        int length = program.length();
+        int variableCount = expression.getVariables().size();
+        this.dependents = new int[variableCount][];
+        boolean[] depends = new boolean[length];
+        int[] buffer = new int[length];
+        for (int slot = 0; slot < variableCount; slot++) {
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                boolean d = program.opcodes[i] == OpCode.VAR && program.arg0[i] == slot;
+                for (int k = 0; k < program.operandCount(i) && !d; k++) {
+                    d = depends[program.operand(i, k)];
+                }
+                depends[i] = d;
+                if (d) buffer[count++] = i;
+            }
+            dependents[slot] = Arrays.copyOf(buffer, count);
+        }
+        this.slots = new double[variableCount];
+        this.registers = new double[length];
+        this.scratch = new double[program.maxCallArity];
+        this.dirty = new boolean[length];
+        this.pending = new int[length];
+        for (int i = 0; i < length; i++) {
+            markDirty(i);
+        }
+    }
+
+    /**
+     * Возвращает выражение, которое вычисляет этот вычислитель.
+     *
+     * @return скомпилированное выражение
+     */
+    public CompiledExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Задает значение переменной по номеру слота.
+     *
+     * @param slot номер слота (см. {@link CompiledExpression#getVariables()})
+     * @param value новое значение
+     * @throws IllegalArgumentException если слота нет
+     */
+    public void set(int slot, double value) {
+        if (slot < 0 || slot >= slots.length) {
+            throw new IllegalArgumentException("Нет слота переменной: " + slot);
+        }
+        if (Double.doubleToRawLongBits(slots[slot]) == Double.doubleToRawLongBits(value)) {
+            return;
+        }
+        slots[slot] = value;
+        for (int i : dependents[slot]) {
+            markDirty(i);
+        }
+    }
+
+    /**
+     * Задает значение переменной по имени.
+     *
+     * @param name имя переменной
+     * @param value новое значение
+     * @throws IllegalArgumentException если переменная в выражении не используется
+     */
+    public void set(String name, double value) {
+        int slot = expression.slotOf(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Переменная не используется в выражении: " + name);
+        }
+        set(slot, value);
+    }
+
+    /**
+     * Задает значения всех переменных в порядке слотов.
+     *
+     * @param values значения переменных
+     * @throws IllegalArgumentException если число значений не совпадает с числом слотов
+     */
+    public void setAll(double... values) {
+        if (values.length != slots.length) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + slots.length
+                    + ", передано: " + values.length);
+        }
+        for (int slot = 0; slot < values.length; slot++) {
+            set(slot, values[slot]);
+        }
+    }
+
+    /**
+     * Возвращает текущее значение переменной.
+     *
+     * @param slot номер слота
+     * @return значение переменной
+     */
+    public double get(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * Вычисляет выражение, пересчитывая только инструкции, зависящие от изменившихся
+     * переменных. Если вычисление прервано ошибкой, невыполненные инструкции остаются
+     * устаревшими и будут пересчитаны при следующем вызове.
+     *
+     * @return значение выражения
+     * @throws IllegalArgumentException если аргумент функции вне области ее определения
+     * @throws ArithmeticException при делении на ноль
+     */
+    public double evaluate() {
+        recomputed = 0;
+        if (pendingCount > 0) {
+            Arrays.sort(pending, 0, pendingCount);
+            int p = 0;
+            try {
+                for (; p < pendingCount; p++) {
+                    int i = pending[p];
+                    registers[i] = program.execute(i, registers, slots, scratch);
+                    dirty[i] = false;
+                    recomputed++;
+                }
+            } finally {
+                System.arraycopy(pending, p, pending, 0, pendingCount - p);
+                pendingCount -= p;
+            }
+        }
+        return registers[registers.length - 1];
+    }
+
+    /**
+     * Возвращает число инструкций, выполненных последним вызовом {@link #evaluate()}.
+     *
+     * @return число пересчитанных инструкций
+     */
+    public int getRecomputedCount() {
+        return recomputed;
+    }
+
+    private void markDirty(int i) {
+        if (!dirty[i]) {
+            dirty[i] = true;
+            pending[pendingCount++] = i;
+        }
+    }
+}
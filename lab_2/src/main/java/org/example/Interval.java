@@ -0,0 +1,109 @@
+package org.example;
+
+/**
+ * Замкнутый числовой интервал {@code [lower, upper]}.
+ * <p>
+ * Используется для интервального вычисления выражений
+ * ({@link CompiledExpression#evaluateInterval(Interval...)}): результат содержит
+ * все значения выражения при значениях переменных из заданных интервалов.
+ * Бесконечные границы допускаются; {@link #ENTIRE} обозначает всю числовую прямую.
+ * </p>
+ */
+public final class Interval {
+    /** Вся числовая прямая. */
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private final double lower;
+    private final double upper;
+
+    private Interval(double lower, double upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Создает интервал.
+     *
+     * @param lower нижняя граница
+     * @param upper верхняя граница
+     * @return интервал {@code [lower, upper]}
+     * @throws IllegalArgumentException если граница равна NaN или нижняя больше верхней
+     */
+    public static Interval of(double lower, double upper) {
+        if (Double.isNaN(lower) || Double.isNaN(upper) || lower > upper) {
+            throw new IllegalArgumentException("Некорректный интервал: [" + lower + ", " + upper + "]");
+        }
+        return new Interval(lower, upper);
+    }
+
+    /**
+     * Создает интервал из одной точки.
+     *
+     * @param value значение
+     * @return интервал {@code [value, value]}
+     * @throws IllegalArgumentException если значение равно NaN
+     */
+    public static Interval point(double value) {
+        return of(value, value);
+    }
+
+    /**
+     * Возвращает нижнюю границу.
+     *
+     * @return нижняя граница
+     */
+    public double getLower() {
+        return lower;
+    }
+
+    /**
+     * Возвращает верхнюю границу.
+     *
+     * @return верхняя граница
+     */
+    public double getUpper() {
+        return upper;
+    }
+
+    /**
+     * Возвращает ширину интервала.
+     *
+     * @return разность верхней и нижней границ
+     */
+    public double getWidth() {
+        return upper - lower;
+    }
+
+    /**
+     * Проверяет, принадлежит ли число интервалу.
+     *
+     * @param value число
+     * @return true если {@code lower <= value <= upper}
+     */
+    public boolean contains(double value) {
+        return lower <= value && value <= upper;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Interval)) return false;
+        Interval other = (Interval) o;
+        return Double.compare(lower, other.lower) == 0 && Double.compare(upper, other.upper) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(lower) + Double.hashCode(upper);
+    }
+
+    /**
+     * Возвращает строковое представление интервала.
+     *
+     * @return строка вида {@code [lower, upper]}
+     */
+    @Override
+    public String toString() {
+        return "[" + lower + ", " + upper + "]";
+    }
+}
@@ -0,0 +1,227 @@
+package org.example;
+
+/**
+ * Интервальное вычисление программы выражения.
+ * <p>
+ * Каждый регистр хранит интервал, содержащий все значения соответствующего
+ * подвыражения. Для арифметики и функций используются их свойства монотонности,
+ * у {@code sin} и {@code cos} дополнительно учитываются экстремумы внутри интервала.
+ * Результаты неточных операций расширяются на одну единицу последнего разряда
+ * в каждую сторону, чтобы ошибки округления не сужали оценку.
+ * </p>
+ * <p>
+ * Там, где подвыражение не ограничено (деление на интервал, содержащий ноль,
+ * полюс тангенса, степень отрицательного основания с нецелым показателем),
+ * результатом считается вся числовая прямая. Для пользовательских функций
+ * свойства неизвестны, и их результат также считается неограниченным.
+ * Если интервал целиком лежит вне области определения функции, выбрасывается
+ * то же исключение, что и при вычислении в точке.
+ * </p>
+ */
+final class IntervalEvaluator {
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double HALF_PI = Math.PI / 2;
+
+    private final Program program;
+    private final double[] lower;
+    private final double[] upper;
+
+    private IntervalEvaluator(Program program) {
+        this.program = program;
+        this.lower = new double[program.length()];
+        this.upper = new double[program.length()];
+    }
+
+    /**
+     * Вычисляет интервал значений выражения.
+     *
+     * @param program программа выражения
+     * @param slots интервалы значений переменных по номерам слотов
+     * @return интервал, содержащий все значения выражения
+     * @throws IllegalArgumentException если интервал аргумента функции целиком вне области ее определения
+     * @throws ArithmeticException при делении на точку ноль
+     */
+    static Interval evaluate(Program program, Interval[] slots) {
+        IntervalEvaluator evaluator = new IntervalEvaluator(program);
+        for (int i = 0; i < program.length(); i++) {
+            evaluator.execute(i, slots);
+        }
+        int last = program.length() - 1;
+        return Interval.of(evaluator.lower[last], evaluator.upper[last]);
+    }
+
+    private void execute(int i, Interval[] slots) {
+        int op = program.opcodes[i];
+        int a = program.arg0[i];
+        int b = program.arg1[i];
+        switch (op) {
+            case OpCode.CONST:
+                set(i, program.constants[a], program.constants[a]);
+                return;
+            case OpCode.VAR:
+                set(i, slots[a].getLower(), slots[a].getUpper());
+                return;
+            case OpCode.CALL:
+                entire(i);
+                return;
+            case OpCode.NEG:
+                set(i, -upper[a], -lower[a]);
+                return;
+            case OpCode.ABS:
+                abs(i, lower[a], upper[a]);
+                return;
+            default:
+                break;
+        }
+        if (op == OpCode.MUL && a == b) {
+            // x * x (в том числе после замены x^2 оптимизатором) не может быть отрицательным
+            pow(i, lower[a], upper[a], 2, 2);
+        } else if (OpCode.isBinary(op)) {
+            binary(i, op, lower[a], upper[a], lower[b], upper[b]);
+        } else {
+            unary(i, op, lower[a], upper[a]);
+        }
+        if (Double.isNaN(lower[i]) || Double.isNaN(upper[i])) {
+            entire(i);
+        } else {
+            lower[i] = Math.nextDown(lower[i]);
+            upper[i] = Math.nextUp(upper[i]);
+        }
+    }
+
+    private void binary(int i, int op, double al, double ah, double bl, double bh) {
+        switch (op) {
+            case OpCode.ADD:
+                set(i, al + bl, ah + bh);
+                return;
+            case OpCode.SUB:
+                set(i, al - bh, ah - bl);
+                return;
+            case OpCode.MUL:
+                corners(i, al * bl, al * bh, ah * bl, ah * bh);
+                return;
+            case OpCode.DIV:
+                if (bl == 0 && bh == 0) {
+                    throw new ArithmeticException("Деление на ноль");
+                }
+                if (bl <= 0 && bh >= 0) {
+                    entire(i);
+                    return;
+                }
+                corners(i, al / bl, al / bh, ah / bl, ah / bh);
+                return;
+            default:
+                pow(i, al, ah, bl, bh);
+        }
+    }
+
+    private void pow(int i, double al, double ah, double bl, double bh) {
+        if (bl == bh && bl == Math.rint(bl)) {
+            double n = bl;
+            if (n == 0) {
+                set(i, 1, 1);
+            } else if (al > 0 || ah < 0) {
+                double pl = Math.pow(al, n);
+                double ph = Math.pow(ah, n);
+                set(i, Math.min(pl, ph), Math.max(pl, ph));
+            } else if (n < 0) {
+                entire(i);
+            } else if (n % 2 == 0) {
+                set(i, 0, Math.max(Math.pow(al, n), Math.pow(ah, n)));
+            } else {
+                set(i, Math.pow(al, n), Math.pow(ah, n));
+            }
+            return;
+        }
+        if (al < 0) {
+            entire(i);
+            return;
+        }
+        // При неотрицательном основании x^y монотонна по каждому аргументу
+        corners(i, Math.pow(al, bl), Math.pow(al, bh), Math.pow(ah, bl), Math.pow(ah, bh));
+    }
+
+    private void unary(int i, int op, double l, double h) {
+        switch (op) {
+            case OpCode.SQRT:
+                if (h < 0) {
+                    OpCode.sqrt(h); // выбрасывает то же исключение, что и вычисление в точке
+                }
+                set(i, Math.sqrt(Math.max(l, 0)), Math.sqrt(h));
+                return;
+            case OpCode.LN:
+                logarithm(i, l, h, Math.log(Math.max(l, 0)), OpCode.ln(h));
+                return;
+            case OpCode.LOG10:
+                logarithm(i, l, h, Math.log10(Math.max(l, 0)), OpCode.log10(h));
+                return;
+            case OpCode.LOG2:
+                logarithm(i, l, h, Math.log(Math.max(l, 0)) / Math.log(2), OpCode.log2(h));
+                return;
+            case OpCode.SIN:
+                periodic(i, l, h, Math.sin(l), Math.sin(h), HALF_PI, -HALF_PI);
+                return;
+            case OpCode.COS:
+                periodic(i, l, h, Math.cos(l), Math.cos(h), 0, Math.PI);
+                return;
+            case OpCode.TAN:
+                if (h - l >= Math.PI || containsPeriodPoint(l, h, HALF_PI, Math.PI)) {
+                    entire(i);
+                } else {
+                    set(i, Math.tan(l), Math.tan(h));
+                }
+                return;
+            default:
+                throw new IllegalStateException("Неизвестная инструкция: " + op);
+        }
+    }
+
+    private void logarithm(int i, double l, double h, double low, double high) {
+        set(i, l <= 0 ? Double.NEGATIVE_INFINITY : low, high);
+    }
+
+    /**
+     * Интервал значений функции с периодом 2π и известными точками максимума и минимума.
+     */
+    private void periodic(int i, double l, double h, double fl, double fh, double maximum, double minimum) {
+        if (h - l >= TWO_PI || Double.isInfinite(l) || Double.isInfinite(h)) {
+            set(i, -1, 1);
+            return;
+        }
+        double low = containsPeriodPoint(l, h, minimum, TWO_PI) ? -1 : Math.min(fl, fh);
+        double high = containsPeriodPoint(l, h, maximum, TWO_PI) ? 1 : Math.max(fl, fh);
+        set(i, low, high);
+    }
+
+    /**
+     * Проверяет, содержит ли интервал точку вида {@code offset + k * period}.
+     * Проверка консервативна: точки вблизи границ интервала считаются попавшими в него.
+     */
+    private static boolean containsPeriodPoint(double l, double h, double offset, double period) {
+        double k = Math.ceil((l - offset) / period - 1e-9);
+        return offset + k * period <= h + 1e-9 * Math.max(1, Math.abs(h));
+    }
+
+    private void abs(int i, double l, double h) {
+        if (l >= 0) {
+            set(i, l, h);
+        } else if (h <= 0) {
+            set(i, -h, -l);
+        } else {
+            set(i, 0, Math.max(-l, h));
+        }
+    }
+
+    private void corners(int i, double p, double q, double r, double s) {
+        set(i, Math.min(Math.min(p, q), Math.min(r, s)), Math.max(Math.max(p, q), Math.max(r, s)));
+    }
+
+    private void entire(int i) {
+        set(i, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    private void set(int i, double l, double h) {
+        lower[i] = l;
+        upper[i] = h;
+    }
+}
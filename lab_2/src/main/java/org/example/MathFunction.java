@@ -0,0 +1,204 @@
+package org.example;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Описание функции, которую можно вызывать в выражениях калькулятора.
+ * <p>
+ * Функция имеет имя, допустимое число аргументов и реализацию на примитивных типах:
+ * {@link DoubleUnaryOperator} для одного аргумента, {@link DoubleBinaryOperator}
+ * для двух и {@link VariadicFunction} для переменного числа аргументов. Вызов функции
+ * связывается с реализацией при компиляции выражения, поэтому при вычислении
+ * не выполняется поиск по имени, упаковка чисел и выделение памяти под аргументы.
+ * </p>
+ * <p>
+ * Функции считаются чистыми: результат зависит только от аргументов. Это позволяет
+ * вычислять вызовы с постоянными аргументами при компиляции.
+ * </p>
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * Calculator calculator = Calculator.builder()
+ *         .function(MathFunction.binary("hypot", Math::hypot))
+ *         .function(MathFunction.variadic("max", 1, Integer.MAX_VALUE, (args, n) -> {
+ *             double m = args[0];
+ *             for (int i = 1; i < n; i++) m = Math.max(m, args[i]);
+ *             return m;
+ *         }))
+ *         .build();
+ * }</pre>
+ * </p>
+ */
+public final class MathFunction {
+    /** Вид реализации функции. */
+    enum Kind { UNARY, BINARY, VARIADIC }
+
+    private final String name;
+    private final int minArity;
+    private final int maxArity;
+    private final Kind kind;
+    final DoubleUnaryOperator unary;
+    final DoubleBinaryOperator binary;
+    final VariadicFunction variadic;
+
+    private MathFunction(String name, int minArity, int maxArity, Kind kind, DoubleUnaryOperator unary,
+                         DoubleBinaryOperator binary, VariadicFunction variadic) {
+        if (name == null || !name.matches("[a-zA-Z_][a-zA-Z0-9_]*")) {
+            throw new IllegalArgumentException("Недопустимое имя функции: " + name);
+        }
+        if (minArity < 0 || maxArity < minArity) {
+            throw new IllegalArgumentException("Недопустимое число аргументов функции " + name
+                    + ": от " + minArity + " до " + maxArity);
+        }
+        this.name = name;
+        this.minArity = minArity;
+        this.maxArity = maxArity;
+        this.kind = kind;
+        this.unary = unary;
+        this.binary = binary;
+        this.variadic = variadic;
+    }
+
+    /**
+     * Создает функцию одного аргумента.
+     *
+     * @param name имя функции
+     * @param function реализация
+     * @return описание функции
+     * @throws IllegalArgumentException если имя не является идентификатором
+     * @throws NullPointerException если реализация равна null
+     */
+    public static MathFunction unary(String name, DoubleUnaryOperator function) {
+        if (function == null) throw new NullPointerException("function");
+        return new MathFunction(name, 1, 1, Kind.UNARY, function, null, null);
+    }
+
+    /**
+     * Создает функцию двух аргументов.
+     *
+     * @param name имя функции
+     * @param function реализация
+     * @return описание функции
+     * @throws IllegalArgumentException если имя не является идентификатором
+     * @throws NullPointerException если реализация равна null
+     */
+    public static MathFunction binary(String name, DoubleBinaryOperator function) {
+        if (function == null) throw new NullPointerException("function");
+        return new MathFunction(name, 2, 2, Kind.BINARY, null, function, null);
+    }
+
+    /**
+     * Создает функцию переменного числа аргументов.
+     *
+     * @param name имя функции
+     * @param minArity минимальное число аргументов
+     * @param maxArity максимальное число аргументов ({@link Integer#MAX_VALUE} — без ограничения)
+     * @param function реализация
+     * @return описание функции
+     * @throws IllegalArgumentException если имя не является идентификатором
+     *         или границы числа аргументов некорректны
+     * @throws NullPointerException если реализация равна null
+     */
+    public static MathFunction variadic(String name, int minArity, int maxArity, VariadicFunction function) {
+        if (function == null) throw new NullPointerException("function");
+        return new MathFunction(name, minArity, maxArity, Kind.VARIADIC, null, null, function);
+    }
+
+    /**
+     * Возвращает имя функции.
+     *
+     * @return имя функции
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Возвращает минимальное число аргументов.
+     *
+     * @return минимальное число аргументов
+     */
+    public int getMinArity() {
+        return minArity;
+    }
+
+    /**
+     * Возвращает максимальное число аргументов.
+     *
+     * @return максимальное число аргументов
+     */
+    public int getMaxArity() {
+        return maxArity;
+    }
+
+    /**
+     * Возвращает вид реализации функции.
+     *
+     * @return вид реализации
+     */
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Проверяет, допустимо ли указанное число аргументов.
+     *
+     * @param count число аргументов
+     * @return true если функцию можно вызвать с таким числом аргументов
+     */
+    boolean acceptsArity(int count) {
+        return count >= minArity && count <= maxArity;
+    }
+
+    /**
+     * Вызывает функцию с аргументами, записанными в начале массива.
+     *
+     * @param args аргументы
+     * @param count число аргументов
+     * @return значение функции
+     */
+    double apply(double[] args, int count) {
+        switch (kind) {
+            case UNARY: return unary.applyAsDouble(args[0]);
+            case BINARY: return binary.applyAsDouble(args[0], args[1]);
+            default: return variadic.apply(args, count);
+        }
+    }
+
+    /**
+     * Вызывает функцию с аргументами из регистров программы.
+     *
+     * @param registers регистры программы
+     * @param callArgs списки аргументов вызовов
+     * @param offset смещение списка аргументов этого вызова
+     * @param scratch массив для аргументов функции переменного числа аргументов
+     * @return значение функции
+     */
+    double invoke(double[] registers, int[] callArgs, int offset, double[] scratch) {
+        switch (kind) {
+            case UNARY:
+                return unary.applyAsDouble(registers[callArgs[offset + 1]]);
+            case BINARY:
+                return binary.applyAsDouble(registers[callArgs[offset + 1]], registers[callArgs[offset + 2]]);
+            default:
+                int count = callArgs[offset];
+                for (int k = 0; k < count; k++) {
+                    scratch[k] = registers[callArgs[offset + 1 + k]];
+                }
+                return variadic.apply(scratch, count);
+        }
+    }
+
+    /**
+     * Возвращает строковое представление функции.
+     *
+     * @return имя и допустимое число аргументов
+     */
+    @Override
+    public String toString() {
+        String arity = minArity == maxArity ? String.valueOf(minArity)
+                : minArity + ".." + (maxArity == Integer.MAX_VALUE ? "*" : String.valueOf(maxArity));
+        return name + "/" + arity;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Разбор десятичных чисел непосредственно из буфера без создания строк.
+ * <p>
+ * Числа, у которых не больше 15 значащих цифр и десятичный порядок по модулю
+ * не больше 22, переводятся точно одним умножением или делением на степень десяти
+ * (и мантисса, и степень десяти в этом случае представимы в {@code double} без потерь).
+ * Остальные числа, а также {@code NaN} и {@code Infinity}, разбираются через
+ * {@link Double#parseDouble(String)}, что дает тот же результат.
+ * </p>
+ */
+final class NumberParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private NumberParser() {
+    }
+
+    /**
+     * Разбирает число из байтов ASCII.
+     *
+     * @param buffer буфер
+     * @param start начало числа (включительно)
+     * @param end конец числа (не включительно)
+     * @return значение числа
+     * @throws NumberFormatException если байты не образуют число
+     */
+    static double parse(byte[] buffer, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (buffer[pos] == '-' || buffer[pos] == '+')) {
+            negative = buffer[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        while (pos < end && buffer[pos] >= '0' && buffer[pos] <= '9') {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (buffer[pos] - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+                digits++;
+            }
+            anyDigit = true;
+            pos++;
+        }
+        if (pos < end && buffer[pos] == '.') {
+            pos++;
+            while (pos < end && buffer[pos] >= '0' && buffer[pos] <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (buffer[pos] - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                } else {
+                    digits++;
+                }
+                anyDigit = true;
+                pos++;
+            }
+        }
+        if (anyDigit && pos < end && (buffer[pos] == 'e' || buffer[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (buffer[pos] == '-' || buffer[pos] == '+')) {
+                negativeExponent = buffer[pos] == '-';
+                pos++;
+            }
+            int explicit = 0;
+            boolean exponentDigit = false;
+            while (pos < end && buffer[pos] >= '0' && buffer[pos] <= '9') {
+                explicit = Math.min(explicit * 10 + (buffer[pos] - '0'), 100_000);
+                exponentDigit = true;
+                pos++;
+            }
+            if (!exponentDigit) {
+                throw new NumberFormatException(text(buffer, start, end));
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (!anyDigit || pos != end) {
+            return Double.parseDouble(text(buffer, start, end));
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (digits <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+            value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.parseDouble(text(buffer, start, end));
+        }
+        return negative ? -value : value;
+    }
+
+    private static String text(byte[] buffer, int start, int end) {
+        return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+}
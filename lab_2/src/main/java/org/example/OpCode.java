@@ -0,0 +1,192 @@
+package org.example;
+
+/**
+ * Коды инструкций скомпилированного выражения и реализации соответствующих операций.
+ * <p>
+ * Каждая инструкция программы {@link CompiledExpression} вычисляет одно значение
+ * (регистр) из констант, переменных или результатов предыдущих инструкций.
+ * Проверки области определения вынесены в статические методы, чтобы их одинаково
+ * использовали все способы вычисления.
+ * </p>
+ */
+final class OpCode {
+    /** Загрузка константы из пула констант. */
+    static final int CONST = 0;
+    /** Загрузка значения переменной по номеру слота. */
+    static final int VAR = 1;
+    /** Унарный минус. */
+    static final int NEG = 2;
+    /** Сложение. */
+    static final int ADD = 3;
+    /** Вычитание. */
+    static final int SUB = 4;
+    /** Умножение. */
+    static final int MUL = 5;
+    /** Деление с проверкой деления на ноль. */
+    static final int DIV = 6;
+    /** Возведение в степень. */
+    static final int POW = 7;
+    /** Квадратный корень с проверкой знака аргумента. */
+    static final int SQRT = 8;
+    /** Синус. */
+    static final int SIN = 9;
+    /** Косинус. */
+    static final int COS = 10;
+    /** Тангенс. */
+    static final int TAN = 11;
+    /** Натуральный логарифм. */
+    static final int LN = 12;
+    /** Десятичный логарифм. */
+    static final int LOG10 = 13;
+    /** Двоичный логарифм. */
+    static final int LOG2 = 14;
+    /** Модуль числа. */
+    static final int ABS = 15;
+    /** Вызов пользовательской функции (см. {@link Program}). */
+    static final int CALL = 16;
+
+    private OpCode() {
+    }
+
+    /**
+     * Возвращает код встроенной функции одного аргумента по ее имени.
+     *
+     * @param name имя функции
+     * @return код инструкции или -1, если такой функции нет
+     */
+    static int unaryFunction(String name) {
+        switch (name) {
+            case "sqrt": return SQRT;
+            case "sin": return SIN;
+            case "cos": return COS;
+            case "tan": return TAN;
+            case "ln": return LN;
+            case "log10": return LOG10;
+            case "log2": return LOG2;
+            case "abs": return ABS;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Проверяет, является ли инструкция унарной операцией над регистром.
+     *
+     * @param op код инструкции
+     * @return true для унарного минуса и встроенных функций одного аргумента
+     */
+    static boolean isUnary(int op) {
+        return op == NEG || (op >= SQRT && op <= ABS);
+    }
+
+    /**
+     * Проверяет, является ли инструкция бинарной операцией над двумя регистрами.
+     *
+     * @param op код инструкции
+     * @return true для арифметических операций и возведения в степень
+     */
+    static boolean isBinary(int op) {
+        return op >= ADD && op <= POW;
+    }
+
+    /**
+     * Выполняет унарную или бинарную операцию.
+     *
+     * @param op код инструкции
+     * @param x первый операнд
+     * @param y второй операнд (игнорируется унарными операциями)
+     * @return результат операции
+     * @throws ArithmeticException при делении на ноль
+     * @throws IllegalArgumentException если аргумент вне области определения функции
+     */
+    static double apply(int op, double x, double y) {
+        switch (op) {
+            case NEG: return -x;
+            case ADD: return x + y;
+            case SUB: return x - y;
+            case MUL: return x * y;
+            case DIV: return div(x, y);
+            case POW: return Math.pow(x, y);
+            case SQRT: return sqrt(x);
+            case SIN: return Math.sin(x);
+            case COS: return Math.cos(x);
+            case TAN: return Math.tan(x);
+            case LN: return ln(x);
+            case LOG10: return log10(x);
+            case LOG2: return log2(x);
+            case ABS: return Math.abs(x);
+            default:
+                throw new IllegalStateException("Неизвестная инструкция: " + op);
+        }
+    }
+
+    /**
+     * Деление с проверкой делителя.
+     *
+     * @param x делимое
+     * @param y делитель
+     * @return частное
+     * @throws ArithmeticException если делитель равен нулю
+     */
+    static double div(double x, double y) {
+        if (y == 0) {
+            throw new ArithmeticException("Деление на ноль");
+        }
+        return x / y;
+    }
+
+    /**
+     * Квадратный корень с проверкой знака аргумента.
+     *
+     * @param x аргумент
+     * @return квадратный корень
+     * @throws IllegalArgumentException если аргумент отрицателен
+     */
+    static double sqrt(double x) {
+        if (x < 0) {
+            throw new IllegalArgumentException("Квадратный корень из отрицательного числа");
+        }
+        return Math.sqrt(x);
+    }
+
+    /**
+     * Натуральный логарифм с проверкой аргумента.
+     *
+     * @param x аргумент
+     * @return натуральный логарифм
+     * @throws IllegalArgumentException если аргумент не положителен
+     */
+    static double ln(double x) {
+        checkLogArgument(x);
+        return Math.log(x);
+    }
+
+    /**
+     * Десятичный логарифм с проверкой аргумента.
+     *
+     * @param x аргумент
+     * @return десятичный логарифм
+     * @throws IllegalArgumentException если аргумент не положителен
+     */
+    static double log10(double x) {
+        checkLogArgument(x);
+        return Math.log10(x);
+    }
+
+    /**
+     * Двоичный логарифм с проверкой аргумента.
+     *
+     * @param x аргумент
+     * @return двоичный логарифм
+     * @throws IllegalArgumentException если аргумент не положителен
+     */
+    static double log2(double x) {
+        checkLogArgument(x);
+        return Math.log(x) / Math.log(2);
+    }
+
+    private static void checkLogArgument(double x) {
+        if (x <= 0) {
+            throw new IllegalArgumentException("Логарифм от неположительного числа");
+        }
+    }
+}
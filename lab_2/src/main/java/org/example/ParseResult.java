@@ -0,0 +1,99 @@
+package org.example;
+
+/**
+ * Результат компиляции выражения без выбрасывания исключений:
+ * либо скомпилированное выражение, либо описание синтаксической ошибки и ее позиция.
+ *
+ * <p><b>Пример использования:</b>
+ * <pre>{@code
+ * ParseResult result = calculator.tryCompile(userInput);
+ * if (!result.isSuccess()) {
+ *     return "Ошибка в столбце " + result.getColumn() + ": " + result.getError();
+ * }
+ * double y = result.getExpression().evaluate(x);
+ * }</pre>
+ * </p>
+ */
+public final class ParseResult {
+    private final CompiledExpression expression;
+    private final String error;
+    private final int column;
+
+    private ParseResult(CompiledExpression expression, String error, int column) {
+        this.expression = expression;
+        this.error = error;
+        this.column = column;
+    }
+
+    /**
+     * Создает успешный результат.
+     *
+     * @param expression скомпилированное выражение
+     * @return результат
+     */
+    static ParseResult success(CompiledExpression expression) {
+        return new ParseResult(expression, null, 0);
+    }
+
+    /**
+     * Создает результат с ошибкой.
+     *
+     * @param error описание ошибки
+     * @param column номер столбца ошибки (с единицы)
+     * @return результат
+     */
+    static ParseResult failure(String error, int column) {
+        return new ParseResult(null, error, column);
+    }
+
+    /**
+     * Проверяет, удалось ли скомпилировать выражение.
+     *
+     * @return true если выражение скомпилировано
+     */
+    public boolean isSuccess() {
+        return expression != null;
+    }
+
+    /**
+     * Возвращает скомпилированное выражение.
+     *
+     * @return скомпилированное выражение
+     * @throws IllegalStateException если компиляция завершилась ошибкой
+     */
+    public CompiledExpression getExpression() {
+        if (expression == null) {
+            throw new IllegalStateException("Выражение не скомпилировано: " + error);
+        }
+        return expression;
+    }
+
+    /**
+     * Возвращает описание ошибки.
+     *
+     * @return описание ошибки или null, если компиляция успешна
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Возвращает номер столбца исходного текста, в котором обнаружена ошибка.
+     *
+     * @return номер столбца с единицы или 0, если компиляция успешна
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Возвращает строковое представление результата.
+     *
+     * @return выражение или ошибка с позицией
+     */
+    @Override
+    public String toString() {
+        return isSuccess() ? "ParseResult{" + expression + "}"
+                : "ParseResult{error=" + error + ", column=" + column + "}";
+    }
+}
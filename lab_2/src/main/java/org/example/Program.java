@@ -0,0 +1,125 @@
+package org.example;
+
+/**
+ * Программа скомпилированного выражения.
+ * <p>
+ * Инструкция {@code i} записывает результат в регистр {@code i} и читает только регистры
+ * предыдущих инструкций, поэтому программа всегда упорядочена топологически,
+ * а результат выражения находится в регистре последней инструкции.
+ * </p>
+ * <p>
+ * Назначение аргументов зависит от кода инструкции:
+ * <ul>
+ *   <li>{@link OpCode#CONST}: {@code arg0} — индекс в {@link #constants};</li>
+ *   <li>{@link OpCode#VAR}: {@code arg0} — номер слота переменной;</li>
+ *   <li>унарные операции: {@code arg0} — регистр операнда;</li>
+ *   <li>бинарные операции: {@code arg0} и {@code arg1} — регистры операндов;</li>
+ *   <li>{@link OpCode#CALL}: {@code arg0} — индекс в {@link #functions}, {@code arg1} —
+ *       смещение в {@link #callArgs}, где записано число аргументов и затем их регистры.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Массивы не копируются и после создания программы не изменяются.
+ * </p>
+ */
+final class Program {
+    final int[] opcodes;
+    final int[] arg0;
+    final int[] arg1;
+    final double[] constants;
+    final MathFunction[] functions;
+    final int[] callArgs;
+    /** Наибольшее число аргументов среди вызовов пользовательских функций. */
+    final int maxCallArity;
+
+    /**
+     * Создает программу.
+     *
+     * @param opcodes коды инструкций
+     * @param arg0 первые аргументы инструкций
+     * @param arg1 вторые аргументы инструкций
+     * @param constants пул констант
+     * @param functions пользовательские функции, вызываемые программой
+     * @param callArgs списки аргументов вызовов функций
+     */
+    Program(int[] opcodes, int[] arg0, int[] arg1, double[] constants,
+            MathFunction[] functions, int[] callArgs) {
+        this.opcodes = opcodes;
+        this.arg0 = arg0;
+        this.arg1 = arg1;
+        this.constants = constants;
+        this.functions = functions;
+        this.callArgs = callArgs;
+        int max = 0;
+        for (int i = 0; i < opcodes.length; i++) {
+            if (opcodes[i] == OpCode.CALL) {
+                max = Math.max(max, callArgs[arg1[i]]);
+            }
+        }
+        this.maxCallArity = max;
+    }
+
+    /**
+     * Возвращает число инструкций.
+     *
+     * @return число инструкций
+     */
+    int length() {
+        return opcodes.length;
+    }
+
+    /**
+     * Выполняет одну инструкцию.
+     *
+     * @param i номер инструкции
+     * @param registers регистры; читаются только регистры предыдущих инструкций
+     * @param slots значения переменных по номерам слотов
+     * @param scratch массив для аргументов функций длиной не меньше {@link #maxCallArity}
+     * @return значение регистра инструкции
+     * @throws ArithmeticException при делении на ноль
+     * @throws IllegalArgumentException если аргумент функции вне области ее определения
+     */
+    double execute(int i, double[] registers, double[] slots, double[] scratch) {
+        switch (opcodes[i]) {
+            case OpCode.CONST:
+                return constants[arg0[i]];
+            case OpCode.VAR:
+                return slots[arg0[i]];
+            case OpCode.CALL:
+                return functions[arg0[i]].invoke(registers, callArgs, arg1[i], scratch);
+            default:
+                return OpCode.apply(opcodes[i], registers[arg0[i]], registers[arg1[i]]);
+        }
+    }
+
+    /**
+     * Возвращает число регистров, которые читает инструкция.
+     *
+     * @param i номер инструкции
+     * @return число операндов
+     */
+    int operandCount(int i) {
+        int op = opcodes[i];
+        if (op == OpCode.CALL) {
+            return callArgs[arg1[i]];
+        }
+        if (OpCode.isBinary(op)) {
+            return 2;
+        }
+        return OpCode.isUnary(op) ? 1 : 0;
+    }
+
+    /**
+     * Возвращает регистр операнда инструкции.
+     *
+     * @param i номер инструкции
+     * @param k номер операнда, от 0 до {@link #operandCount(int)} - 1
+     * @return регистр операнда
+     */
+    int operand(int i, int k) {
+        if (opcodes[i] == OpCode.CALL) {
+            return callArgs[arg1[i] + 1 + k];
+        }
+        return k == 0 ? arg0[i] : arg1[i];
+    }
+}
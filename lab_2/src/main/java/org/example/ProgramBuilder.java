@@ -0,0 +1,162 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Построитель программы скомпилированного выражения.
+ * <p>
+ * Каждый метод добавляет одну инструкцию и возвращает номер регистра с ее результатом.
+ * Результатом всей программы считается последняя добавленная инструкция.
+ * </p>
+ */
+final class ProgramBuilder {
+    private int[] opcodes = new int[16];
+    private int[] arg0 = new int[16];
+    private int[] arg1 = new int[16];
+    private int length;
+
+    private double[] constants = new double[8];
+    private int constantCount;
+
+    private final List<MathFunction> functions = new ArrayList<>();
+    private int[] callArgs = new int[8];
+    private int callArgsLength;
+
+    /** Слоты переменных в порядке первого появления. */
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+    /** Регистр, в который уже загружена переменная, по номеру слота. */
+    private int[] slotRegisters = new int[4];
+
+    /**
+     * Заранее закрепляет за переменной следующий свободный слот,
+     * не добавляя инструкцию загрузки.
+     *
+     * @param name имя переменной
+     * @throws IllegalArgumentException если переменная уже объявлена
+     */
+    void declare(String name) {
+        if (slots.containsKey(name)) {
+            throw new IllegalArgumentException("Переменная указана дважды: " + name);
+        }
+        int newSlot = slots.size();
+        slots.put(name, newSlot);
+        if (newSlot == slotRegisters.length) {
+            slotRegisters = Arrays.copyOf(slotRegisters, newSlot * 2);
+        }
+        slotRegisters[newSlot] = -1;
+    }
+
+    /**
+     * Добавляет загрузку константы.
+     *
+     * @param value значение константы
+     * @return номер регистра
+     */
+    int constant(double value) {
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+        }
+        constants[constantCount] = value;
+        return emit(OpCode.CONST, constantCount++, 0);
+    }
+
+    /**
+     * Добавляет загрузку переменной. Повторная загрузка той же переменной
+     * возвращает уже существующий регистр.
+     *
+     * @param name имя переменной
+     * @return номер регистра
+     */
+    int variable(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            declare(name);
+            slot = slots.size() - 1;
+        }
+        if (slotRegisters[slot] < 0) {
+            slotRegisters[slot] = emit(OpCode.VAR, slot, 0);
+        }
+        return slotRegisters[slot];
+    }
+
+    /**
+     * Добавляет унарную операцию.
+     *
+     * @param op код инструкции
+     * @param operand регистр операнда
+     * @return номер регистра
+     */
+    int unary(int op, int operand) {
+        return emit(op, operand, 0);
+    }
+
+    /**
+     * Добавляет бинарную операцию.
+     *
+     * @param op код инструкции
+     * @param left регистр левого операнда
+     * @param right регистр правого операнда
+     * @return номер регистра
+     */
+    int binary(int op, int left, int right) {
+        return emit(op, left, right);
+    }
+
+    /**
+     * Добавляет вызов пользовательской функции.
+     *
+     * @param function вызываемая функция
+     * @param arguments регистры аргументов
+     * @param count число аргументов
+     * @return номер регистра
+     */
+    int call(MathFunction function, int[] arguments, int count) {
+        int index = functions.indexOf(function);
+        if (index < 0) {
+            index = functions.size();
+            functions.add(function);
+        }
+        if (callArgsLength + count + 1 > callArgs.length) {
+            callArgs = Arrays.copyOf(callArgs, Math.max(callArgs.length * 2, callArgsLength + count + 1));
+        }
+        int offset = callArgsLength;
+        callArgs[callArgsLength++] = count;
+        System.arraycopy(arguments, 0, callArgs, callArgsLength, count);
+        callArgsLength += count;
+        return emit(OpCode.CALL, index, offset);
+    }
+
+    /**
+     * Создает неизменяемое скомпилированное выражение.
+     *
+     * @param source исходный текст выражения
+     * @return скомпилированное выражение
+     */
+    CompiledExpression build(String source) {
+        String[] variables = slots.keySet().toArray(new String[0]);
+        return new CompiledExpression(source, variables, new Program(
+                Arrays.copyOf(opcodes, length),
+                Arrays.copyOf(arg0, length),
+                Arrays.copyOf(arg1, length),
+                Arrays.copyOf(constants, constantCount),
+                functions.toArray(new MathFunction[0]),
+                Arrays.copyOf(callArgs, callArgsLength)));
+    }
+
+    private int emit(int op, int a, int b) {
+        if (length == opcodes.length) {
+            int capacity = length * 2;
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            arg0 = Arrays.copyOf(arg0, capacity);
+            arg1 = Arrays.copyOf(arg1, capacity);
+        }
+        opcodes[length] = op;
+        arg0[length] = a;
+        arg1[length] = b;
+        return length++;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example;
+
+/**
+ * Итоги потоковой обработки файла.
+ */
+public final class StreamStats {
+    private final long rows;
+    private final long elapsedNanos;
+
+    /**
+     * Создает итоги обработки.
+     *
+     * @param rows число обработанных строк данных
+     * @param elapsedNanos время обработки в наносекундах
+     */
+    StreamStats(long rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Возвращает число обработанных строк данных (без заголовка).
+     *
+     * @return число строк
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Возвращает время обработки.
+     *
+     * @return время обработки в наносекундах
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Возвращает скорость обработки.
+     *
+     * @return число строк в секунду
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Возвращает строковое представление итогов.
+     *
+     * @return строковое представление итогов
+     */
+    @Override
+    public String toString() {
+        return String.format("StreamStats{rows=%d, seconds=%.3f, rowsPerSecond=%.0f}",
+                rows, elapsedNanos / 1e9, getRowsPerSecond());
+    }
+}
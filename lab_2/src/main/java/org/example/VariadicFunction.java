@@ -0,0 +1,21 @@
+package org.example;
+
+/**
+ * Функция переменного числа аргументов типа {@code double}.
+ * <p>
+ * Аргументы передаются в массиве, который вычислитель выделяет один раз на вычисление
+ * выражения и переиспользует для всех вызовов, поэтому реализация не должна сохранять
+ * ссылку на массив и читать его за пределами первых {@code count} элементов.
+ * </p>
+ */
+@FunctionalInterface
+public interface VariadicFunction {
+    /**
+     * Вычисляет значение функции.
+     *
+     * @param args массив аргументов
+     * @param count число аргументов в начале массива
+     * @return значение функции
+     */
+    double apply(double[] args, int count);
+}
@@ -0,0 +1,128 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculatorConcurrencyTest {
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int EXPRESSIONS = 40;
+    private static final int POINTS = 16;
+
+    private final String[] expressions = new String[EXPRESSIONS];
+    private final double[][] expected = new double[EXPRESSIONS][POINTS];
+
+    CalculatorConcurrencyTest() {
+        Calculator reference = new Calculator(0);
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            expressions[i] = "pow(x, 2) * " + i + " + sin(x) / (abs(x) + " + (i + 1) + ") - sqrt(25)";
+            for (int p = 0; p < POINTS; p++) {
+                expected[i][p] = reference.evaluate(expressions[i], Collections.singletonMap("x", point(p)));
+            }
+        }
+    }
+
+    @Test
+    void testSharedCalculatorUnderContention() throws Exception {
+        // Кэш меньше набора выражений, чтобы вытеснение шло одновременно с чтением
+        Calculator shared = Calculator.builder().cacheSize(8).build();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            tasks.add(() -> {
+                int checked = 0;
+                for (int round = 0; round < 200; round++) {
+                    int i = (seed * 7 + round) % EXPRESSIONS;
+                    int p = (seed + round) % POINTS;
+                    Map<String, Double> variables = Collections.singletonMap("x", point(p));
+                    assertEquals(expected[i][p], shared.evaluate(expressions[i], variables), 1e-12);
+                    assertEquals(expected[i][p], shared.compile(expressions[i]).evaluate(point(p)), 1e-12);
+                    checked++;
+                }
+                return checked;
+            });
+        }
+        assertEquals(THREADS * 200, runAll(tasks));
+
+        CacheStats stats = shared.getCacheStats();
+        assertTrue(stats.getSize() <= 8);
+        assertEquals(THREADS * 200 * 2, stats.getHits() + stats.getMisses());
+    }
+
+    @Test
+    void testSharedCompiledExpressionUnderContention() throws Exception {
+        Calculator calculator = new Calculator();
+        CompiledExpression interpreted = calculator.compile(expressions[3]);
+        CompiledExpression generated = interpreted.withBackend(Backend.BYTECODE);
+        double[] column = new double[POINTS];
+        for (int p = 0; p < POINTS; p++) {
+            column[p] = point(p);
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                double[] out = new double[POINTS];
+                for (int round = 0; round < 500; round++) {
+                    int p = round % POINTS;
+                    assertEquals(expected[3][p], interpreted.evaluate(point(p)), 1e-12);
+                    assertEquals(expected[3][p], generated.evaluate(point(p)), 1e-12);
+                }
+                calculator.evaluateBatch(interpreted, new double[][] {column}, out);
+                assertArrayEquals(expected[3], out, 1e-12);
+                return 1;
+            });
+        }
+        assertEquals(THREADS, runAll(tasks));
+    }
+
+    @Test
+    void testClearConcurrentWithMisses() throws Exception {
+        Calculator shared = Calculator.builder().cacheSize(4).build();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            tasks.add(() -> {
+                for (int round = 0; round < 2_000; round++) {
+                    if (seed == 0 && round % 4 == 0) {
+                        shared.clearCache();
+                    } else {
+                        shared.compile("x + " + (seed * 2_000 + round));
+                    }
+                }
+                return 1;
+            });
+        }
+        assertEquals(THREADS, runAll(tasks));
+        shared.compile("x * 2");
+        assertTrue(shared.getCacheStats().getSize() <= 4, shared.getCacheStats().toString());
+    }
+
+    private static int runAll(List<Callable<Integer>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            int total = 0;
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                total += future.get();
+            }
+            return total;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static double point(int p) {
+        return p * 0.5 - 4;
+    }
+}
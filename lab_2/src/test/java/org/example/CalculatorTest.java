@@ -5,6 +5,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -111,6 +113,37 @@ class CalculatorTest {
                 () -> calculator.evaluate(expression, Collections.emptyMap()));
     }
 
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "2 + * 3     | 5  | Неожиданный символ: *",
+            "sin(x       | 6  | Не хватает закрывающей скобки после аргументов функции sin",
+            "1 +   foo(2) | 7 | Неизвестная функция: foo",
+            "(1 + 2)) * 3 | 8 | Неожиданный символ: )",
+            "x + 3..5    | 5  | Некорректное число: 3..5",
+            "x $ 2       | 3  | Неожиданный символ: $"
+    })
+    void testTryCompileReportsColumn(String expression, int column, String error) {
+        ParseResult result = calculator.tryCompile(expression);
+        assertFalse(result.isSuccess());
+        assertEquals(column, result.getColumn());
+        assertEquals(error, result.getError());
+        assertThrows(IllegalStateException.class, result::getExpression);
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> calculator.compile(expression));
+        assertEquals(error + " (позиция " + column + ")", thrown.getMessage());
+    }
+
+    @Test
+    void testTryCompileSuccess() {
+        ParseResult result = calculator.tryCompile("x * 2 + sin(y)");
+        assertTrue(result.isSuccess());
+        assertNull(result.getError());
+        assertEquals(6.0, result.getExpression().evaluate(3.0, 0.0));
+        assertSame(result.getExpression(), calculator.compile("x*2+sin(y)"));
+        assertFalse(calculator.tryCompile("   ").isSuccess());
+    }
+
     @Test
     void testDivisionByZero() {
         assertThrows(IllegalArgumentException.class,
@@ -128,4 +161,380 @@ class CalculatorTest {
         double result = calculator.evaluate(" 2 + 3 * 4 ", Collections.emptyMap());
         assertEquals(14.0, result, 0.0001);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompiledExpressionReuse() {
+        CompiledExpression compiled = calculator.compile("(2 + x) * 4 - 5");
+        Map<String, Double> variables = new HashMap<>();
+        for (int i = -10; i <= 10; i++) {
+            variables.put("x", (double) i);
+            assertEquals((2 + i) * 4 - 5, compiled.evaluate(variables), 0.0001);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'sqrt(25) + pow(2, 3)', 13.0",
+            "'log10(100) * 2', 4.0",
+            "-2^2, -4.0",
+            "'2^3^2', 512.0",
+            "'log2(8) - abs(-3)', 0.0"
+    })
+    void testCompiledMatchesEvaluate(String expression, double expected) {
+        assertAll(
+                () -> assertEquals(expected, calculator.compile(expression).evaluate(Collections.emptyMap()), 0.0001),
+                () -> assertEquals(expected, calculator.evaluate(expression, Collections.emptyMap()), 0.0001)
+        );
+    }
+
+    @Test
+    void testCompiledMissingVariable() {
+        CompiledExpression compiled = calculator.compile("x + y");
+        assertThrows(IllegalArgumentException.class,
+                () -> compiled.evaluate(Collections.singletonMap("x", 1.0)));
+    }
+
+    @Test
+    void testSlotBinding() {
+        CompiledExpression compiled = calculator.compile("y * 10 + x", "x", "y");
+        assertAll(
+                () -> assertEquals(Arrays.asList("x", "y"), compiled.getVariables()),
+                () -> assertEquals(0, compiled.slotOf("x")),
+                () -> assertEquals(1, compiled.slotOf("y")),
+                () -> assertEquals(-1, compiled.slotOf("z")),
+                () -> assertEquals(21.0, compiled.evaluate(1.0, 2.0), 0.0001),
+                () -> assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(1.0))
+        );
+    }
+
+    @Test
+    void testSlotsFollowFindVariablesOrder() {
+        String expression = "b + sin(a) * c";
+        assertEquals(new ArrayList<>(calculator.findVariables(expression)),
+                calculator.compile(expression).getVariables());
+    }
+
+    @Test
+    void testVariableNamePrefixes() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.0);
+        variables.put("xy", 2.0);
+        assertEquals(3.0, calculator.evaluate("x + xy", variables), 0.0001);
+    }
+
+    @Test
+    void testVariableValuesKeepPrecision() {
+        Map<String, Double> variables = Collections.singletonMap("x", 1.0E20);
+        assertEquals(2.0E20, calculator.evaluate("x * 2", variables));
+    }
+
+    @Test
+    void testBatchMatchesRowEvaluation() {
+        CompiledExpression compiled = calculator.compile("pow(x, 2) / (y + 1) - sqrt(abs(x)) * sin(y)", "x", "y");
+        int rows = 1000;
+        double[] x = new double[rows];
+        double[] y = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            x[i] = i * 0.37 - 50;
+            y[i] = i * 0.11;
+        }
+        double[] out = new double[rows];
+        calculator.evaluateBatch(compiled, new double[][] {x, y}, out);
+        for (int i = 0; i < rows; i++) {
+            assertEquals(compiled.evaluate(x[i], y[i]), out[i], 1e-12);
+        }
+    }
+
+    @Test
+    void testBatchErrors() {
+        CompiledExpression compiled = calculator.compile("1 / x");
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> calculator.evaluateBatch(compiled, new double[][] {{1, 0, 2}}, new double[3])),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> calculator.evaluateBatch(compiled, new double[0][], new double[3])),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> calculator.evaluateBatch(compiled, new double[][] {{1, 2}}, new double[3]))
+        );
+    }
+
+    @Test
+    void testBatchSqrtOfNegativeAfterNaN() {
+        CompiledExpression compiled = calculator.compile("sqrt(x)");
+        assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(-1.0));
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.evaluateBatch(compiled, new double[][] {{Double.NaN, -1}}, new double[2]));
+    }
+
+    @Test
+    void testParallelBatchMatchesSequential() {
+        Calculator parallel = Calculator.builder().parallelism(4).batchChunkSize(1000).build();
+        CompiledExpression compiled = parallel.compile("x * y - sqrt(abs(x)) / (y + 1)", "x", "y");
+        int rows = 100_003;
+        double[] x = new double[rows];
+        double[] y = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            x[i] = i * 0.01 - 300;
+            y[i] = i % 17;
+        }
+        double[][] columns = {x, y};
+        double[] expected = new double[rows];
+        compiled.evaluateBatch(columns, expected);
+        double[] out = new double[rows];
+        parallel.evaluateBatch(compiled, columns, out);
+        assertArrayEquals(expected, out);
+
+        y[rows - 5] = -1;
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> parallel.evaluateBatch(compiled, columns, out));
+        assertTrue(error.getMessage().contains("Деление на ноль"), error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Calculator.builder().parallelism(0));
+        assertThrows(IllegalArgumentException.class, () -> Calculator.builder().batchChunkSize(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "(2 + x) * 4 - 5",
+            "sqrt(25) + pow(2, 3) * x",
+            "log10(100) * sin(x)",
+            "-x^2 + cos(x) / (tan(x) + 5) - ln(abs(x) + 1) + log2(abs(x) + 2)"
+    })
+    void testBytecodeBackendMatchesInterpreter(String expression) {
+        CompiledExpression interpreted = calculator.compile(expression);
+        CompiledExpression generated = calculator.compile(expression, Backend.BYTECODE);
+        assertEquals(Backend.INTERPRETER, interpreted.getBackend());
+        assertEquals(Backend.BYTECODE, generated.getBackend());
+        for (double x = -3; x <= 3; x += 0.25) {
+            assertEquals(interpreted.evaluate(x), generated.evaluate(x), 0.0);
+        }
+    }
+
+    @Test
+    void testBytecodeBackendErrors() {
+        CompiledExpression generated = calculator.compile("1 / x + sqrt(x)", Backend.BYTECODE);
+        assertAll(
+                () -> assertThrows(ArithmeticException.class, () -> generated.evaluate(0.0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> generated.evaluate(-1.0)),
+                () -> assertEquals(Backend.INTERPRETER, generated.withBackend(Backend.INTERPRETER).getBackend())
+        );
+    }
+
+    @Test
+    void testBytecodeBackendIsGeneratedOnce() {
+        CompiledExpression first = calculator.compile("x * x + 1", Backend.BYTECODE);
+        assertSame(first, calculator.compile("x * x + 1", Backend.BYTECODE));
+        assertSame(first, calculator.compile("x * x + 1").withBackend(Backend.BYTECODE));
+    }
+
+    @Test
+    void testBytecodeBackendFallsBackForHugeExpressions() {
+        StringBuilder expression = new StringBuilder("x");
+        for (int i = 0; i < 20000; i++) {
+            expression.append("+x*").append(i);
+        }
+        CompiledExpression compiled = calculator.compile(expression.toString(), Backend.BYTECODE);
+        assertEquals(Backend.INTERPRETER, compiled.getBackend());
+        assertEquals(1 + 199990000.0, compiled.evaluate(1.0), 0.0001);
+    }
+
+    @Test
+    void testCacheHitsAndMisses() {
+        Calculator cached = new Calculator(2);
+        CompiledExpression first = cached.compile("x + 1");
+        assertSame(first, cached.compile(" x+1 "));
+        cached.evaluate("x + 1", Collections.singletonMap("x", 1.0));
+
+        CacheStats stats = cached.getCacheStats();
+        assertAll(
+                () -> assertEquals(2, stats.getHits()),
+                () -> assertEquals(1, stats.getMisses()),
+                () -> assertEquals(0, stats.getEvictions()),
+                () -> assertEquals(1, stats.getSize())
+        );
+    }
+
+    @Test
+    void testCacheEvictsLeastRecentlyUsed() {
+        Calculator cached = new Calculator(2);
+        CompiledExpression a = cached.compile("a");
+        cached.compile("b");
+        cached.compile("a");
+        cached.compile("c");
+
+        assertSame(a, cached.compile("a"));
+        assertEquals(1, cached.getCacheStats().getEvictions());
+        cached.compile("b");
+        assertEquals(2, cached.getCacheStats().getEvictions());
+        assertEquals(2, cached.getCacheStats().getSize());
+    }
+
+    @Test
+    void testCacheDisabled() {
+        Calculator uncached = new Calculator(0);
+        assertNotSame(uncached.compile("x"), uncached.compile("x"));
+        assertEquals(0, uncached.getCacheStats().getSize());
+        assertThrows(IllegalArgumentException.class, () -> new Calculator(-1));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'sqrt(25) + pow(2, 3) * x', 5",
+            "'log10(100) * sin(x)', 4",
+            "'(x + 0) * 1 - 0', 1",
+            "'pow(x, 2)', 2",
+            "'sin(x) * sin(x) + sin(x)', 4",
+            "'--x', 1",
+            "'2 * 3 + 4', 1"
+    })
+    void testOptimizedInstructionCount(String expression, int expectedInstructions) {
+        assertEquals(expectedInstructions, calculator.compile(expression).getInstructionCount());
+    }
+
+    @Test
+    void testOptimizationKeepsResults() {
+        String[] expressions = {"sqrt(25) + pow(2, 3) * x", "log10(100) * sin(x)", "pow(x, 2) + pow(x, 0)",
+                "(x * 1 + 0) / 1 - 0 * x", "0 - x + pow(x, 1)"};
+        for (String expression : expressions) {
+            CompiledExpression compiled = calculator.compile(expression);
+            for (double x = -2; x <= 2; x += 0.5) {
+                double expected = evaluateUnoptimized(expression, x);
+                assertEquals(expected, compiled.evaluate(x), 1e-12, expression);
+            }
+        }
+    }
+
+    @Test
+    void testFailingConstantsAreNotFolded() {
+        CompiledExpression compiled = calculator.compile("x + 1 / 0");
+        assertThrows(ArithmeticException.class, () -> compiled.evaluate(1.0));
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.evaluate("sqrt(0 - 4)", Collections.emptyMap()));
+    }
+
+    @Test
+    void testPowZeroKeepsFailingOperand() {
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.evaluate("pow(sqrt(0-4),0)", Collections.emptyMap()));
+        assertThrows(IllegalArgumentException.class, () -> calculator.compile("pow(ln(x),0)").evaluate(-1.0));
+        assertThrows(ArithmeticException.class, () -> calculator.compile("pow(1/x,0)").evaluate(0.0));
+        assertEquals(1.0, calculator.compile("pow(x,0)").evaluate(Double.NaN));
+    }
+
+    /**
+     * Вычисляет выражение по программе без оптимизации.
+     */
+    private double evaluateUnoptimized(String expression, double x) {
+        Map<String, MathFunction> functions = new HashMap<>();
+        for (String name : calculator.getFunctionsList()) {
+            functions.put(name, calculator.function(name));
+        }
+        return ExpressionParser.parse(expression.replace(" ", ""), functions).evaluate(x);
+    }
+
+    @Test
+    void testBuilder() {
+        Calculator built = Calculator.builder().cacheSize(1).build();
+        built.compile("x");
+        built.compile("y");
+        assertEquals(1, built.getCacheStats().getSize());
+        assertThrows(IllegalArgumentException.class, () -> Calculator.builder().cacheSize(-1));
+    }
+
+    @Test
+    void testFunctionsListIsImmutable() {
+        assertThrows(UnsupportedOperationException.class, () -> calculator.getFunctionsList().remove("sin"));
+    }
+
+    private static Calculator calculatorWithCustomFunctions() {
+        return Calculator.builder()
+                .function(MathFunction.unary("cube", x -> x * x * x))
+                .function(MathFunction.binary("hypot", Math::hypot))
+                .function(MathFunction.variadic("max", 1, Integer.MAX_VALUE, (args, n) -> {
+                    double m = args[0];
+                    for (int i = 1; i < n; i++) m = Math.max(m, args[i]);
+                    return m;
+                }))
+                .function(MathFunction.variadic("min", 1, Integer.MAX_VALUE, (args, n) -> {
+                    double m = args[0];
+                    for (int i = 1; i < n; i++) m = Math.min(m, args[i]);
+                    return m;
+                }))
+                .build();
+    }
+
+    @Test
+    void testCustomFunctions() {
+        Calculator custom = calculatorWithCustomFunctions();
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 3.0);
+        variables.put("y", 4.0);
+        assertAll(
+                () -> assertEquals(27.0, custom.evaluate("cube(x)", variables), 0.0001),
+                () -> assertEquals(5.0, custom.evaluate("hypot(x, y)", variables), 0.0001),
+                () -> assertEquals(7.0, custom.evaluate("max(x, y, 7, -1) ", variables), 0.0001),
+                () -> assertEquals(-1.0, custom.evaluate("min(max(x, y), -1)", variables), 0.0001),
+                () -> assertEquals(2.0, custom.evaluate("sqrt(max(4))", variables), 0.0001),
+                () -> assertTrue(custom.getFunctionsList().containsAll(Arrays.asList("cube", "hypot", "max", "min"))),
+                () -> assertFalse(calculator.getFunctionsList().contains("max"))
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "hypot(1)",
+            "hypot(1, 2, 3)",
+            "cube()",
+            "max()",
+            "sin(1, 2)",
+            "pow(2)",
+            "max(1, 2"
+    })
+    void testFunctionArityErrors(String expression) {
+        Calculator custom = calculatorWithCustomFunctions();
+        assertThrows(IllegalArgumentException.class, () -> custom.compile(expression));
+    }
+
+    @Test
+    void testFunctionRegistrationErrors() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> Calculator.builder().function(MathFunction.unary("sin", Math::sin))),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> MathFunction.unary("1bad", Math::sin)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> MathFunction.variadic("f", 3, 2, (args, n) -> 0))
+        );
+    }
+
+    @Test
+    void testCustomFunctionsAcrossBackends() {
+        Calculator custom = calculatorWithCustomFunctions();
+        CompiledExpression interpreted = custom.compile("hypot(x, cube(y)) + max(x, y, x * y) - min(1, 2)", "x", "y");
+        CompiledExpression generated = interpreted.withBackend(Backend.BYTECODE);
+        assertEquals(Backend.BYTECODE, generated.getBackend());
+
+        int rows = 300;
+        double[] xs = new double[rows];
+        double[] ys = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            xs[i] = i * 0.1 - 15;
+            ys[i] = 3 - i * 0.02;
+        }
+        double[] out = new double[rows];
+        custom.evaluateBatch(interpreted, new double[][] {xs, ys}, out);
+        for (int i = 0; i < rows; i++) {
+            double expected = Math.hypot(xs[i], ys[i] * ys[i] * ys[i])
+                    + Math.max(Math.max(xs[i], ys[i]), xs[i] * ys[i]) - 1;
+            assertEquals(expected, interpreted.evaluate(xs[i], ys[i]), 1e-9);
+            assertEquals(expected, generated.evaluate(xs[i], ys[i]), 1e-9);
+            assertEquals(expected, out[i], 1e-9);
+        }
+    }
+
+    @Test
+    void testConstantCustomCallsAreFolded() {
+        Calculator custom = calculatorWithCustomFunctions();
+        assertEquals(1, custom.compile("hypot(3, 4) + max(1, 2, 3)").getInstructionCount());
+        assertEquals(3, custom.compile("cube(x) + cube(x)").getInstructionCount());
+    }
+}
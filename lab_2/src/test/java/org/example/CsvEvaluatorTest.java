@@ -0,0 +1,122 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvEvaluatorTest {
+
+    private static String run(CsvEvaluator evaluator, String csv) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        evaluator.evaluate(new ByteArrayInputStream(csv.getBytes(StandardCharsets.US_ASCII)), out);
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testColumnsMappedByHeader() throws IOException {
+        CsvEvaluator evaluator = new CsvEvaluator(new Calculator(), "price * qty - discount");
+        String csv = "id,qty,discount,price,comment\n"
+                + "1,2,0.5,10,a\r\n"
+                + "2, 3 ,1,-2.5e1,b\n"
+                + "\n"
+                + "3,0,0,7,c";
+        assertEquals("result\n19.5\n-76.0\n0.0\n", run(evaluator, csv));
+    }
+
+    @Test
+    void testCustomDelimiterAndStats() throws IOException {
+        CsvEvaluator evaluator = new CsvEvaluator(new Calculator(), "sqrt(x) + y", ';');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamStats stats = evaluator.evaluate(
+                new ByteArrayInputStream("y;x\n1;4\n2;9\n".getBytes(StandardCharsets.US_ASCII)), out);
+        assertEquals("result\n3.0\n5.0\n", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(2, stats.getRows());
+    }
+
+    @Test
+    void testRowCountSkipsHeaderAndBlankLines() throws IOException {
+        CsvEvaluator evaluator = new CsvEvaluator(new Calculator(), "x + 1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamStats stats = evaluator.evaluate(
+                new ByteArrayInputStream("x\n1\n\n2\r\n\n3".getBytes(StandardCharsets.US_ASCII)), out);
+        assertEquals(3, stats.getRows());
+        assertEquals("result\n2.0\n3.0\n4.0\n", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        StreamStats empty = evaluator.evaluate(
+                new ByteArrayInputStream("x\n".getBytes(StandardCharsets.US_ASCII)), new ByteArrayOutputStream());
+        assertEquals(0, empty.getRows());
+    }
+
+    @Test
+    void testErrors() {
+        CsvEvaluator evaluator = new CsvEvaluator(new Calculator(), "x / y");
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+                () -> run(evaluator, "x,z\n1,2\n"));
+        assertTrue(missing.getMessage().contains("y"));
+
+        IllegalArgumentException number = assertThrows(IllegalArgumentException.class,
+                () -> run(evaluator, "x,y\n1,2\n1,abc\n"));
+        assertTrue(number.getMessage().contains("Строка 3"));
+
+        IllegalArgumentException shortRow = assertThrows(IllegalArgumentException.class,
+                () -> run(evaluator, "x,y\n1\n"));
+        assertTrue(shortRow.getMessage().contains("Строка 2"));
+
+        IllegalArgumentException division = assertThrows(IllegalArgumentException.class,
+                () -> run(evaluator, "x,y\n1,2\n1,0\n"));
+        assertTrue(division.getMessage().contains("Деление на ноль"));
+    }
+
+    @Test
+    void testLargeInputStreamedThroughSmallBuffers() throws IOException {
+        int rows = 3 * CsvEvaluator.ROWS_PER_BLOCK + 17;
+        StringBuilder csv = new StringBuilder("a,b\n");
+        StringBuilder expected = new StringBuilder("result\n");
+        Random random = new Random(42);
+        Calculator calculator = new Calculator();
+        CompiledExpression reference = calculator.compile("a * b + 1", "a", "b");
+        for (int i = 0; i < rows; i++) {
+            double a = random.nextInt(100000) / 100.0;
+            double b = -random.nextDouble();
+            csv.append(a).append(',').append(b).append('\n');
+            expected.append(reference.evaluate(a, b)).append('\n');
+        }
+        byte[] data = csv.toString().getBytes(StandardCharsets.US_ASCII);
+        // Поток отдает данные кусками по 1000 байт, чтобы строки разрывались на границах чтения
+        InputStream chunked = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1000));
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamStats stats = new CsvEvaluator(calculator, "a * b + 1").evaluate(chunked, out);
+        assertEquals(rows, stats.getRows());
+        assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testNumberParserMatchesDoubleParse() {
+        String[] samples = {"0", "-0", "+1", "1.", ".5", "3.14159", "1e10", "1E-5", "-2.5e+3",
+                "123456789012345678901234", "0.1000000000000000055511151231257827",
+                "9007199254740993", "1e-400", "1e400", "NaN", "-Infinity", "00012.500"};
+        for (String sample : samples) {
+            byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(sample), NumberParser.parse(bytes, 0, bytes.length), sample);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            String sample = Double.toString(Double.longBitsToDouble(random.nextLong()));
+            byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(sample), NumberParser.parse(bytes, 0, bytes.length), sample);
+        }
+        byte[] bad = "1e".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(bad, 0, bad.length));
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionArchiveTest {
+    private final Calculator calculator = Calculator.builder()
+            .function(MathFunction.binary("hypot", Math::hypot))
+            .function(MathFunction.variadic("max", 1, Integer.MAX_VALUE, (args, n) -> {
+                double m = args[0];
+                for (int i = 1; i < n; i++) m = Math.max(m, args[i]);
+                return m;
+            }))
+            .build();
+
+    @Test
+    void testRoundTripThroughMappedFile(@TempDir Path directory) throws IOException {
+        List<CompiledExpression> expressions = Arrays.asList(
+                calculator.compile("(2 + x) * 4 - 5"),
+                calculator.compile("hypot(x, y) + max(x, y, 3) * sin(y) - 0.1", "y", "x"),
+                calculator.compile("sqrt(25) + pow(2, 3)"),
+                calculator.compile("-x^3 / (abs(y) + 1) + ln(abs(x) + 1) + 0.1"));
+        Path file = directory.resolve("formulas.bin");
+        ExpressionArchive.write(expressions, file);
+        List<CompiledExpression> loaded = ExpressionArchive.read(calculator, file);
+
+        assertEquals(expressions.size(), loaded.size());
+        for (int e = 0; e < expressions.size(); e++) {
+            CompiledExpression original = expressions.get(e);
+            CompiledExpression copy = loaded.get(e);
+            assertEquals(original.getSource(), copy.getSource());
+            assertEquals(original.getVariables(), copy.getVariables());
+            assertEquals(original.getInstructionCount(), copy.getInstructionCount());
+            double[] slots = new double[original.getVariables().size()];
+            Arrays.fill(slots, 1.75);
+            assertEquals(original.evaluate(slots), copy.evaluate(slots));
+            assertEquals(original.evaluate(slots), copy.withBackend(Backend.BYTECODE).evaluate(slots));
+        }
+    }
+
+    @Test
+    void testRejectsInvalidData() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExpressionArchive.write(List.of(calculator.compile("hypot(x, 2) + 1")), out);
+        byte[] data = out.toByteArray();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpressionArchive.read(new Calculator(), ByteBuffer.wrap(data)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpressionArchive.read(calculator, ByteBuffer.wrap(Arrays.copyOf(data, data.length - 3))));
+        byte[] version = data.clone();
+        version[5] = 9;
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.read(calculator, ByteBuffer.wrap(version)));
+        byte[] magic = data.clone();
+        magic[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.read(calculator, ByteBuffer.wrap(magic)));
+    }
+
+    @Test
+    void testConstantCallsAreBoundOnLoad() throws IOException {
+        Calculator writer = Calculator.builder().function(MathFunction.unary("f", x -> x * 10)).build();
+        CompiledExpression original = writer.compile("f(2) + x");
+        assertEquals(21.0, original.evaluate(1.0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExpressionArchive.write(List.of(original), out);
+        byte[] data = out.toByteArray();
+
+        Calculator reader = Calculator.builder().function(MathFunction.unary("f", x -> x * 100)).build();
+        CompiledExpression loaded = ExpressionArchive.read(reader, ByteBuffer.wrap(data)).get(0);
+        assertEquals(201.0, loaded.evaluate(1.0));
+        assertEquals(reader.compile(loaded.getSource()).evaluate(1.0), loaded.evaluate(1.0));
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpressionArchive.read(new Calculator(), ByteBuffer.wrap(data)));
+    }
+
+    @Test
+    void testRejectsFunctionWithDifferentArity() throws IOException {
+        Calculator writer = Calculator.builder().function(MathFunction.binary("f", (x, y) -> x * y)).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExpressionArchive.write(List.of(writer.compile("f(x, 10)")), out);
+        byte[] data = out.toByteArray();
+
+        Calculator unary = Calculator.builder().function(MathFunction.unary("f", x -> x * x)).build();
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.read(unary, ByteBuffer.wrap(data)));
+        Calculator variadic = Calculator.builder()
+                .function(MathFunction.variadic("f", 3, 5, (args, n) -> n))
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.read(variadic, ByteBuffer.wrap(data)));
+        Calculator compatible = Calculator.builder()
+                .function(MathFunction.variadic("f", 1, 2, (args, n) -> args[0] * args[n - 1]))
+                .build();
+        assertEquals(30.0, ExpressionArchive.read(compatible, ByteBuffer.wrap(data)).get(0).evaluate(3.0));
+    }
+}
@@ -0,0 +1,115 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointExpressionTest {
+    private final Calculator calculator = new Calculator();
+
+    @Test
+    void testLongArithmetic() {
+        FixedPointExpression f = calculator.compileLong("(a + b) * 3 - a / 2 + pow(b, 3) + abs(-a)", "a", "b");
+        assertEquals((7 + 5) * 3 - 4 + 125 + 7, f.evaluate(7, 5));
+        assertEquals(0, f.getScale());
+
+        FixedPointExpression big = calculator.compileLong("x * x + 1");
+        assertEquals(3037000499L * 3037000499L + 1, big.evaluate(3037000499L));
+        assertThrows(ArithmeticException.class, () -> big.evaluate(3037000500L));
+        assertThrows(ArithmeticException.class, () -> calculator.compileLong("x / 0").evaluate(1));
+        assertThrows(ArithmeticException.class, () -> calculator.compileLong("2 ^ x").evaluate(-1));
+    }
+
+    @Test
+    void testDecimalHasNoFloatingPointDrift() {
+        FixedPointExpression f = calculator.compileFixedPoint("0.1 + 0.2", 2, RoundingMode.HALF_UP);
+        assertEquals(new BigDecimal("0.30"), f.toDecimal(f.evaluate()));
+
+        FixedPointExpression total = calculator.compileFixedPoint("price * qty * 1.2", 2, RoundingMode.HALF_UP,
+                "price", "qty");
+        long cents = total.evaluate(total.toUnscaled(new BigDecimal("19.99")), total.toUnscaled(3));
+        assertEquals(new BigDecimal("71.96"), total.toDecimal(cents));
+
+        FixedPointExpression sum = calculator.compileFixedPoint("s + x", 2, RoundingMode.HALF_UP, "s", "x");
+        long accumulator = 0;
+        for (int i = 0; i < 1000; i++) {
+            accumulator = sum.evaluate(accumulator, sum.toUnscaled(new BigDecimal("0.01")));
+        }
+        assertEquals(new BigDecimal("10.00"), sum.toDecimal(accumulator));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RoundingMode.class, names = "UNNECESSARY", mode = EnumSource.Mode.EXCLUDE)
+    void testRoundingMatchesBigDecimal(RoundingMode rounding) {
+        FixedPointExpression f = calculator.compileFixedPoint("x * y / z", 3, rounding, "x", "y", "z");
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            BigDecimal x = BigDecimal.valueOf(random.nextInt(2_000_001) - 1_000_000, 3);
+            BigDecimal y = BigDecimal.valueOf(random.nextInt(2_000_001) - 1_000_000, 3);
+            BigDecimal z = BigDecimal.valueOf(random.nextInt(20_000) + 1, 3);
+            BigDecimal expected = x.multiply(y).setScale(3, rounding).divide(z, 3, rounding);
+            long actual = f.evaluate(f.toUnscaled(x), f.toUnscaled(y), f.toUnscaled(z));
+            assertEquals(expected, f.toDecimal(actual), x + " * " + y + " / " + z);
+        }
+    }
+
+    @Test
+    void testPowerIsRoundedOnce() {
+        FixedPointExpression f = calculator.compileFixedPoint("x ^ n", 2, RoundingMode.HALF_UP, "x", "n");
+        assertEquals(new BigDecimal("1.75"), f.toDecimal(f.evaluate(f.toUnscaled(new BigDecimal("1.15")), f.toUnscaled(4))));
+        FixedPointExpression exact = calculator.compileFixedPoint("x ^ 2 ^ 2", 4, RoundingMode.UNNECESSARY, "x");
+        assertEquals(new BigDecimal("0.0625"), exact.toDecimal(exact.evaluate(exact.toUnscaled(new BigDecimal("0.5")))));
+        assertEquals(new BigDecimal("-0.01"), f.toDecimal(f.evaluate(f.toUnscaled(new BigDecimal("-0.5")), f.toUnscaled(7))));
+        assertEquals(new BigDecimal("0.00"),
+                f.toDecimal(f.evaluate(f.toUnscaled(new BigDecimal("0.99")), f.toUnscaled(1_000_000_000))));
+        assertThrows(ArithmeticException.class,
+                () -> f.evaluate(f.toUnscaled(new BigDecimal("1.01")), f.toUnscaled(1_000_000_000)));
+        FixedPointExpression fine = calculator.compileFixedPoint("x ^ n", 4, RoundingMode.HALF_UP, "x", "n");
+        assertEquals(new BigDecimal("1.0001").pow(100_000, new MathContext(60)).setScale(4, RoundingMode.HALF_UP),
+                fine.toDecimal(fine.evaluate(fine.toUnscaled(new BigDecimal("1.0001")), fine.toUnscaled(100_000))));
+        Random random = new Random(17);
+        for (int i = 0; i < 500; i++) {
+            BigDecimal x = BigDecimal.valueOf(random.nextInt(4001) - 2000, 2);
+            int n = random.nextInt(6);
+            BigDecimal expected = x.pow(n).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, f.toDecimal(f.evaluate(f.toUnscaled(x), f.toUnscaled(n))), x + " ^ " + n);
+        }
+    }
+
+    @Test
+    void testLargeIntermediateProduct() {
+        FixedPointExpression f = calculator.compileFixedPoint("x * y", 6, RoundingMode.HALF_EVEN, "x", "y");
+        BigDecimal x = new BigDecimal("123456789.123456");
+        BigDecimal y = new BigDecimal("12.5");
+        assertEquals(x.multiply(y).setScale(6, RoundingMode.HALF_EVEN),
+                f.toDecimal(f.evaluate(f.toUnscaled(x), f.toUnscaled(y))));
+    }
+
+    @Test
+    void testConstantsAboveDoublePrecision() {
+        assertEquals(9007199254740994L, calculator.compileLong("9007199254740993 + x").evaluate(1));
+        assertEquals(123456789012345678L, calculator.compileLong("123456789012345678").evaluate());
+        FixedPointExpression f = calculator.compileFixedPoint("x + 1234567890123.456789", 6, RoundingMode.HALF_UP);
+        assertEquals(new BigDecimal("1234567890123.456789"), f.toDecimal(f.evaluate(0)));
+        assertThrows(IllegalArgumentException.class, () -> calculator.compileLong("x + 99999999999999999999"));
+    }
+
+    @Test
+    void testCompileErrors() {
+        assertThrows(IllegalArgumentException.class, () -> calculator.compileLong("sqrt(x)"));
+        assertThrows(IllegalArgumentException.class, () -> calculator.compileLong("x * 1.5"));
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.compileFixedPoint("x * 0.125", 2, RoundingMode.HALF_UP));
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.compileFixedPoint("x", 19, RoundingMode.HALF_UP));
+        assertThrows(ArithmeticException.class,
+                () -> calculator.compileFixedPoint("x / 3", 2, RoundingMode.UNNECESSARY).evaluate(100));
+    }
+}
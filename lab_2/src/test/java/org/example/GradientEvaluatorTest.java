@@ -0,0 +1,81 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientEvaluatorTest {
+    private final Calculator calculator = Calculator.builder()
+            .function(MathFunction.binary("hypot", Math::hypot))
+            .build();
+
+    @Test
+    void testAnalyticGradient() {
+        CompiledExpression f = calculator.compile("x^2 * y + sin(y) - ln(x) / y", "x", "y");
+        GradientEvaluator evaluator = new GradientEvaluator(f);
+        double x = 3;
+        double y = 0.5;
+        double[] reverse = new double[2];
+        double[] forward = new double[2];
+        double value = evaluator.gradient(new double[] {x, y}, reverse);
+        assertEquals(f.evaluate(x, y), value);
+        assertEquals(evaluator.gradientForward(new double[] {x, y}, forward), value);
+        double dx = 2 * x * y - 1 / (x * y);
+        double dy = x * x + Math.cos(y) + Math.log(x) / (y * y);
+        assertArrayEquals(new double[] {dx, dy}, reverse, 1e-12);
+        assertArrayEquals(new double[] {dx, dy}, forward, 1e-12);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "(2 + x) * 4 - 5 / y",
+            "pow(x, y) + sqrt(abs(x - y) + 1)",
+            "-x^2 + cos(x) / (tan(y) + 5) - log10(abs(x) + 1) + log2(abs(y) + 2)",
+            "hypot(x, y) * x",
+            "x * x * x - 2 * y + 7"
+    })
+    void testGradientMatchesFiniteDifferences(String expression) {
+        CompiledExpression f = calculator.compile(expression, "x", "y");
+        GradientEvaluator evaluator = new GradientEvaluator(f);
+        double[] point = {1.3, 0.7};
+        double[] reverse = new double[2];
+        double[] forward = new double[2];
+        evaluator.gradient(point, reverse);
+        evaluator.gradientForward(point, forward);
+        for (int k = 0; k < 2; k++) {
+            double h = 1e-6;
+            double[] upper = point.clone();
+            double[] lower = point.clone();
+            upper[k] += h;
+            lower[k] -= h;
+            double numeric = (f.evaluate(upper) - f.evaluate(lower)) / (2 * h);
+            assertEquals(numeric, reverse[k], 1e-5, expression);
+            assertEquals(reverse[k], forward[k], 1e-9, expression);
+        }
+    }
+
+    @Test
+    void testConstantExponentOfNegativeBase() {
+        CompiledExpression f = calculator.compile("x^3 + 2^y", "x", "y");
+        double[] gradient = new double[2];
+        new GradientEvaluator(f).gradient(new double[] {-2, 1}, gradient);
+        assertArrayEquals(new double[] {12, 2 * Math.log(2)}, gradient, 1e-12);
+    }
+
+    @Test
+    void testZeroBase() {
+        CompiledExpression f = calculator.compile("pow(x, y) + x^3", "x", "y");
+        double[] gradient = new double[2];
+        new GradientEvaluator(f).gradient(new double[] {0, 2}, gradient);
+        assertArrayEquals(new double[] {0, 0}, gradient, 0.0);
+    }
+
+    @Test
+    void testErrors() {
+        GradientEvaluator evaluator = new GradientEvaluator(calculator.compile("1 / x"));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.gradient(new double[2], new double[1]));
+        assertThrows(ArithmeticException.class, () -> evaluator.gradient(new double[] {0}, new double[1]));
+    }
+}
@@ -0,0 +1,58 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalEvaluatorTest {
+    private final Calculator calculator = new Calculator();
+
+    @Test
+    void testMatchesFullEvaluation() {
+        StringBuilder formula = new StringBuilder("0");
+        int variables = 20;
+        String[] names = new String[variables];
+        for (int v = 0; v < variables; v++) {
+            names[v] = "v" + v;
+            formula.append(" + sin(v").append(v).append(") * ").append(v + 1).append(" / (abs(v")
+                    .append(v).append(") + 1)");
+        }
+        CompiledExpression compiled = calculator.compile(formula.toString(), names);
+        IncrementalEvaluator state = new IncrementalEvaluator(compiled);
+        double[] values = new double[variables];
+        Random random = new Random(1);
+        for (int v = 0; v < variables; v++) {
+            values[v] = random.nextDouble();
+        }
+        state.setAll(values);
+        assertEquals(compiled.evaluate(values), state.evaluate(), 1e-12);
+        assertEquals(compiled.getInstructionCount(), state.getRecomputedCount());
+
+        for (int step = 0; step < 100; step++) {
+            int v = random.nextInt(variables);
+            values[v] = random.nextDouble();
+            state.set(v, values[v]);
+            assertEquals(compiled.evaluate(values), state.evaluate(), 1e-12);
+            assertTrue(state.getRecomputedCount() < compiled.getInstructionCount() / 5,
+                    "recomputed " + state.getRecomputedCount());
+        }
+
+        state.set("v3", values[3]);
+        state.evaluate();
+        assertEquals(0, state.getRecomputedCount());
+    }
+
+    @Test
+    void testErrorLeavesStateRecoverable() {
+        CompiledExpression compiled = calculator.compile("x / y + z", "x", "y", "z");
+        IncrementalEvaluator state = new IncrementalEvaluator(compiled);
+        state.setAll(1, 0, 2);
+        assertThrows(ArithmeticException.class, state::evaluate);
+        state.set(1, 4);
+        assertEquals(2.25, state.evaluate());
+        assertThrows(IllegalArgumentException.class, () -> state.set("w", 1));
+        assertThrows(IllegalArgumentException.class, () -> state.setAll(1, 2));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalEvaluationTest {
+    private final Calculator calculator = new Calculator();
+
+    @Test
+    void testEvaluateRange() {
+        CompiledExpression f = calculator.compile("x^2 + a", "x", "a");
+        double[] values = f.evaluateRange("x", -1, 1, 4, 0, 10);
+        assertArrayEquals(new double[] {11, 10.25, 10, 10.25, 11}, values, 1e-12);
+
+        double[] sine = calculator.compile("sin(t)").evaluateRange("t", 0, Math.PI, 1000);
+        assertEquals(1001, sine.length);
+        assertEquals(1, sine[500], 1e-12);
+
+        assertThrows(IllegalArgumentException.class, () -> f.evaluateRange("y", 0, 1, 10, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> f.evaluateRange("x", 0, 1, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> f.evaluateRange("x", 0, 1, 10));
+    }
+
+    @Test
+    void testKnownBounds() {
+        assertBounds("x^2", -1, 2, 0, 4);
+        assertBounds("sin(x)", 0, Math.PI, 0, 1);
+        assertBounds("cos(x)", -1, 1, Math.cos(1), 1);
+        assertBounds("abs(x) - 3", -5, 2, -3, 2);
+        assertBounds("sqrt(x)", -4, 9, 0, 3);
+
+        Interval unbounded = calculator.compile("1 / x").evaluateInterval(Interval.of(-1, 1));
+        assertEquals(Interval.ENTIRE, unbounded);
+        Interval lnBounds = calculator.compile("ln(x)").evaluateInterval(Interval.of(0, Math.E));
+        assertEquals(Double.NEGATIVE_INFINITY, lnBounds.getLower());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.compile("sqrt(x)").evaluateInterval(Interval.of(-4, -1)));
+        assertThrows(IllegalArgumentException.class, () -> Interval.of(2, 1));
+    }
+
+    private void assertBounds(String expression, double from, double to, double lower, double upper) {
+        Interval bounds = calculator.compile(expression).evaluateInterval(Interval.of(from, to));
+        assertTrue(bounds.getLower() <= lower && lower - bounds.getLower() < 1e-9, expression + " " + bounds);
+        assertTrue(bounds.getUpper() >= upper && bounds.getUpper() - upper < 1e-9, expression + " " + bounds);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "x * y - x / (y + 3)",
+            "pow(x, 3) - sin(x * y) + cos(y)",
+            "tan(x / 4) + log10(abs(y) + 1) - log2(x^2 + 1)",
+            "sqrt(abs(x)) * ln(y^2 + 1) - pow(abs(y) + 1, x)"
+    })
+    void testBoundsContainSampledValues(String expression) {
+        CompiledExpression f = calculator.compile(expression, "x", "y");
+        Random random = new Random(3);
+        for (int trial = 0; trial < 50; trial++) {
+            double xl = random.nextDouble() * 4 - 2;
+            double yl = random.nextDouble() * 4 - 2;
+            Interval x = Interval.of(xl, xl + random.nextDouble());
+            Interval y = Interval.of(yl, yl + random.nextDouble());
+            Interval bounds = f.evaluateInterval(x, y);
+            for (int k = 0; k < 50; k++) {
+                double px = x.getLower() + random.nextDouble() * x.getWidth();
+                double py = y.getLower() + random.nextDouble() * y.getWidth();
+                double value = f.evaluate(px, py);
+                assertTrue(bounds.contains(value), expression + " at " + px + ", " + py + ": " + value + " not in " + bounds);
+            }
+        }
+    }
+}